@@ -0,0 +1,91 @@
+package com.chess.archive;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.pgn.PgnDatabase;
+import com.chess.pgn.PgnGame;
+import com.chess.pgn.PgnGameHandler;
+import com.chess.pgn.PgnLoadListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+//converts a pgn file into a game archive, the games are replayed on every core and written as they come
+//games with an illegal move are left out
+//usage: ArchiveConverter file.pgn base [--threads N] [--index-plies N]
+public final class ArchiveConverter {
+
+    private ArchiveConverter() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static void main(final String[] args) throws IOException {
+        String pgnFile = null;
+        String baseName = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int indexPlies = GameArchiveWriter.DEFAULT_INDEX_PLIES;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--threads") && i + 1 < args.length){
+                threads = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("--index-plies") && i + 1 < args.length){
+                indexPlies = Integer.parseInt(args[++i]);
+            } else if(pgnFile == null && !args[i].startsWith("--")){
+                pgnFile = args[i];
+            } else if(baseName == null && !args[i].startsWith("--")){
+                baseName = args[i];
+            } else {
+                throw new RuntimeException("Unknown argument: " + args[i]);
+            }
+        }
+        if(baseName == null){
+            throw new RuntimeException("Usage: ArchiveConverter file.pgn base [--threads N] [--index-plies N]");
+        }
+        final String sourceFile = pgnFile;
+        final Path base = Paths.get(baseName);
+        final int loadThreads = threads;
+        final long start = System.nanoTime();
+        try(final PgnDatabase database = PgnDatabase.open(Paths.get(sourceFile))){
+            final GameArchiveWriter writer = new GameArchiveWriter(base, indexPlies);
+            //closing the writer merges the index runs, the counts are final after it
+            try(writer){
+                database.load(loadThreads, new PgnLoadListener() {
+                    @Override
+                    public void gamesIndexed(final int gameCount) {
+                    }
+
+                    @Override
+                    public void gamesReplayed(final int replayed, final int rejected) {
+                    }
+
+                    @Override
+                    public void loadFinished(final int gameCount, final int rejected, final long millis) {
+                        System.out.println(String.format("%d games replayed, %d rejected, %d ms on %d threads",
+                                gameCount, rejected, millis, loadThreads));
+                    }
+
+                    @Override
+                    public void loadFailed(final Exception exception) {
+                        throw new RuntimeException("Converting " + sourceFile + " failed", exception);
+                    }
+                }, new PgnGameHandler() {
+                    @Override
+                    public void gameReplayed(final PgnGame game, final List<Board> boards, final List<Move> moves) {
+                        try {
+                            writer.addGame(game.getTags(), boards, moves);
+                        } catch(final IOException e) {
+                            throw new RuntimeException("Cannot write game " + (game.getGameNumber() + 1) + " to " + base, e);
+                        }
+                    }
+                });
+            }
+            System.out.println(String.format("%d games archived, %d index entries, %d ms",
+                    writer.getGameCount(), writer.getEntryCount(), (System.nanoTime() - start) / 1_000_000));
+        }
+        System.out.println(String.format("%s: %d bytes of games, %d of index, %d of statistics", base,
+                Files.size(ArchiveFormat.gamesPath(base)), Files.size(ArchiveFormat.indexPath(base)),
+                Files.size(ArchiveFormat.statisticsPath(base))));
+    }
+}
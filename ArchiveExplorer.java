@@ -0,0 +1,80 @@
+package com.chess.archive;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveEncoding;
+import com.chess.engine.player.MoveTransition;
+import com.chess.pgn.FenUtilities;
+import com.chess.pgn.SanParser;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+//prints the move statistics of a position in a game archive and a few of the games that reached it
+//the position is the FEN, or the start position, after the moves in standard algebraic notation
+//usage: ArchiveExplorer base [--fen FEN] [--moves e4 e5 ...] [--games N]
+public final class ArchiveExplorer {
+
+    private ArchiveExplorer() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static void main(final String[] args) throws IOException {
+        String baseName = null;
+        String fen = null;
+        final List<String> sanMoves = new ArrayList<>();
+        int gameLimit = 5;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--fen") && i + 1 < args.length){
+                fen = args[++i];
+            } else if(args[i].equals("--games") && i + 1 < args.length){
+                gameLimit = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("--moves")){
+                while(i + 1 < args.length && !args[i + 1].startsWith("--")){
+                    sanMoves.add(args[++i]);
+                }
+            } else if(baseName == null && !args[i].startsWith("--")){
+                baseName = args[i];
+            } else {
+                throw new RuntimeException("Unknown argument: " + args[i]);
+            }
+        }
+        if(baseName == null){
+            throw new RuntimeException("Usage: ArchiveExplorer base [--fen FEN] [--moves e4 e5 ...] [--games N]");
+        }
+        Board board = fen == null ? Board.createStandardBoard() : FenUtilities.createGameFromFEN(fen);
+        for(final String san : sanMoves){
+            final MoveTransition transition = board.currentPlayer().makeMove(SanParser.createMove(board, san));
+            if(!transition.getMoveStatus().isDone()){
+                throw new RuntimeException("Illegal move " + san + " in " + FenUtilities.toFen(board));
+            }
+            board = transition.getTransitionBoard();
+        }
+        //the move tables are built on first use, which is no part of the query
+        board.currentPlayer().getLegalMoves();
+        try(final GameArchive archive = GameArchive.open(Paths.get(baseName))){
+            final long start = System.nanoTime();
+            final List<MoveStatistics> moveStatistics = archive.getMoveStatistics(board);
+            final long[] offsets = archive.findGames(board, gameLimit);
+            final long micros = (System.nanoTime() - start) / 1000;
+            System.out.println(FenUtilities.toFen(board));
+            System.out.println(String.format("%-8s %10s %7s %7s %7s", "move", "games", "white", "draw", "black"));
+            for(final MoveStatistics statistics : moveStatistics){
+                final int games = statistics.getGameCount();
+                final Move move = statistics.getMove();
+                System.out.println(String.format("%-8s %10d %6.1f%% %6.1f%% %6.1f%%",
+                        MoveEncoding.toString(move.getEncodedMove()), games,
+                        100.0 * statistics.getWhiteWins() / games,
+                        100.0 * statistics.getDraws() / games,
+                        100.0 * statistics.getBlackWins() / games));
+            }
+            for(final long offset : offsets){
+                System.out.println(archive.getGame(offset));
+            }
+            System.out.println(String.format("%d moves and %d games of %d found in %d us",
+                    moveStatistics.size(), offsets.length, archive.getGameCount(), micros));
+        }
+    }
+}
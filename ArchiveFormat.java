@@ -0,0 +1,129 @@
+package com.chess.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+//the layout the archive writer and reader share
+//every file starts with a 16 byte header: a magic int, the version and a long count of what follows
+//base.cga holds the games, each one a varint length and then the result, the ply count, the tags and the moves.
+//a move is its index in the order of Player.getLegalMoves(), packed in as few bits as that position's move count needs
+//base.cgi is the position index, 16 byte entries of a Zobrist hash and a value, sorted by hash and then value.
+//the value holds the low 16 bits of the MoveEncoding of the move played, the result and the game's offset in base.cga
+//base.cgs holds the move statistics of every indexed position, 32 byte records sorted the same way
+final class ArchiveFormat {
+
+    static final int GAMES_MAGIC = 0x4A434741;
+    static final int INDEX_MAGIC = 0x4A434749;
+    static final int STATISTICS_MAGIC = 0x4A434753;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int INDEX_ENTRY_SIZE = 16;
+    //hash, move, white wins, draws, black wins, unfinished and 4 spare bytes
+    static final int STATISTICS_RECORD_SIZE = 32;
+
+    private static final int OFFSET_BITS = 40;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    static final long MAX_OFFSET = OFFSET_MASK;
+
+    private ArchiveFormat() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    static Path gamesPath(final Path base) {
+        return base.resolveSibling(base.getFileName() + ".cga");
+    }
+
+    static Path indexPath(final Path base) {
+        return base.resolveSibling(base.getFileName() + ".cgi");
+    }
+
+    static Path statisticsPath(final Path base) {
+        return base.resolveSibling(base.getFileName() + ".cgs");
+    }
+
+    static long indexValue(final int moveKey, final GameResult result, final long offset) {
+        return ((long) moveKey << 48) | ((long) result.ordinal() << OFFSET_BITS) | offset;
+    }
+
+    static int moveKey(final long indexValue) {
+        return (int) (indexValue >>> 48);
+    }
+
+    static GameResult result(final long indexValue) {
+        return GameResult.fromOrdinal((int) (indexValue >>> OFFSET_BITS) & 0x3);
+    }
+
+    static long offset(final long indexValue) {
+        return indexValue & OFFSET_MASK;
+    }
+
+    //0 bits when there is only one move to pick
+    static int indexBits(final int moveCount) {
+        return moveCount <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(moveCount - 1);
+    }
+
+    static void writeHeader(final FileChannel channel, final int magic, final long count) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(magic).putInt(VERSION).putLong(count).flip();
+        while(header.hasRemaining()){
+            channel.write(header, header.position());
+        }
+    }
+
+    //the count, after checking the magic and the version
+    static long readHeader(final FileChannel channel, final int magic, final Path path) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while(header.hasRemaining()){
+            if(channel.read(header, header.position()) < 0){
+                throw new IOException(path + " is too short for an archive file");
+            }
+        }
+        header.flip();
+        if(header.getInt() != magic){
+            throw new IOException(path + " is not an archive file of this kind");
+        }
+        final int version = header.getInt();
+        if(version != VERSION){
+            throw new IOException(path + " has version " + version + ", expected " + VERSION);
+        }
+        return header.getLong();
+    }
+
+    static void writeVarint(final ByteArrayOutputStream out, int value) {
+        while((value & ~0x7F) != 0){
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static void writeString(final ByteArrayOutputStream out, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    //reads from the buffer's position and moves it on
+    static int readVarint(final ByteBuffer in) {
+        int value = 0;
+        for(int shift = 0; shift < 32; shift += 7){
+            final byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if(b >= 0){
+                return value;
+            }
+        }
+        throw new RuntimeException("Varint longer than 5 bytes");
+    }
+
+    static String readString(final ByteBuffer in) {
+        final int length = readVarint(in);
+        final String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,130 @@
+package com.chess.archive;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.player.MoveTransition;
+import com.chess.pgn.FenUtilities;
+import com.google.common.collect.Iterables;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//one game read from an archive, the moves stay packed until it is replayed
+public final class ArchivedGame {
+
+    private final long offset;
+    private final long nextOffset;
+    private final GameResult result;
+    private final int plyCount;
+    private final Map<String, String> tags;
+    private final byte[] record;
+    private final int movesStart;
+
+    //record holds the game without its length
+    ArchivedGame(final long offset, final long nextOffset, final byte[] record) {
+        this.offset = offset;
+        this.nextOffset = nextOffset;
+        this.record = record;
+        final ByteBuffer in = ByteBuffer.wrap(record);
+        this.result = GameResult.fromOrdinal(in.get());
+        this.plyCount = ArchiveFormat.readVarint(in);
+        final int tagCount = ArchiveFormat.readVarint(in);
+        final Map<String, String> tags = new LinkedHashMap<>();
+        for(int i = 0; i < tagCount; i++){
+            tags.put(ArchiveFormat.readString(in), ArchiveFormat.readString(in));
+        }
+        this.tags = Collections.unmodifiableMap(tags);
+        this.movesStart = in.position();
+    }
+
+    public long getOffset() {
+        return this.offset;
+    }
+
+    //where the game after this one starts, the size of the games file after the last one
+    public long getNextOffset() {
+        return this.nextOffset;
+    }
+
+    public GameResult getResult() {
+        return this.result;
+    }
+
+    public int getPlyCount() {
+        return this.plyCount;
+    }
+
+    //null if the game has no such tag
+    public String getTag(final String tagName) {
+        return this.tags.get(tagName);
+    }
+
+    public Map<String, String> getTags() {
+        return this.tags;
+    }
+
+    //the board after the last move
+    public Board replay() {
+        return replay(null, null);
+    }
+
+    //the start board and the board after every move
+    public List<Board> replayAll() {
+        final List<Board> boards = new ArrayList<>(this.plyCount + 1);
+        replay(boards, null);
+        return boards;
+    }
+
+    //boards gets the start board and the board after every move, moves every move, either may be null
+    public Board replay(final List<Board> boards, final List<Move> moves) {
+        final String fen = this.tags.get("FEN");
+        Board board = fen == null ? Board.createStandardBoard() : FenUtilities.createGameFromFEN(fen);
+        if(boards != null){
+            boards.add(board);
+        }
+        long bits = 0L;
+        int bitCount = 0;
+        int position = this.movesStart;
+        for(int ply = 0; ply < this.plyCount; ply++){
+            final Collection<Move> legalMoves = board.currentPlayer().getLegalMoves();
+            final int indexBits = ArchiveFormat.indexBits(legalMoves.size());
+            while(bitCount < indexBits && position < this.record.length){
+                bits |= (this.record[position++] & 0xFFL) << bitCount;
+                bitCount += 8;
+            }
+            final int moveIndex = (int) (bits & ((1L << indexBits) - 1));
+            bits >>>= indexBits;
+            bitCount -= indexBits;
+            if(bitCount < 0 || moveIndex >= legalMoves.size()){
+                throw new RuntimeException("Game at " + this.offset + " is corrupt at ply " + (ply + 1));
+            }
+            final Move move = Iterables.get(legalMoves, moveIndex);
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if(!transition.getMoveStatus().isDone()){
+                throw new RuntimeException("Game at " + this.offset + " is corrupt at ply " + (ply + 1));
+            }
+            board = transition.getTransitionBoard();
+            if(boards != null){
+                boards.add(board);
+            }
+            if(moves != null){
+                moves.add(move);
+            }
+        }
+        return board;
+    }
+
+    @Override
+    public String toString() {
+        return tagOrUnknown(getTag("White")) + " - " + tagOrUnknown(getTag("Black")) + "  " + this.result.getTag();
+    }
+
+    private static String tagOrUnknown(final String tag) {
+        return tag == null || tag.isEmpty() ? "?" : tag;
+    }
+}
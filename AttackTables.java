@@ -0,0 +1,215 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+
+//attack sets for every piece on every tile, computed once at startup so move generation becomes table lookups
+//sliding pieces use magic bitboards: the blockers on a piece's rays are hashed into a dense per-tile table
+public final class AttackTables {
+
+    private static final int[][] KNIGHT_STEPS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+    private static final int[][] KING_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+    //white pawns move towards row 0, black pawns towards row 7
+    private static final int[][] WHITE_PAWN_STEPS = {{-1, -1}, {-1, 1}};
+    private static final int[][] BLACK_PAWN_STEPS = {{1, -1}, {1, 1}};
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    private static final long[] KNIGHT_ATTACKS = initStepAttacks(KNIGHT_STEPS);
+    private static final long[] KING_ATTACKS = initStepAttacks(KING_STEPS);
+    private static final long[] WHITE_PAWN_ATTACKS = initStepAttacks(WHITE_PAWN_STEPS);
+    private static final long[] BLACK_PAWN_ATTACKS = initStepAttacks(BLACK_PAWN_STEPS);
+
+    private static final MagicTable ROOK_TABLE = new MagicTable(ROOK_DIRECTIONS, 0x52A3F0C1D7B94E6DL);
+    private static final MagicTable BISHOP_TABLE = new MagicTable(BISHOP_DIRECTIONS, 0x1C9E5B2D874AF036L);
+
+    //for every pair of tiles on a common rank, file or diagonal: the tiles strictly between them, and the whole line through them
+    private static final long[][] BETWEEN = new long[BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+    private static final long[][] LINE = new long[BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+
+    static {
+        for(int from = 0; from < BoardUtils.NUM_TILES; from++){
+            for(int to = 0; to < BoardUtils.NUM_TILES; to++){
+                if(from != to){
+                    initLine(from, to, ROOK_DIRECTIONS);
+                    initLine(from, to, BISHOP_DIRECTIONS);
+                }
+            }
+        }
+    }
+
+    private AttackTables() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static long knightAttacks(final int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(final int square) {
+        return KING_ATTACKS[square];
+    }
+
+    //the tiles a pawn of the given alliance standing on the square attacks
+    public static long pawnAttacks(final Alliance alliance, final int square) {
+        return alliance.isWhite() ? WHITE_PAWN_ATTACKS[square] : BLACK_PAWN_ATTACKS[square];
+    }
+
+    public static long rookAttacks(final int square, final long occupancy) {
+        return ROOK_TABLE.attacks(square, occupancy);
+    }
+
+    public static long bishopAttacks(final int square, final long occupancy) {
+        return BISHOP_TABLE.attacks(square, occupancy);
+    }
+
+    public static long queenAttacks(final int square, final long occupancy) {
+        return ROOK_TABLE.attacks(square, occupancy) | BISHOP_TABLE.attacks(square, occupancy);
+    }
+
+    //empty if the tiles do not share a line
+    public static long between(final int from, final int to) {
+        return BETWEEN[from][to];
+    }
+
+    //the full rank, file or diagonal through both tiles, empty if they do not share one
+    public static long line(final int from, final int to) {
+        return LINE[from][to];
+    }
+
+    private static void initLine(final int from, final int to, final int[][] directions) {
+        final long toBit = BitBoard.squareBit(to);
+        if((slidingAttacks(from, 0L, directions) & toBit) == 0){
+            return;
+        }
+        final long fromBit = BitBoard.squareBit(from);
+        BETWEEN[from][to] = slidingAttacks(from, toBit, directions) & slidingAttacks(to, fromBit, directions);
+        LINE[from][to] = (slidingAttacks(from, 0L, directions) & slidingAttacks(to, 0L, directions)) | fromBit | toBit;
+    }
+
+    private static boolean isOnBoard(final int row, final int column) {
+        return row >= 0 && row < BoardUtils.NUM_TILES_PER_ROW && column >= 0 && column < BoardUtils.NUM_TILES_PER_ROW;
+    }
+
+    private static long[] initStepAttacks(final int[][] steps) {
+        final long[] attacks = new long[BoardUtils.NUM_TILES];
+        for(int square = 0; square < BoardUtils.NUM_TILES; square++){
+            final int row = square / BoardUtils.NUM_TILES_PER_ROW;
+            final int column = square % BoardUtils.NUM_TILES_PER_ROW;
+            for(final int[] step : steps){
+                if(isOnBoard(row + step[0], column + step[1])){
+                    attacks[square] |= BitBoard.squareBit((row + step[0]) * BoardUtils.NUM_TILES_PER_ROW + column + step[1]);
+                }
+            }
+        }
+        return attacks;
+    }
+
+    //walks every ray until it leaves the board or hits a blocker, the blocker itself is attacked
+    private static long slidingAttacks(final int square, final long occupancy, final int[][] directions) {
+        long attacks = 0L;
+        for(final int[] direction : directions){
+            int row = square / BoardUtils.NUM_TILES_PER_ROW + direction[0];
+            int column = square % BoardUtils.NUM_TILES_PER_ROW + direction[1];
+            while(isOnBoard(row, column)){
+                final long bit = BitBoard.squareBit(row * BoardUtils.NUM_TILES_PER_ROW + column);
+                attacks |= bit;
+                if((occupancy & bit) != 0){
+                    break;
+                }
+                row += direction[0];
+                column += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    //the tiles whose occupancy can change the attack set: the rays without their last tile on the edge
+    private static long relevantOccupancy(final int square, final int[][] directions) {
+        long mask = 0L;
+        for(final int[] direction : directions){
+            int row = square / BoardUtils.NUM_TILES_PER_ROW + direction[0];
+            int column = square % BoardUtils.NUM_TILES_PER_ROW + direction[1];
+            while(isOnBoard(row + direction[0], column + direction[1])){
+                mask |= BitBoard.squareBit(row * BoardUtils.NUM_TILES_PER_ROW + column);
+                row += direction[0];
+                column += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static final class MagicTable {
+
+        private final long[] masks = new long[BoardUtils.NUM_TILES];
+        private final long[] magics = new long[BoardUtils.NUM_TILES];
+        private final int[] shifts = new int[BoardUtils.NUM_TILES];
+        private final long[][] attacks = new long[BoardUtils.NUM_TILES][];
+        private long seed;
+
+        private MagicTable(final int[][] directions, final long seed) {
+            this.seed = seed;
+            for(int square = 0; square < BoardUtils.NUM_TILES; square++){
+                initSquare(square, directions);
+            }
+        }
+
+        private long attacks(final int square, final long occupancy) {
+            return this.attacks[square][(int) (((occupancy & this.masks[square]) * this.magics[square]) >>> this.shifts[square])];
+        }
+
+        private void initSquare(final int square, final int[][] directions) {
+            final long mask = relevantOccupancy(square, directions);
+            final int relevantBits = Long.bitCount(mask);
+            final int size = 1 << relevantBits;
+            final long[] occupancies = new long[size];
+            final long[] references = new long[size];
+            //enumerate every subset of the mask (carry-rippler) together with its true attack set
+            long subset = 0L;
+            for(int i = 0; i < size; i++){
+                occupancies[i] = subset;
+                references[i] = slidingAttacks(square, subset, directions);
+                subset = (subset - mask) & mask;
+            }
+            final long[] table = new long[size];
+            final int[] usedBy = new int[size];
+            final int shift = Long.SIZE - relevantBits;
+            int attempt = 0;
+            while(true){
+                attempt++;
+                final long magic = nextSparseRandom();
+                if(Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6){
+                    continue;
+                }
+                boolean collision = false;
+                for(int i = 0; i < size && !collision; i++){
+                    final int index = (int) ((occupancies[i] * magic) >>> shift);
+                    if(usedBy[index] != attempt){
+                        usedBy[index] = attempt;
+                        table[index] = references[i];
+                    } else if(table[index] != references[i]){
+                        collision = true;
+                    }
+                }
+                if(!collision){
+                    this.masks[square] = mask;
+                    this.magics[square] = magic;
+                    this.shifts[square] = shift;
+                    this.attacks[square] = table;
+                    return;
+                }
+            }
+        }
+
+        //xorshift with a fixed seed so the tables come out the same on every run
+        private long nextRandom() {
+            this.seed ^= this.seed >>> 12;
+            this.seed ^= this.seed << 25;
+            this.seed ^= this.seed >>> 27;
+            return this.seed * 0x2545F4914F6CDD1DL;
+        }
+
+        private long nextSparseRandom() {
+            return nextRandom() & nextRandom() & nextRandom();
+        }
+    }
+}
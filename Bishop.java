@@ -1,69 +1,29 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.IntMoveList;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Tile;
-import com.google.common.collect.ImmutableList;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-
-import static com.chess.engine.board.Move.*;
 
 public class Bishop extends Piece{
-    private final static int[] CANDIDATE_MOVE_VECTOR_COORDINATES={ -9, -7, 7, 9 };
-    public Bishop(final Alliance pieceAlliance,
-                  final int piecePosition) {
 
-        super(PieceType.BISHOP, piecePosition, pieceAlliance);
+    Bishop(final Alliance pieceAlliance,
+           final int piecePosition,
+           final boolean isFirstMove) {
+        super(PieceType.BISHOP, piecePosition, pieceAlliance, isFirstMove);
     }
 
     @Override
-    public Collection<Move> calculateLegalMoves(final Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for(final int candidateCoordinateOffset: CANDIDATE_MOVE_VECTOR_COORDINATES){
-            int candidateDestinationCoordinate=this.piecePosition;
-            while(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-                if(isFirstColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset)||
-                        isEightColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset)){
-                    break;
-                }
-                candidateDestinationCoordinate+=candidateCoordinateOffset;
-                if(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-                    final Tile candidateDestinationTile=board.getTile(candidateDestinationCoordinate);
-                    if(!candidateDestinationTile.isTileOccupied()){
-                        legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
-                    } else{
-                        final Piece pieceAtDestination= candidateDestinationTile.getPiece();
-                        final Alliance pieceAlliance= pieceAtDestination.getPieceAlliance();
-                        if(this.pieceAlliance != pieceAlliance) {
-                            legalMoves.add(new AttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
-                        }
-                        break;
-                    }
-
-                }
-            }
-        }
-        return ImmutableList.copyOf(legalMoves);
+    public void generateMoves(final Board board, final IntMoveList moves) {
+        addMoves(board, AttackTables.bishopAttacks(this.piecePosition, board.getBitBoard().getOccupancy()), moves);
     }
-
     @Override
     public Bishop movePiece(final Move move) {
-        return new Bishop(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate());
+        return (Bishop) PieceUtils.getPiece(PieceType.BISHOP, move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(), false);
     }
-
     @Override
     public String toString(){
         return PieceType.BISHOP.toString();
     }
-    private static boolean isFirstColumnExclusion(final int currentPosition, final int candidateOffset){
-        return BoardUtils.FIRST_COLUMN[currentPosition]&&(candidateOffset==-9 ||candidateOffset==7);
-    }
-    private static boolean isEightColumnExclusion(final int currentPosition, final int candidateOffset){
-        return BoardUtils.EIGHTH_COLUMN[currentPosition]&&(candidateOffset==-7 ||candidateOffset==9);
-    }
 }
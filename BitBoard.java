@@ -0,0 +1,155 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.util.Arrays;
+
+//the position as one long per piece type and alliance, bit n of a board is tile n of the game board
+public final class BitBoard implements PiecePlacement {
+
+    private static final int NUM_PIECE_BOARDS = 12;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    private final long[] pieceBoards;
+    private final long whiteOccupancy;
+    private final long blackOccupancy;
+
+    private BitBoard(final long[] pieceBoards) {
+        this.pieceBoards = pieceBoards;
+        long white = 0L;
+        long black = 0L;
+        for(int i = 0; i < NUM_PIECE_BOARDS; i++){
+            if(i % 2 == 0){
+                white |= pieceBoards[i];
+            } else {
+                black |= pieceBoards[i];
+            }
+        }
+        this.whiteOccupancy = white;
+        this.blackOccupancy = black;
+    }
+
+    static BitBoard create(final Piece[] pieces) {
+        final long[] pieceBoards = new long[NUM_PIECE_BOARDS];
+        for(final Piece piece : pieces){
+            if(piece != null){
+                pieceBoards[boardIndex(piece.getPieceType(), piece.getPieceAlliance())] |= squareBit(piece.getPiecePosition());
+            }
+        }
+        return new BitBoard(pieceBoards);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if(this == other){
+            return true;
+        }
+        if(!(other instanceof BitBoard)){
+            return false;
+        }
+        return Arrays.equals(this.pieceBoards, ((BitBoard) other).pieceBoards);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.pieceBoards);
+    }
+
+    public static long squareBit(final int square) {
+        return 1L << square;
+    }
+
+    //white boards sit on even indices, black boards on odd ones
+    private static int boardIndex(final PieceType pieceType, final Alliance alliance) {
+        return pieceType.ordinal() * 2 + alliance.ordinal();
+    }
+
+    @Override
+    public long getPieces(final PieceType pieceType, final Alliance alliance) {
+        return this.pieceBoards[boardIndex(pieceType, alliance)];
+    }
+
+    @Override
+    public long getOccupancy(final Alliance alliance) {
+        return alliance.isWhite() ? this.whiteOccupancy : this.blackOccupancy;
+    }
+
+    @Override
+    public long getOccupancy() {
+        return this.whiteOccupancy | this.blackOccupancy;
+    }
+
+    public boolean isOccupied(final int square) {
+        return (getOccupancy() & squareBit(square)) != 0;
+    }
+
+    public boolean isOccupiedBy(final int square, final Alliance alliance) {
+        return (getOccupancy(alliance) & squareBit(square)) != 0;
+    }
+
+    //looks outwards from the square with each piece's attack set, hitting a matching piece of the alliance means it attacks the square
+    public boolean isSquareAttacked(final int square, final Alliance byAlliance) {
+        return getAttackers(square, byAlliance, getOccupancy()) != 0;
+    }
+
+    //the pieces of the alliance attacking the square, sliders are blocked by the given occupancy
+    //so callers can ask about a position with pieces taken off or put on without building it
+    @Override
+    public long getAttackers(final int square, final Alliance byAlliance, final long occupancy) {
+        final Alliance defender = byAlliance.isWhite() ? Alliance.BLACK : Alliance.WHITE;
+        final long queens = getPieces(PieceType.QUEEN, byAlliance);
+        return (AttackTables.pawnAttacks(defender, square) & getPieces(PieceType.PAWN, byAlliance)) |
+               (AttackTables.knightAttacks(square) & getPieces(PieceType.KNIGHT, byAlliance)) |
+               (AttackTables.kingAttacks(square) & getPieces(PieceType.KING, byAlliance)) |
+               (AttackTables.bishopAttacks(square, occupancy) & (getPieces(PieceType.BISHOP, byAlliance) | queens)) |
+               (AttackTables.rookAttacks(square, occupancy) & (getPieces(PieceType.ROOK, byAlliance) | queens));
+    }
+
+    //pieces of the alliance that are the only blocker between their king and an enemy slider
+    public long getPinnedPieces(final Alliance alliance) {
+        final Alliance attacker = alliance.isWhite() ? Alliance.BLACK : Alliance.WHITE;
+        final int kingSquare = Long.numberOfTrailingZeros(getPieces(PieceType.KING, alliance));
+        final long queens = getPieces(PieceType.QUEEN, attacker);
+        //sliders that would see the king on an empty board
+        long snipers = (AttackTables.rookAttacks(kingSquare, 0L) & (getPieces(PieceType.ROOK, attacker) | queens)) |
+                       (AttackTables.bishopAttacks(kingSquare, 0L) & (getPieces(PieceType.BISHOP, attacker) | queens));
+        final long occupancy = getOccupancy();
+        long pinned = 0L;
+        while(snipers != 0){
+            final long blockers = AttackTables.between(kingSquare, Long.numberOfTrailingZeros(snipers)) & occupancy;
+            snipers &= snipers - 1;
+            if(Long.bitCount(blockers) == 1){
+                pinned |= blockers & getOccupancy(alliance);
+            }
+        }
+        return pinned;
+    }
+
+    //returns null for an empty tile
+    public Alliance getAlliance(final int square) {
+        final long bit = squareBit(square);
+        if((this.whiteOccupancy & bit) != 0){
+            return Alliance.WHITE;
+        }
+        if((this.blackOccupancy & bit) != 0){
+            return Alliance.BLACK;
+        }
+        return null;
+    }
+
+    //returns null for an empty tile
+    public PieceType getPieceType(final int square) {
+        final long bit = squareBit(square);
+        if((getOccupancy() & bit) == 0){
+            return null;
+        }
+        for(int i = 0; i < NUM_PIECE_BOARDS; i++){
+            if((this.pieceBoards[i] & bit) != 0){
+                return PIECE_TYPES[i / 2];
+            }
+        }
+        throw new RuntimeException("Should not reach here! Occupancy and piece boards disagree!");
+    }
+}
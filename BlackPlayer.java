@@ -15,10 +15,8 @@ import java.util.List;
 import static com.chess.engine.board.Move.*;
 
 public class BlackPlayer extends Player{
-    public BlackPlayer(final Board board,
-                       final Collection<Move> whiteStandardLegalMoves,
-                       final Collection<Move> blackStandardLegalMoves) {
-        super(board, blackStandardLegalMoves, whiteStandardLegalMoves);
+    public BlackPlayer(final Board board) {
+        super(board);
 
     }
 
@@ -38,7 +36,7 @@ public class BlackPlayer extends Player{
     }
 
     @Override
-    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals, final Collection<Move> opponentLegals) {
+    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals) {
         final List<Move> kingCastles=new ArrayList<>();
         //If the player black king is not in check and the king is the first move, then proceed
         if(this.playerKing.isFirstMove() && !this.isInCheck()){
@@ -48,9 +46,9 @@ public class BlackPlayer extends Player{
                 final Tile rookTile= this.board.getTile(7);
                 //if it is rook's first move as well, then proceed
                 if(rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()){
-                    //if there are no opponent legal attacks on these tiles, then proceed
-                    if(Player.calculateAttacksOnTile(5, opponentLegals).isEmpty()&&
-                            Player.calculateAttacksOnTile(6, opponentLegals).isEmpty()&&
+                    //if the opponent does not attack these tiles, then proceed
+                    if(!this.board.getBitBoard().isSquareAttacked(5, Alliance.WHITE)&&
+                            !this.board.getBitBoard().isSquareAttacked(6, Alliance.WHITE)&&
                             rookTile.getPiece().getPieceType().isRook()){
                         //make the castling move
                         kingCastles.add(new KingSideCastleMove(this.board, this.playerKing,
@@ -68,8 +66,8 @@ public class BlackPlayer extends Player{
                     !this.board.getTile(3).isTileOccupied()){
                 final Tile rookTile=this.board.getTile(0);
                 if(rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()){
-                    if(Player.calculateAttacksOnTile(2, opponentLegals).isEmpty()&&
-                            Player.calculateAttacksOnTile(3, opponentLegals).isEmpty()&&
+                    if(!this.board.getBitBoard().isSquareAttacked(2, Alliance.WHITE)&&
+                            !this.board.getBitBoard().isSquareAttacked(3, Alliance.WHITE)&&
                             rookTile.getPiece().getPieceType().isRook()){
                         kingCastles.add(new QueenSideCastleMove(this.board, this.playerKing,
                                 2,
@@ -2,39 +2,84 @@ package com.chess.engine.board;
 
 import com.chess.engine.Alliance;
 import com.chess.engine.pieces.*;
+import com.chess.engine.pieces.Piece.PieceType;
 import com.chess.engine.player.BlackPlayer;
 import com.chess.engine.player.Player;
 import com.chess.engine.player.WhitePlayer;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
 import java.util.*;
 
 public class Board {
 
-    private final List<Tile> gameBoard;
+    //a8 is a light tile
+    private static final long LIGHT_SQUARES=0xAA55AA55AA55AA55L;
+
+    private final Piece[] boardPieces;
+    private final BitBoard bitBoard;
     private final Collection<Piece> whitePieces;
     private final Collection<Piece> blackPieces;
     private final WhitePlayer whitePlayer;
     private final BlackPlayer blackPlayer;
     private final Player currentPlayer;
-    
+    private final Pawn enPassantPawn;
+    private final int castlingRights;
+    private final long zobristHash;
+    //running PieceSquareTables sum, passed on and updated by moves like the hash
+    private final int pieceSquareScore;
+    //moves since the last capture or pawn move, and the move number that goes up after black's move, as in FEN
+    private final int halfMoveClock;
+    private final int fullMoveNumber;
+    //per alliance: move lists of an earlier board to start from, or null
+    private final PieceMoveLists[] inheritedMoveLists;
+
 
     private Board(final Builder builder){
-        this.gameBoard=createGameBoard(builder);
-        this.whitePieces=calculateActivePieces(this.gameBoard, Alliance.WHITE);
-        this.blackPieces=calculateActivePieces(this.gameBoard, Alliance.BLACK);
-        final Collection<Move> whiteStandardLegalMoves=calculateLegalMoves(this.whitePieces);
-        final Collection<Move> blackStandardLegalMoves=calculateLegalMoves(this.blackPieces);
-        this.whitePlayer = new WhitePlayer(this, whiteStandardLegalMoves, blackStandardLegalMoves);
-        this.blackPlayer = new BlackPlayer(this, whiteStandardLegalMoves, blackStandardLegalMoves);
+        //copied so the builder can be changed and built again
+        final Piece[] boardPieces=builder.boardConfig.clone();
+        this.boardPieces=boardPieces;
+        this.bitBoard=BitBoard.create(boardPieces);
+        this.whitePieces=calculateActivePieces(boardPieces, this.bitBoard, Alliance.WHITE);
+        this.blackPieces=calculateActivePieces(boardPieces, this.bitBoard, Alliance.BLACK);
+        this.enPassantPawn=builder.enPassantPawn;
+        this.castlingRights=calculateCastlingRights(boardPieces);
+        //boards created by a move get their hash from the move, everything else is hashed once here
+        this.zobristHash=builder.hasZobristHash ? builder.zobristHash :
+                Zobrist.calculateHash(this.bitBoard, builder.nextMoveMaker, this.castlingRights, getEnPassantSquare());
+        this.pieceSquareScore=builder.hasPieceSquareScore ? builder.pieceSquareScore :
+                PieceSquareTables.calculateScore(this.bitBoard);
+        this.halfMoveClock=builder.halfMoveClock;
+        this.fullMoveNumber=builder.fullMoveNumber;
+        this.inheritedMoveLists=builder.inheritedMoveLists;
+        //players work out their moves and check status only when asked, a board that is only shown or hashed never does
+        this.whitePlayer = new WhitePlayer(this);
+        this.blackPlayer = new BlackPlayer(this);
         this.currentPlayer = builder.nextMoveMaker.choosePlayer(this.whitePlayer, this.blackPlayer);
     }
     @Override
+    public boolean equals(final Object other){
+        if(this == other){
+            return true;
+        }
+        if(!(other instanceof Board)){
+            return false;
+        }
+        final Board otherBoard=(Board) other;
+        return this.zobristHash == otherBoard.zobristHash &&
+               this.castlingRights == otherBoard.castlingRights &&
+               getEnPassantSquare() == otherBoard.getEnPassantSquare() &&
+               this.currentPlayer.getAlliance() == otherBoard.currentPlayer.getAlliance() &&
+               this.bitBoard.equals(otherBoard.bitBoard);
+    }
+    @Override
+    public int hashCode(){
+        return (int) (this.zobristHash ^ (this.zobristHash >>> 32));
+    }
+    @Override
     public String toString(){
         final StringBuilder builder=new StringBuilder();
         for(int i=0;i<BoardUtils.NUM_TILES;i++){
-            final String tileText=this.gameBoard.get(i).toString();
+            final String tileText=getTile(i).toString();
             builder.append(String.format("%3s", tileText));
             if((i+1) % BoardUtils.NUM_TILES_PER_ROW==0){
                 builder.append("\n");
@@ -57,79 +102,157 @@ public class Board {
     public Collection<Piece> getWhitePieces(){
         return this.whitePieces;
     }
-
-
-    private Collection<Move> calculateLegalMoves(final Collection<Piece> pieces) {
-
-        final List<Move> legalMoves=new ArrayList<>();
-        for(final Piece piece: pieces){
-            legalMoves.addAll(piece.calculateLegalMoves(this));
+    public BitBoard getBitBoard(){
+        return this.bitBoard;
+    }
+    public boolean isSquareAttacked(final int tileCoordinate, final Alliance byAlliance){
+        return this.bitBoard.isSquareAttacked(tileCoordinate, byAlliance);
+    }
+    //the pawn that just jumped two tiles, null if the last move was not a pawn jump
+    public Pawn getEnPassantPawn(){
+        return this.enPassantPawn;
+    }
+    //the tile behind the en passant pawn, -1 if there is none
+    public int getEnPassantSquare(){
+        return this.enPassantPawn == null ? -1 :
+               this.enPassantPawn.getPiecePosition() - this.enPassantPawn.getPieceAlliance().getDirection() * BoardUtils.NUM_TILES_PER_ROW;
+    }
+    //castling rights as BoardUtils castle bits
+    public int getCastlingRights(){
+        return this.castlingRights;
+    }
+    public long getZobristHash(){
+        return this.zobristHash;
+    }
+    //material and piece square bonuses of both sides, packed as PieceSquareTables describes
+    public int getPieceSquareScore(){
+        return this.pieceSquareScore;
+    }
+    public int getHalfMoveClock(){
+        return this.halfMoveClock;
+    }
+    public int getFullMoveNumber(){
+        return this.fullMoveNumber;
+    }
+    //the state of the game for the player to move, worked out once per board
+    public GameState getGameState(){
+        return this.currentPlayer.getGameState();
+    }
+    //bare kings, a single knight or bishop, or bishops that all stand on one colour cannot force mate
+    public boolean hasInsufficientMaterial(){
+        return isInsufficientMaterial(pieces(PieceType.PAWN) | pieces(PieceType.ROOK) | pieces(PieceType.QUEEN),
+                                      pieces(PieceType.KNIGHT), pieces(PieceType.BISHOP));
+    }
+    //the same test on both sides' pieces, for the search board too
+    static boolean isInsufficientMaterial(final long pawnsRooksAndQueens, final long knights, final long bishops){
+        if(pawnsRooksAndQueens != 0){
+            return false;
         }
-        return ImmutableList.copyOf(legalMoves);
+        if(knights == 0){
+            return (bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0;
+        }
+        return bishops == 0 && Long.bitCount(knights) == 1;
+    }
+    private long pieces(final PieceType pieceType){
+        return this.bitBoard.getPieces(pieceType, Alliance.WHITE) | this.bitBoard.getPieces(pieceType, Alliance.BLACK);
     }
 
-    private static Collection<Piece> calculateActivePieces(final List<Tile> gameBoard,
-                                                           final Alliance alliance) {
 
-        final List<Piece> activePieces = new ArrayList<>();
-        for(final Tile tile : gameBoard){
-            if(tile.isTileOccupied()){
-                final Piece piece = tile.getPiece();
-                if(piece.getPieceAlliance() == alliance){
-                    activePieces.add(piece);
-                }
-            }
+    //the occupancy gives the count, so the pieces go straight into an array of the right size, in tile order
+    private static Collection<Piece> calculateActivePieces(final Piece[] boardPieces,
+                                                           final BitBoard bitBoard,
+                                                           final Alliance alliance) {
+        long occupied=bitBoard.getOccupancy(alliance);
+        final Piece[] activePieces=new Piece[Long.bitCount(occupied)];
+        for(int i=0; occupied != 0; i++){
+            activePieces[i]=boardPieces[Long.numberOfTrailingZeros(occupied)];
+            occupied&=occupied-1;
         }
-        return ImmutableList.copyOf(activePieces);
+        return Collections.unmodifiableList(Arrays.asList(activePieces));
     }
 
-    public Tile getTile(final int tileCoordinate){
-        return gameBoard.get(tileCoordinate);
+    Piece[] getBoardPieces(){
+        return this.boardPieces;
+    }
+    public PieceMoveLists calculatePieceMoveLists(final Alliance alliance){
+        return PieceMoveLists.generate(this, alliance, this.inheritedMoveLists[alliance.ordinal()]);
     }
-    private static List<Tile> createGameBoard(final Builder builder){
-        final Tile[] tiles = new Tile[BoardUtils.NUM_TILES];
-        for(int i=0;i<BoardUtils.NUM_TILES; i++){
-            tiles[i]=Tile.createTile(i, builder.boardConfig.get(i));
+    //what a board made by a move touching the changed tiles starts from: each side's own lists if it has
+    //worked them out here, otherwise the lists this board inherited
+    PieceMoveLists[] inheritMoveLists(final long changedSquares){
+        final PieceMoveLists[] moveLists=new PieceMoveLists[2];
+        for(final Player player : new Player[]{this.whitePlayer, this.blackPlayer}){
+            final int alliance=player.getAlliance().ordinal();
+            final PieceMoveLists ownMoveLists=player.getPieceMoveLists();
+            final PieceMoveLists source=ownMoveLists != null ? ownMoveLists : this.inheritedMoveLists[alliance];
+            moveLists[alliance]=source == null ? null : source.since(changedSquares);
         }
-        return ImmutableList.copyOf(tiles);
+        return moveLists;
+    }
+    //null for an empty tile
+    public Piece getPiece(final int tileCoordinate){
+        return this.boardPieces[tileCoordinate];
+    }
+
+    //a side may castle while its king and the rook on the home tile have not moved yet
+    private static int calculateCastlingRights(final Piece[] boardPieces){
+        return castlingRight(boardPieces, Alliance.WHITE, 60, 63, BoardUtils.WHITE_KING_SIDE_CASTLE) |
+               castlingRight(boardPieces, Alliance.WHITE, 60, 56, BoardUtils.WHITE_QUEEN_SIDE_CASTLE) |
+               castlingRight(boardPieces, Alliance.BLACK, 4, 7, BoardUtils.BLACK_KING_SIDE_CASTLE) |
+               castlingRight(boardPieces, Alliance.BLACK, 4, 0, BoardUtils.BLACK_QUEEN_SIDE_CASTLE);
+    }
+    private static int castlingRight(final Piece[] boardPieces,
+                                     final Alliance alliance,
+                                     final int kingCoordinate,
+                                     final int rookCoordinate,
+                                     final int castlingRight){
+        final Piece king=boardPieces[kingCoordinate];
+        final Piece rook=boardPieces[rookCoordinate];
+        return king != null && king.getPieceType().isKing() && king.getPieceAlliance() == alliance && king.isFirstMove() &&
+               rook != null && rook.getPieceType().isRook() && rook.getPieceAlliance() == alliance && rook.isFirstMove() ?
+               castlingRight : 0;
+    }
+
+    public Tile getTile(final int tileCoordinate){
+        return Tile.createTile(tileCoordinate, getPiece(tileCoordinate));
     }
 
     public static Board createStandardBoard(){
         final Builder builder = new Builder();
         //Black layout
-        builder.setPiece(new Rook(Alliance.BLACK, 0));
-        builder.setPiece(new Knight(Alliance.BLACK, 1));
-        builder.setPiece(new Bishop(Alliance.BLACK, 2));
-        builder.setPiece(new Queen(Alliance.BLACK, 3));
-        builder.setPiece(new King(Alliance.BLACK, 4));
-        builder.setPiece(new Bishop(Alliance.BLACK, 5));
-        builder.setPiece(new Knight(Alliance.BLACK, 6));
-        builder.setPiece(new Rook(Alliance.BLACK, 7));
-        builder.setPiece(new Pawn(Alliance.BLACK, 8));
-        builder.setPiece(new Pawn(Alliance.BLACK, 9));
-        builder.setPiece(new Pawn(Alliance.BLACK, 10));
-        builder.setPiece(new Pawn(Alliance.BLACK, 11));
-        builder.setPiece(new Pawn(Alliance.BLACK, 12));
-        builder.setPiece(new Pawn(Alliance.BLACK, 13));
-        builder.setPiece(new Pawn(Alliance.BLACK, 14));
-        builder.setPiece(new Pawn(Alliance.BLACK, 15));
+        builder.setPiece(PieceUtils.getPiece(PieceType.ROOK, Alliance.BLACK, 0));
+        builder.setPiece(PieceUtils.getPiece(PieceType.KNIGHT, Alliance.BLACK, 1));
+        builder.setPiece(PieceUtils.getPiece(PieceType.BISHOP, Alliance.BLACK, 2));
+        builder.setPiece(PieceUtils.getPiece(PieceType.QUEEN, Alliance.BLACK, 3));
+        builder.setPiece(PieceUtils.getPiece(PieceType.KING, Alliance.BLACK, 4));
+        builder.setPiece(PieceUtils.getPiece(PieceType.BISHOP, Alliance.BLACK, 5));
+        builder.setPiece(PieceUtils.getPiece(PieceType.KNIGHT, Alliance.BLACK, 6));
+        builder.setPiece(PieceUtils.getPiece(PieceType.ROOK, Alliance.BLACK, 7));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.BLACK, 8));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.BLACK, 9));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.BLACK, 10));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.BLACK, 11));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.BLACK, 12));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.BLACK, 13));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.BLACK, 14));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.BLACK, 15));
         //White layout
-        builder.setPiece(new Rook(Alliance.WHITE, 56));
-        builder.setPiece(new Knight(Alliance.WHITE, 57));
-        builder.setPiece(new Bishop(Alliance.WHITE, 58));
-        builder.setPiece(new Queen(Alliance.WHITE, 59));
-        builder.setPiece(new King(Alliance.WHITE, 60));
-        builder.setPiece(new Bishop(Alliance.WHITE, 61));
-        builder.setPiece(new Knight(Alliance.WHITE, 62));
-        builder.setPiece(new Rook(Alliance.WHITE, 63));
-        builder.setPiece(new Pawn(Alliance.WHITE, 48));
-        builder.setPiece(new Pawn(Alliance.WHITE, 49));
-        builder.setPiece(new Pawn(Alliance.WHITE, 50));
-        builder.setPiece(new Pawn(Alliance.WHITE, 51));
-        builder.setPiece(new Pawn(Alliance.WHITE, 52));
-        builder.setPiece(new Pawn(Alliance.WHITE, 53));
-        builder.setPiece(new Pawn(Alliance.WHITE, 54));
-        builder.setPiece(new Pawn(Alliance.WHITE, 55));
+        builder.setPiece(PieceUtils.getPiece(PieceType.ROOK, Alliance.WHITE, 56));
+        builder.setPiece(PieceUtils.getPiece(PieceType.KNIGHT, Alliance.WHITE, 57));
+        builder.setPiece(PieceUtils.getPiece(PieceType.BISHOP, Alliance.WHITE, 58));
+        builder.setPiece(PieceUtils.getPiece(PieceType.QUEEN, Alliance.WHITE, 59));
+        builder.setPiece(PieceUtils.getPiece(PieceType.KING, Alliance.WHITE, 60));
+        builder.setPiece(PieceUtils.getPiece(PieceType.BISHOP, Alliance.WHITE, 61));
+        builder.setPiece(PieceUtils.getPiece(PieceType.KNIGHT, Alliance.WHITE, 62));
+        builder.setPiece(PieceUtils.getPiece(PieceType.ROOK, Alliance.WHITE, 63));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.WHITE, 48));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.WHITE, 49));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.WHITE, 50));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.WHITE, 51));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.WHITE, 52));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.WHITE, 53));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.WHITE, 54));
+        builder.setPiece(PieceUtils.getPiece(PieceType.PAWN, Alliance.WHITE, 55));
         //white to move
         builder.setMoveMaker(Alliance.WHITE);
         return builder.build();
@@ -138,16 +261,36 @@ public class Board {
         return Iterables.unmodifiableIterable(Iterables.concat(this.whitePlayer.getLegalMoves(), this.blackPlayer.getLegalMoves()));
     }
 
+    //a tile array instead of a map, so setting a piece is a store and building copies one array
+    //a builder can be reset and reused, the boards it builds do not share its array
     public static class Builder{
-        Map<Integer, Piece> boardConfig;
+        final Piece[] boardConfig;
         Alliance nextMoveMaker;
         Pawn enPassantPawn;
+        long zobristHash;
+        boolean hasZobristHash;
+        int pieceSquareScore;
+        boolean hasPieceSquareScore;
+        int halfMoveClock;
+        int fullMoveNumber=1;
+        PieceMoveLists[] inheritedMoveLists=new PieceMoveLists[2];
         public Builder(){
-            this.boardConfig=new HashMap<>();
-
+            this.boardConfig=new Piece[BoardUtils.NUM_TILES];
+        }
+        //starts from the board's position: its pieces, side to move, en passant pawn and move clocks
+        public Builder(final Board board){
+            this.boardConfig=board.boardPieces.clone();
+            this.nextMoveMaker=board.currentPlayer.getAlliance();
+            this.enPassantPawn=board.enPassantPawn;
+            this.halfMoveClock=board.halfMoveClock;
+            this.fullMoveNumber=board.fullMoveNumber;
         }
         public Builder setPiece(final Piece piece){
-            this.boardConfig.put(piece.getPiecePosition(), piece);
+            this.boardConfig[piece.getPiecePosition()]=piece;
+            return this;
+        }
+        public Builder removePiece(final int tileCoordinate){
+            this.boardConfig[tileCoordinate]=null;
             return this;
         }
         public Builder setMoveMaker(final Alliance alliance){
@@ -160,6 +303,41 @@ public class Board {
         public void setEnPassantPawn(Pawn enPassantPawn){
             this.enPassantPawn= enPassantPawn;
         }
+        public Builder setMoveClocks(final int halfMoveClock, final int fullMoveNumber){
+            this.halfMoveClock=halfMoveClock;
+            this.fullMoveNumber=fullMoveNumber;
+            return this;
+        }
+        //set by moves, which hand their board's move lists on to the next one
+        Builder setInheritedMoveLists(final PieceMoveLists[] inheritedMoveLists){
+            this.inheritedMoveLists=inheritedMoveLists;
+            return this;
+        }
+        //set by moves, which update their board's hash instead of rehashing all tiles
+        Builder setZobristHash(final long zobristHash){
+            this.zobristHash=zobristHash;
+            this.hasZobristHash=true;
+            return this;
+        }
+        //set by moves, which only add and take off the scores of the pieces they move
+        Builder setPieceSquareScore(final int pieceSquareScore){
+            this.pieceSquareScore=pieceSquareScore;
+            this.hasPieceSquareScore=true;
+            return this;
+        }
+        public Builder reset(){
+            Arrays.fill(this.boardConfig, null);
+            this.nextMoveMaker=null;
+            this.enPassantPawn=null;
+            this.zobristHash=0L;
+            this.hasZobristHash=false;
+            this.pieceSquareScore=0;
+            this.hasPieceSquareScore=false;
+            this.halfMoveClock=0;
+            this.fullMoveNumber=1;
+            this.inheritedMoveLists=new PieceMoveLists[2];
+            return this;
+        }
     }
 
 }
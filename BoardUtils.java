@@ -19,6 +19,17 @@ public class BoardUtils {
     public static final int NUM_TILES=64;
     public static final int NUM_TILES_PER_ROW=8;
 
+    //tile 0 is a8 and tile 63 is h1
+    private static final String[] ALGEBRAIC_NOTATION=initAlgebraicNotation();
+
+    //castling rights as bits, a position can hold any combination of the four
+    public static final int WHITE_KING_SIDE_CASTLE=1;
+    public static final int WHITE_QUEEN_SIDE_CASTLE=2;
+    public static final int BLACK_KING_SIDE_CASTLE=4;
+    public static final int BLACK_QUEEN_SIDE_CASTLE=8;
+    //the castling rights that survive a move from or to each tile
+    private static final int[] CASTLING_RIGHTS_MASKS=initCastlingRightsMasks();
+
     private BoardUtils() {
         throw new RuntimeException("U cannot instantiate me lol xd!");
     }
@@ -38,7 +49,44 @@ public class BoardUtils {
         }while(rowNumber % NUM_TILES_PER_ROW !=0);
         return row;
     }
+    private static int[] initCastlingRightsMasks(){
+        final int[] masks=new int[NUM_TILES];
+        for(int i=0;i<NUM_TILES;i++){
+            masks[i]=WHITE_KING_SIDE_CASTLE | WHITE_QUEEN_SIDE_CASTLE | BLACK_KING_SIDE_CASTLE | BLACK_QUEEN_SIDE_CASTLE;
+        }
+        //moving the king or a rook, or capturing a rook on its home tile, loses the right for good
+        masks[60]&=~(WHITE_KING_SIDE_CASTLE | WHITE_QUEEN_SIDE_CASTLE);
+        masks[63]&=~WHITE_KING_SIDE_CASTLE;
+        masks[56]&=~WHITE_QUEEN_SIDE_CASTLE;
+        masks[4]&=~(BLACK_KING_SIDE_CASTLE | BLACK_QUEEN_SIDE_CASTLE);
+        masks[7]&=~BLACK_KING_SIDE_CASTLE;
+        masks[0]&=~BLACK_QUEEN_SIDE_CASTLE;
+        return masks;
+    }
+    private static String[] initAlgebraicNotation(){
+        final String[] notation=new String[NUM_TILES];
+        for(int i=0;i<NUM_TILES;i++){
+            notation[i]=""+(char)('a'+i%NUM_TILES_PER_ROW)+(NUM_TILES_PER_ROW-i/NUM_TILES_PER_ROW);
+        }
+        return notation;
+    }
+    public static String getPositionAtCoordinate(final int coordinate){
+        return ALGEBRAIC_NOTATION[coordinate];
+    }
+    public static int getCoordinateAtPosition(final String position){
+        final int column=position.length()==2 ? position.charAt(0)-'a' : -1;
+        final int row=position.length()==2 ? NUM_TILES_PER_ROW-(position.charAt(1)-'0') : -1;
+        if(column<0 || column>=NUM_TILES_PER_ROW || row<0 || row>=NUM_TILES_PER_ROW){
+            throw new RuntimeException("Not a tile: "+position);
+        }
+        return row*NUM_TILES_PER_ROW+column;
+    }
     public static boolean isValidTileCoordinate(final int coordinate) {
         return coordinate >=0 && coordinate <NUM_TILES;
     }
+    public static int updateCastlingRights(final int castlingRights,
+                                           final int currentCoordinate,
+                                           final int destinationCoordinate) {
+        return castlingRights & CASTLING_RIGHTS_MASKS[currentCoordinate] & CASTLING_RIGHTS_MASKS[destinationCoordinate];
+    }
 }
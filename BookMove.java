@@ -0,0 +1,30 @@
+package com.chess.engine.book;
+
+import com.chess.engine.board.Move;
+
+//a move of an opening book entry, the weight says how often it should be picked
+public final class BookMove {
+
+    private final Move move;
+    private final int weight;
+    private final int learn;
+
+    BookMove(final Move move, final int weight, final int learn) {
+        this.move = move;
+        this.weight = weight;
+        this.learn = learn;
+    }
+
+    public Move getMove() {
+        return this.move;
+    }
+
+    public int getWeight() {
+        return this.weight;
+    }
+
+    //the entry's learning data, 0 in most books
+    public int getLearn() {
+        return this.learn;
+    }
+}
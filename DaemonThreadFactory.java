@@ -0,0 +1,23 @@
+package com.chess.engine;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//the threads of the engine's pools, numbered after a name so they can be told apart in a thread dump
+//they are daemons, a pool that is never shut down does not keep the program alive
+public final class DaemonThreadFactory implements ThreadFactory {
+
+    private final String name;
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    public DaemonThreadFactory(final String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, this.name + "-" + this.threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
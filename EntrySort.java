@@ -0,0 +1,74 @@
+package com.chess.engine;
+
+//a quicksort of entries held in two parallel long arrays, a key and a value each, that move together
+//no boxing and no objects per entry, the order of the entries is the caller's
+public final class EntrySort {
+
+    private static final int INSERTION_SORT_SIZE = 16;
+
+    private EntrySort() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public interface EntryOrder {
+        int compare(long firstKey, long firstValue, long secondKey, long secondValue);
+    }
+
+    //the entries from from to to
+    public static void sort(final long[] keys, final long[] values, int from, int to, final EntryOrder order) {
+        while(to - from > INSERTION_SORT_SIZE){
+            final int middle = (from + to) >>> 1;
+            medianToMiddle(keys, values, from, middle, to - 1, order);
+            final long pivotKey = keys[middle];
+            final long pivotValue = values[middle];
+            int i = from;
+            int j = to - 1;
+            while(i <= j){
+                while(order.compare(keys[i], values[i], pivotKey, pivotValue) < 0){
+                    i++;
+                }
+                while(order.compare(keys[j], values[j], pivotKey, pivotValue) > 0){
+                    j--;
+                }
+                if(i <= j){
+                    swap(keys, values, i++, j--);
+                }
+            }
+            //the smaller side first, the loop carries on with the larger one
+            if(j + 1 - from < to - i){
+                sort(keys, values, from, j + 1, order);
+                from = i;
+            } else {
+                sort(keys, values, i, to, order);
+                to = j + 1;
+            }
+        }
+        for(int i = from + 1; i < to; i++){
+            for(int j = i; j > from && order.compare(keys[j - 1], values[j - 1], keys[j], values[j]) > 0; j--){
+                swap(keys, values, j - 1, j);
+            }
+        }
+    }
+
+    private static void medianToMiddle(final long[] keys, final long[] values, final int low, final int middle,
+                                       final int high, final EntryOrder order) {
+        if(order.compare(keys[middle], values[middle], keys[low], values[low]) < 0){
+            swap(keys, values, middle, low);
+        }
+        if(order.compare(keys[high], values[high], keys[low], values[low]) < 0){
+            swap(keys, values, high, low);
+        }
+        if(order.compare(keys[high], values[high], keys[middle], values[middle]) < 0){
+            swap(keys, values, high, middle);
+        }
+    }
+
+    private static void swap(final long[] keys, final long[] values, final int i, final int j) {
+        final long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        final long value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
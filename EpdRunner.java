@@ -0,0 +1,231 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.perft.Perft;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+//runs an EPD suite on every core and reports positions per second
+//the file is read through memory mapped windows and every line becomes a board straight from the mapped bytes
+//without --perft each board is written back with toFen and compared with its line, which times position setup
+//with --perft N each position's perft is checked against the line's DN operation where it has one
+//usage: EpdRunner file.epd [--threads N] [--perft N] [--repeat N]
+public final class EpdRunner {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final int MAX_REPORTED_FAILURES = 10;
+
+    private final int perftDepth;
+    private final AtomicLong positions = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong perftNodes = new AtomicLong();
+
+    private EpdRunner(final int perftDepth) {
+        this.perftDepth = perftDepth;
+    }
+
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        String fileName = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int perftDepth = 0;
+        int repeat = 1;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--threads") && i + 1 < args.length){
+                threads = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("--perft") && i + 1 < args.length){
+                perftDepth = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("--repeat") && i + 1 < args.length){
+                repeat = Integer.parseInt(args[++i]);
+            } else if(fileName == null && !args[i].startsWith("--")){
+                fileName = args[i];
+            } else {
+                throw new RuntimeException("Unknown argument: " + args[i]);
+            }
+        }
+        if(fileName == null){
+            throw new RuntimeException("Usage: EpdRunner file.epd [--threads N] [--perft N] [--repeat N]");
+        }
+        if(threads < 1){
+            throw new IllegalArgumentException("The runner needs at least 1 thread, got " + threads);
+        }
+        for(int round = 0; round < repeat; round++){
+            final EpdRunner runner = new EpdRunner(perftDepth);
+            final long start = System.nanoTime();
+            runner.run(fileName, threads);
+            final long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            System.out.println(String.format("%d positions, %d failed, %d ms, %d positions/s on %d threads%s",
+                    runner.positions.get(), runner.failures.get(), millis, runner.positions.get() * 1000 / millis, threads,
+                    perftDepth > 0 ? String.format(", perft %d: %d nodes, %d nps", perftDepth, runner.perftNodes.get(),
+                                                   runner.perftNodes.get() * 1000 / millis) : ""));
+        }
+    }
+
+    private void run(final String fileName, final int threads) throws IOException, InterruptedException {
+        try(final FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)){
+            new MappedBatchReader(channel, MappedBatchReader.WINDOW_SIZE, BATCH_SIZE).read(threads, "epd-runner",
+                    new MappedBatchReader.UnitFinder() {
+                @Override
+                public int[] findUnits(final MappedByteBuffer window, final int length, final boolean isLastWindow,
+                                       final int[] units) {
+                    return findLines(window, length, isLastWindow, units);
+                }
+            }, new MappedBatchReader.BatchFactory() {
+                @Override
+                public Runnable createBatch(final MappedByteBuffer window, final long windowStart, final int[] bounds) {
+                    return new Runnable() {
+                        @Override
+                        public void run() {
+                            runBatch(window, bounds);
+                        }
+                    };
+                }
+            });
+        }
+    }
+
+    //the lines of a window for the reader, the window ends with the last whole line in it
+    private static int[] findLines(final ByteBuffer window, int length, final boolean isLastWindow, int[] units) {
+        if(!isLastWindow){
+            while(length > 0 && window.get(length - 1) != '\n'){
+                length--;
+            }
+        }
+        int count = 0;
+        int lineStart = 0;
+        while(lineStart < length){
+            if(++count + 1 == units.length){
+                units = Arrays.copyOf(units, units.length * 2);
+            }
+            units[count] = lineStart;
+            while(lineStart < length && window.get(lineStart) != '\n'){
+                lineStart++;
+            }
+            lineStart++;
+        }
+        units[0] = count;
+        //with no whole line the window grows
+        units[count + 1] = count == 0 ? 0 : length;
+        return units;
+    }
+
+    //one builder and one string builder for the whole batch, a line ends where the next one starts
+    private void runBatch(final ByteBuffer window, final int[] bounds) {
+        final Board.Builder builder = new Board.Builder();
+        final StringBuilder fen = new StringBuilder(128);
+        int batchPositions = 0;
+        for(int i = 0; i + 1 < bounds.length; i++){
+            int start = bounds[i];
+            int end = bounds[i + 1];
+            while(start < end && isSpace(window.get(start))){
+                start++;
+            }
+            while(end > start && isSpace(window.get(end - 1))){
+                end--;
+            }
+            if(start == end || window.get(start) == '#'){
+                continue;
+            }
+            batchPositions++;
+            try {
+                final Board board = FenUtilities.createGameFromFEN(window, start, end, builder);
+                if(this.perftDepth > 0){
+                    checkPerft(board, window, start, end);
+                } else {
+                    fen.setLength(0);
+                    FenUtilities.appendFen(board, fen);
+                    if(!matchesLine(fen, window, start, end)){
+                        fail("toFen gives " + fen + " for " + line(window, start, end));
+                    }
+                }
+            } catch(final RuntimeException e) {
+                fail(e.getMessage());
+            }
+        }
+        this.positions.addAndGet(batchPositions);
+    }
+
+    private void checkPerft(final Board board, final ByteBuffer window, final int start, final int end) {
+        final long nodes = Perft.perft(new SearchBoard(board), this.perftDepth);
+        this.perftNodes.addAndGet(nodes);
+        //operations look like ;D1 20 ;D2 400
+        final String line = line(window, start, end);
+        final String operation = ";D" + this.perftDepth + " ";
+        final int index = line.indexOf(operation);
+        if(index < 0){
+            return;
+        }
+        int numberEnd = index + operation.length();
+        while(numberEnd < line.length() && Character.isDigit(line.charAt(numberEnd))){
+            numberEnd++;
+        }
+        final long expected = Long.parseLong(line.substring(index + operation.length(), numberEnd));
+        if(nodes != expected){
+            fail("perft " + this.perftDepth + " is " + nodes + ", expected " + expected + " for " + line);
+        }
+    }
+
+    //the line's position fields, and its clocks if it has them, are what toFen wrote
+    private static boolean matchesLine(final StringBuilder fen, final ByteBuffer window, final int start, final int end) {
+        int fenIndex = 0;
+        int lineIndex = start;
+        int fields = 0;
+        while(fenIndex < fen.length()){
+            final char c = fen.charAt(fenIndex);
+            if(c == ' '){
+                fields++;
+                //an EPD line stops after the en passant tile
+                if(fields == 4){
+                    final int next = skipSpaces(window, lineIndex, end);
+                    if(next == end || !isDigit(window.get(next))){
+                        return true;
+                    }
+                }
+                if(lineIndex == end || !isSpace(window.get(lineIndex))){
+                    return false;
+                }
+                lineIndex = skipSpaces(window, lineIndex, end);
+            } else if(lineIndex == end || window.get(lineIndex++) != c){
+                return false;
+            }
+            fenIndex++;
+        }
+        return lineIndex == end || !isDigit(window.get(lineIndex));
+    }
+
+    private void fail(final String message) {
+        if(this.failures.incrementAndGet() <= MAX_REPORTED_FAILURES){
+            System.out.println(message);
+        }
+    }
+
+    private static String line(final ByteBuffer window, final int start, final int end) {
+        final StringBuilder line = new StringBuilder(end - start);
+        for(int i = start; i < end; i++){
+            line.append((char) (window.get(i) & 0xFF));
+        }
+        return line.toString();
+    }
+
+    private static int skipSpaces(final ByteBuffer window, int index, final int end) {
+        while(index < end && isSpace(window.get(index))){
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isSpace(final byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean isDigit(final byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,121 @@
+package com.chess.engine.ai;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
+import com.chess.engine.board.BitBoard;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.PiecePlacement;
+import com.chess.engine.board.PieceSquareTables;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import static com.chess.engine.board.PieceSquareTables.pack;
+
+//static evaluation in centipawns from the view of the side to move, tapered between middlegame and endgame
+//material and piece square bonuses come from the running sum the board keeps, so only mobility and
+//king safety are worked out here, from the attack tables
+public final class Evaluator {
+
+    //per move a piece has above or below an average number of moves
+    private static final int KNIGHT_MOBILITY = pack(4, 4);
+    private static final int BISHOP_MOBILITY = pack(5, 5);
+    private static final int ROOK_MOBILITY = pack(2, 4);
+    private static final int QUEEN_MOBILITY = pack(1, 2);
+    private static final int SHIELD_PAWN = pack(10, 0);
+    //attack units: how much each piece that reaches the tiles around the enemy king adds to the danger
+    private static final int KNIGHT_ATTACK_UNITS = 2;
+    private static final int BISHOP_ATTACK_UNITS = 2;
+    private static final int ROOK_ATTACK_UNITS = 3;
+    private static final int QUEEN_ATTACK_UNITS = 5;
+    //grows faster than the units, several attackers are far worse than one
+    private static final int[] KING_DANGER = {
+            0, 0, 1, 2, 4, 8, 13, 20, 28, 37, 48, 60, 75, 90, 110, 130, 155, 180, 210, 240, 275, 310, 350, 400
+    };
+
+    //the tiles in front of a king, where its pawn shield stands
+    private static final long[][] SHIELD_TILES = new long[2][BoardUtils.NUM_TILES];
+
+    static {
+        for(int square = 0; square < BoardUtils.NUM_TILES; square++){
+            final int row = square / BoardUtils.NUM_TILES_PER_ROW;
+            long whiteFront = 0L;
+            long blackFront = 0L;
+            long around = AttackTables.kingAttacks(square);
+            while(around != 0){
+                final int tile = Long.numberOfTrailingZeros(around);
+                around &= around - 1;
+                if(tile / BoardUtils.NUM_TILES_PER_ROW < row){
+                    whiteFront |= BitBoard.squareBit(tile);
+                } else if(tile / BoardUtils.NUM_TILES_PER_ROW > row){
+                    blackFront |= BitBoard.squareBit(tile);
+                }
+            }
+            SHIELD_TILES[Alliance.WHITE.ordinal()][square] = whiteFront;
+            SHIELD_TILES[Alliance.BLACK.ordinal()][square] = blackFront;
+        }
+    }
+
+    private Evaluator() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static int evaluate(final SearchBoard board) {
+        return evaluate(board, board.getPieceSquareScore(), board.getSideToMove());
+    }
+
+    public static int evaluate(final Board board) {
+        return evaluate(board.getBitBoard(), board.getPieceSquareScore(), board.currentPlayer().getAlliance());
+    }
+
+    private static int evaluate(final PiecePlacement placement, final int pieceSquareScore, final Alliance sideToMove) {
+        final int score = pieceSquareScore +
+                          activity(placement, Alliance.WHITE, Alliance.BLACK) -
+                          activity(placement, Alliance.BLACK, Alliance.WHITE);
+        final int tapered = PieceSquareTables.taper(score, PieceSquareTables.phase(placement));
+        return sideToMove.isWhite() ? tapered : -tapered;
+    }
+
+    //mobility of our pieces, our king's pawn shield and the danger our pieces pose to the enemy king, packed
+    private static int activity(final PiecePlacement placement, final Alliance us, final Alliance them) {
+        final long occupancy = placement.getOccupancy();
+        final long own = placement.getOccupancy(us);
+        final int enemyKing = Long.numberOfTrailingZeros(placement.getPieces(PieceType.KING, them));
+        final long enemyKingZone = AttackTables.kingAttacks(enemyKing) | BitBoard.squareBit(enemyKing);
+        int score = 0;
+        int attackUnits = 0;
+        long knights = placement.getPieces(PieceType.KNIGHT, us);
+        while(knights != 0){
+            final long attacks = AttackTables.knightAttacks(Long.numberOfTrailingZeros(knights));
+            knights &= knights - 1;
+            score += KNIGHT_MOBILITY * (Long.bitCount(attacks & ~own) - 4);
+            attackUnits += (attacks & enemyKingZone) != 0 ? KNIGHT_ATTACK_UNITS : 0;
+        }
+        long bishops = placement.getPieces(PieceType.BISHOP, us);
+        while(bishops != 0){
+            final long attacks = AttackTables.bishopAttacks(Long.numberOfTrailingZeros(bishops), occupancy);
+            bishops &= bishops - 1;
+            score += BISHOP_MOBILITY * (Long.bitCount(attacks & ~own) - 6);
+            attackUnits += (attacks & enemyKingZone) != 0 ? BISHOP_ATTACK_UNITS : 0;
+        }
+        long rooks = placement.getPieces(PieceType.ROOK, us);
+        while(rooks != 0){
+            final long attacks = AttackTables.rookAttacks(Long.numberOfTrailingZeros(rooks), occupancy);
+            rooks &= rooks - 1;
+            score += ROOK_MOBILITY * (Long.bitCount(attacks & ~own) - 7);
+            attackUnits += (attacks & enemyKingZone) != 0 ? ROOK_ATTACK_UNITS : 0;
+        }
+        long queens = placement.getPieces(PieceType.QUEEN, us);
+        while(queens != 0){
+            final long attacks = AttackTables.queenAttacks(Long.numberOfTrailingZeros(queens), occupancy);
+            queens &= queens - 1;
+            score += QUEEN_MOBILITY * (Long.bitCount(attacks & ~own) - 14);
+            attackUnits += (attacks & enemyKingZone) != 0 ? QUEEN_ATTACK_UNITS : 0;
+        }
+        final int ownKing = Long.numberOfTrailingZeros(placement.getPieces(PieceType.KING, us));
+        score += SHIELD_PAWN * Long.bitCount(SHIELD_TILES[us.ordinal()][ownKing] & placement.getPieces(PieceType.PAWN, us));
+        //a middlegame term only, the taper fades it out as the pieces come off
+        score += pack(KING_DANGER[Math.min(attackUnits, KING_DANGER.length - 1)], 0);
+        return score;
+    }
+}
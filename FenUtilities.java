@@ -0,0 +1,321 @@
+package com.chess.pgn;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.pieces.Pawn;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+import com.chess.engine.pieces.PieceUtils;
+
+import java.nio.ByteBuffer;
+
+//reads and writes positions in Forsyth-Edwards notation
+//the parser walks the text once and fills a Board.Builder as it goes: no splitting, no substrings,
+//and the pieces come from PieceUtils' cache, so a builder that is reused leaves building the Board the only allocation
+//the move clocks may be left out, which also lets it read the position part of an EPD line
+public class FenUtilities {
+
+    private static final char[] PIECE_CHARS = {'P', 'N', 'B', 'R', 'Q', 'K'};
+
+    private FenUtilities() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static Board createGameFromFEN(final CharSequence fen) {
+        return createGameFromFEN(fen, new Board.Builder());
+    }
+
+    //the FEN as ascii bytes from start to end, like a line of a memory mapped file
+    public static Board createGameFromFEN(final ByteBuffer buffer, final int start, final int end) {
+        return createGameFromFEN(buffer, start, end, new Board.Builder());
+    }
+
+    public static Board createGameFromFEN(final ByteBuffer buffer, final int start, final int end, final Board.Builder builder) {
+        return createGameFromFEN(new AsciiSequence(buffer, start, end), builder);
+    }
+
+    //the builder is reset first, batch jobs can keep one per thread
+    public static Board createGameFromFEN(final CharSequence fen, final Board.Builder builder) {
+        builder.reset();
+        final int length = fen.length();
+        final int placementStart = skipSpaces(fen, 0);
+        final int placementEnd = skipField(fen, placementStart);
+        final int sideStart = skipSpaces(fen, placementEnd);
+        final int sideEnd = skipField(fen, sideStart);
+        final int castlingStart = skipSpaces(fen, sideEnd);
+        final int castlingEnd = skipField(fen, castlingStart);
+        final int enPassantStart = skipSpaces(fen, castlingEnd);
+        final int enPassantEnd = skipField(fen, enPassantStart);
+        if(enPassantStart == length || sideEnd - sideStart != 1){
+            throw invalidFen(fen);
+        }
+        final Alliance moveMaker;
+        if(fen.charAt(sideStart) == 'w'){
+            moveMaker = Alliance.WHITE;
+        } else if(fen.charAt(sideStart) == 'b'){
+            moveMaker = Alliance.BLACK;
+        } else {
+            throw invalidFen(fen);
+        }
+        final int castlingRights = parseCastlingRights(fen, castlingStart, castlingEnd);
+        //the pawn that jumped stands one tile past the en passant tile, seen from the side to move
+        final int enPassantPawnCoordinate = fen.charAt(enPassantStart) == '-' ? -1 :
+                parseCoordinate(fen, enPassantStart, enPassantEnd) - moveMaker.getDirection() * BoardUtils.NUM_TILES_PER_ROW;
+        Pawn enPassantPawn = null;
+        int tileCoordinate = 0;
+        int column = 0;
+        for(int i = placementStart; i < placementEnd; i++){
+            final char c = fen.charAt(i);
+            if(c == '/'){
+                if(column != BoardUtils.NUM_TILES_PER_ROW){
+                    throw invalidFen(fen);
+                }
+                column = 0;
+            } else if(c >= '1' && c <= '8'){
+                tileCoordinate += c - '0';
+                column += c - '0';
+            } else {
+                if(column >= BoardUtils.NUM_TILES_PER_ROW || tileCoordinate >= BoardUtils.NUM_TILES){
+                    throw invalidFen(fen);
+                }
+                final Piece piece = createPiece(c, tileCoordinate, castlingRights);
+                if(piece == null){
+                    throw invalidFen(fen);
+                }
+                builder.setPiece(piece);
+                if(tileCoordinate == enPassantPawnCoordinate && piece.getPieceType() == PieceType.PAWN &&
+                   piece.getPieceAlliance() != moveMaker){
+                    enPassantPawn = (Pawn) piece;
+                }
+                tileCoordinate++;
+                column++;
+            }
+            if(column > BoardUtils.NUM_TILES_PER_ROW){
+                throw invalidFen(fen);
+            }
+        }
+        if(tileCoordinate != BoardUtils.NUM_TILES){
+            throw invalidFen(fen);
+        }
+        if(enPassantPawnCoordinate >= 0 && enPassantPawn == null){
+            throw invalidFen(fen);
+        }
+        builder.setMoveMaker(moveMaker);
+        builder.setEnPassantPawn(enPassantPawn);
+        //the clocks are optional, in EPD the operations follow the en passant tile
+        final int halfMoveStart = skipSpaces(fen, enPassantEnd);
+        final int halfMoveEnd = skipField(fen, halfMoveStart);
+        final int fullMoveStart = skipSpaces(fen, halfMoveEnd);
+        final int fullMoveEnd = skipField(fen, fullMoveStart);
+        if(isNumber(fen, halfMoveStart, halfMoveEnd) && isNumber(fen, fullMoveStart, fullMoveEnd)){
+            builder.setMoveClocks(parseNumber(fen, halfMoveStart, halfMoveEnd),
+                                  Math.max(1, parseNumber(fen, fullMoveStart, fullMoveEnd)));
+        }
+        return builder.build();
+    }
+
+    public static String toFen(final Board board) {
+        return appendFen(board, new StringBuilder(90)).toString();
+    }
+
+    public static StringBuilder appendFen(final Board board, final StringBuilder fen) {
+        for(int row = 0; row < BoardUtils.NUM_TILES_PER_ROW; row++){
+            if(row > 0){
+                fen.append('/');
+            }
+            int emptyTiles = 0;
+            for(int column = 0; column < BoardUtils.NUM_TILES_PER_ROW; column++){
+                final Piece piece = board.getPiece(row * BoardUtils.NUM_TILES_PER_ROW + column);
+                if(piece == null){
+                    emptyTiles++;
+                    continue;
+                }
+                if(emptyTiles > 0){
+                    fen.append((char) ('0' + emptyTiles));
+                    emptyTiles = 0;
+                }
+                final char pieceChar = PIECE_CHARS[piece.getPieceType().ordinal()];
+                fen.append(piece.getPieceAlliance().isWhite() ? pieceChar : Character.toLowerCase(pieceChar));
+            }
+            if(emptyTiles > 0){
+                fen.append((char) ('0' + emptyTiles));
+            }
+        }
+        fen.append(board.currentPlayer().getAlliance().isWhite() ? " w " : " b ");
+        final int castlingRights = board.getCastlingRights();
+        if(castlingRights == 0){
+            fen.append('-');
+        } else {
+            if((castlingRights & BoardUtils.WHITE_KING_SIDE_CASTLE) != 0){
+                fen.append('K');
+            }
+            if((castlingRights & BoardUtils.WHITE_QUEEN_SIDE_CASTLE) != 0){
+                fen.append('Q');
+            }
+            if((castlingRights & BoardUtils.BLACK_KING_SIDE_CASTLE) != 0){
+                fen.append('k');
+            }
+            if((castlingRights & BoardUtils.BLACK_QUEEN_SIDE_CASTLE) != 0){
+                fen.append('q');
+            }
+        }
+        fen.append(' ');
+        final int enPassantSquare = board.getEnPassantSquare();
+        fen.append(enPassantSquare < 0 ? "-" : BoardUtils.getPositionAtCoordinate(enPassantSquare));
+        return fen.append(' ').append(board.getHalfMoveClock()).append(' ').append(board.getFullMoveNumber());
+    }
+
+    private static int parseCastlingRights(final CharSequence fen, final int start, final int end) {
+        int castlingRights = 0;
+        for(int i = start; i < end; i++){
+            switch(fen.charAt(i)){
+                case 'K':
+                    castlingRights |= BoardUtils.WHITE_KING_SIDE_CASTLE;
+                    break;
+                case 'Q':
+                    castlingRights |= BoardUtils.WHITE_QUEEN_SIDE_CASTLE;
+                    break;
+                case 'k':
+                    castlingRights |= BoardUtils.BLACK_KING_SIDE_CASTLE;
+                    break;
+                case 'q':
+                    castlingRights |= BoardUtils.BLACK_QUEEN_SIDE_CASTLE;
+                    break;
+                case '-':
+                    break;
+                default:
+                    throw invalidFen(fen);
+            }
+        }
+        return castlingRights;
+    }
+
+    //kings and rooks keep their first move flag while they still hold a castling right, pawns while on their starting rank
+    //null for a character that is no piece
+    private static Piece createPiece(final char pieceChar, final int tileCoordinate, final int castlingRights) {
+        final Alliance alliance = pieceChar < 'a' ? Alliance.WHITE : Alliance.BLACK;
+        switch(pieceChar < 'a' ? pieceChar : (char) (pieceChar - 'a' + 'A')){
+            case 'P':
+                return PieceUtils.getPiece(PieceType.PAWN, alliance, tileCoordinate,
+                        alliance.isWhite() ? BoardUtils.SECOND_RANK[tileCoordinate] : BoardUtils.SEVENTH_RANK[tileCoordinate]);
+            case 'N':
+                return PieceUtils.getPiece(PieceType.KNIGHT, alliance, tileCoordinate, false);
+            case 'B':
+                return PieceUtils.getPiece(PieceType.BISHOP, alliance, tileCoordinate, false);
+            case 'R':
+                return PieceUtils.getPiece(PieceType.ROOK, alliance, tileCoordinate,
+                        hasRookCastlingRight(alliance, tileCoordinate, castlingRights));
+            case 'Q':
+                return PieceUtils.getPiece(PieceType.QUEEN, alliance, tileCoordinate, false);
+            case 'K':
+                return PieceUtils.getPiece(PieceType.KING, alliance, tileCoordinate, alliance.isWhite() ?
+                        (castlingRights & (BoardUtils.WHITE_KING_SIDE_CASTLE | BoardUtils.WHITE_QUEEN_SIDE_CASTLE)) != 0 :
+                        (castlingRights & (BoardUtils.BLACK_KING_SIDE_CASTLE | BoardUtils.BLACK_QUEEN_SIDE_CASTLE)) != 0);
+            default:
+                return null;
+        }
+    }
+
+    private static boolean hasRookCastlingRight(final Alliance alliance, final int tileCoordinate, final int castlingRights) {
+        if(alliance.isWhite()){
+            return (tileCoordinate == 63 && (castlingRights & BoardUtils.WHITE_KING_SIDE_CASTLE) != 0) ||
+                   (tileCoordinate == 56 && (castlingRights & BoardUtils.WHITE_QUEEN_SIDE_CASTLE) != 0);
+        }
+        return (tileCoordinate == 7 && (castlingRights & BoardUtils.BLACK_KING_SIDE_CASTLE) != 0) ||
+               (tileCoordinate == 0 && (castlingRights & BoardUtils.BLACK_QUEEN_SIDE_CASTLE) != 0);
+    }
+
+    private static int parseCoordinate(final CharSequence fen, final int start, final int end) {
+        if(end - start != 2){
+            throw invalidFen(fen);
+        }
+        final char file = fen.charAt(start);
+        final char rank = fen.charAt(start + 1);
+        if(file < 'a' || file > 'h' || rank < '1' || rank > '8'){
+            throw invalidFen(fen);
+        }
+        return (BoardUtils.NUM_TILES_PER_ROW - (rank - '0')) * BoardUtils.NUM_TILES_PER_ROW + (file - 'a');
+    }
+
+    private static boolean isNumber(final CharSequence fen, final int start, final int end) {
+        if(start == end || end - start > 9){
+            return false;
+        }
+        for(int i = start; i < end; i++){
+            if(fen.charAt(i) < '0' || fen.charAt(i) > '9'){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int parseNumber(final CharSequence fen, final int start, final int end) {
+        int number = 0;
+        for(int i = start; i < end; i++){
+            number = number * 10 + (fen.charAt(i) - '0');
+        }
+        return number;
+    }
+
+    private static int skipSpaces(final CharSequence fen, int index) {
+        while(index < fen.length() && isSpace(fen.charAt(index))){
+            index++;
+        }
+        return index;
+    }
+
+    //a field ends at a space, or at the semicolon of an EPD operation
+    private static int skipField(final CharSequence fen, int index) {
+        while(index < fen.length() && !isSpace(fen.charAt(index)) && fen.charAt(index) != ';'){
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isSpace(final char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    private static RuntimeException invalidFen(final CharSequence fen) {
+        return new RuntimeException("Invalid FEN string: " + fen);
+    }
+
+    //bytes read as characters without decoding them, FEN is plain ascii
+    private static final class AsciiSequence implements CharSequence {
+
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int end;
+
+        AsciiSequence(final ByteBuffer buffer, final int start, final int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return this.end - this.start;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return (char) (this.buffer.get(this.start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return new AsciiSequence(this.buffer, this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder text = new StringBuilder(length());
+            for(int i = 0; i < length(); i++){
+                text.append(charAt(i));
+            }
+            return text.toString();
+        }
+    }
+}
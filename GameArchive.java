@@ -0,0 +1,191 @@
+package com.chess.archive;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveEncoding;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+//an archive written by GameArchiveWriter, open for queries from any number of threads
+//the index and the statistics are memory mapped and found by a binary search on the position's hash,
+//so a query touches a few dozen pages however many games there are. the games are read one at a time
+public final class GameArchive implements Closeable {
+
+    //a record's length takes at most 5 bytes
+    private static final int LENGTH_SIZE = 5;
+
+    private final Path base;
+    private final FileChannel games;
+    private final long gamesSize;
+    private final long gameCount;
+    private final MappedRecords index;
+    private final MappedRecords statistics;
+
+    private GameArchive(final Path base,
+                        final FileChannel games,
+                        final MappedRecords index,
+                        final MappedRecords statistics) throws IOException {
+        this.base = base;
+        this.games = games;
+        this.gamesSize = games.size();
+        this.gameCount = ArchiveFormat.readHeader(games, ArchiveFormat.GAMES_MAGIC, ArchiveFormat.gamesPath(base));
+        this.index = index;
+        this.statistics = statistics;
+    }
+
+    //base is the archive's path without the extensions of its three files
+    public static GameArchive open(final Path base) throws IOException {
+        final FileChannel games = FileChannel.open(ArchiveFormat.gamesPath(base), StandardOpenOption.READ);
+        MappedRecords index = null;
+        MappedRecords statistics = null;
+        try {
+            index = new MappedRecords(ArchiveFormat.indexPath(base), ArchiveFormat.INDEX_MAGIC, ArchiveFormat.INDEX_ENTRY_SIZE);
+            statistics = new MappedRecords(ArchiveFormat.statisticsPath(base), ArchiveFormat.STATISTICS_MAGIC,
+                                           ArchiveFormat.STATISTICS_RECORD_SIZE);
+            return new GameArchive(base, games, index, statistics);
+        } catch(final IOException | RuntimeException e) {
+            games.close();
+            if(index != null){
+                index.close();
+            }
+            if(statistics != null){
+                statistics.close();
+            }
+            throw e;
+        }
+    }
+
+    public Path getBase() {
+        return this.base;
+    }
+
+    public long getGameCount() {
+        return this.gameCount;
+    }
+
+    public long getIndexEntryCount() {
+        return this.index.getRecordCount();
+    }
+
+    //the games follow each other from here to the end of the file, see ArchivedGame.getNextOffset()
+    public long getFirstGameOffset() {
+        return ArchiveFormat.HEADER_SIZE;
+    }
+
+    public long getGamesSize() {
+        return this.gamesSize;
+    }
+
+    //the moves played from the board in the indexed plies of the archive's games, the most played first
+    //a move that is not legal on the board belongs to another position with the same hash and is left out
+    public List<MoveStatistics> getMoveStatistics(final Board board) {
+        final long hash = board.getZobristHash();
+        final List<MoveStatistics> moveStatistics = new ArrayList<>();
+        for(long record = this.statistics.find(hash);
+            record < this.statistics.getRecordCount() && this.statistics.getLong(record, 0) == hash;
+            record++){
+            final Move move = findMove(board, this.statistics.getInt(record, 8));
+            if(move != null){
+                moveStatistics.add(new MoveStatistics(move,
+                                                      this.statistics.getInt(record, 12),
+                                                      this.statistics.getInt(record, 16),
+                                                      this.statistics.getInt(record, 20),
+                                                      this.statistics.getInt(record, 24)));
+            }
+        }
+        Collections.sort(moveStatistics, new Comparator<MoveStatistics>() {
+            @Override
+            public int compare(final MoveStatistics first, final MoveStatistics second) {
+                return Integer.compare(second.getGameCount(), first.getGameCount());
+            }
+        });
+        return moveStatistics;
+    }
+
+    //the offsets of up to limit games that reached the board in their indexed plies, in the order of the file
+    public long[] findGames(final Board board, final int limit) {
+        final long hash = board.getZobristHash();
+        long[] offsets = new long[16];
+        int count = 0;
+        for(long entry = this.index.find(hash);
+            entry < this.index.getRecordCount() && this.index.getLong(entry, 0) == hash && count < limit;
+            entry++){
+            final long value = this.index.getLong(entry, 8);
+            if(findMove(board, ArchiveFormat.moveKey(value)) == null){
+                continue;
+            }
+            if(count == offsets.length){
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = ArchiveFormat.offset(value);
+        }
+        //a game can pass a position twice with different moves
+        Arrays.sort(offsets, 0, count);
+        int unique = 0;
+        for(int i = 0; i < count; i++){
+            if(unique == 0 || offsets[unique - 1] != offsets[i]){
+                offsets[unique++] = offsets[i];
+            }
+        }
+        return Arrays.copyOf(offsets, unique);
+    }
+
+    public ArchivedGame getGame(final long offset) throws IOException {
+        if(offset < ArchiveFormat.HEADER_SIZE || offset >= this.gamesSize){
+            throw new IndexOutOfBoundsException("No game at " + offset + " in " + this.base);
+        }
+        final ByteBuffer length = ByteBuffer.allocate((int) Math.min(LENGTH_SIZE, this.gamesSize - offset));
+        read(length, offset);
+        final int recordLength = ArchiveFormat.readVarint(length);
+        final long recordStart = offset + length.position();
+        if(recordStart + recordLength > this.gamesSize){
+            throw new IOException("Game at " + offset + " runs past the end of " + ArchiveFormat.gamesPath(this.base));
+        }
+        final ByteBuffer record = ByteBuffer.allocate(recordLength);
+        read(record, recordStart);
+        return new ArchivedGame(offset, recordStart + recordLength, record.array());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.games.close();
+        } finally {
+            try {
+                this.index.close();
+            } finally {
+                this.statistics.close();
+            }
+        }
+    }
+
+    //fills the buffer from the position and flips it
+    private void read(final ByteBuffer buffer, final long position) throws IOException {
+        while(buffer.hasRemaining()){
+            if(this.games.read(buffer, position + buffer.position()) < 0){
+                throw new IOException("Unexpected end of " + ArchiveFormat.gamesPath(this.base));
+            }
+        }
+        buffer.flip();
+    }
+
+    //null if the board has no such move
+    private static Move findMove(final Board board, final int moveKey) {
+        final int currentCoordinate = MoveEncoding.getCurrentCoordinate(moveKey);
+        final int destinationCoordinate = MoveEncoding.getDestinationCoordinate(moveKey);
+        final Move move = MoveEncoding.isPromotion(moveKey) ?
+                board.currentPlayer().findMove(currentCoordinate, destinationCoordinate, MoveEncoding.getPromotionType(moveKey)) :
+                board.currentPlayer().findMove(currentCoordinate, destinationCoordinate);
+        return move != null && MoveEncoding.getKey(move.getEncodedMove()) == moveKey ? move : null;
+    }
+}
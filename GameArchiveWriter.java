@@ -0,0 +1,370 @@
+package com.chess.archive;
+
+import com.chess.engine.EntrySort;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveEncoding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+//writes a game archive, games can be added from several threads at once
+//the games go straight to base.cga. the index entries of their first plies are collected in runs of a few million,
+//each run is sorted and spilled next to the archive, and close() merges the runs into base.cgi. the merge sees every
+//entry of a position together, so it counts the results of each of its moves into base.cgs on the way
+//the runs are deleted once they are merged
+public final class GameArchiveWriter implements Closeable {
+
+    //plies from the start of each game that go into the index
+    public static final int DEFAULT_INDEX_PLIES = 40;
+
+    //entries in a run, 64 megabytes of them
+    private static final int RUN_SIZE = 1 << 22;
+    private static final int BUFFER_SIZE = 1 << 20;
+    //a merge reads from every run at once
+    private static final int RUN_BUFFER_SIZE = 1 << 18;
+    //by hash, then by value, which puts a position's moves together
+    private static final EntrySort.EntryOrder ENTRY_ORDER = new EntrySort.EntryOrder() {
+        @Override
+        public int compare(final long firstHash, final long firstValue, final long secondHash, final long secondValue) {
+            return compareEntries(firstHash, firstValue, secondHash, secondValue);
+        }
+    };
+
+    private final Path base;
+    private final int indexPlies;
+    private final FileChannel games;
+    //guarded by this
+    private final ByteBuffer gamesBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long gamesEnd = ArchiveFormat.HEADER_SIZE;
+    private long gameCount;
+    private long entryCount;
+    private final long[] runHashes = new long[RUN_SIZE];
+    private final long[] runValues = new long[RUN_SIZE];
+    private int runEntries;
+    private final List<Path> runs = new ArrayList<>();
+    private boolean isClosed;
+
+    public GameArchiveWriter(final Path base) throws IOException {
+        this(base, DEFAULT_INDEX_PLIES);
+    }
+
+    public GameArchiveWriter(final Path base, final int indexPlies) throws IOException {
+        if(indexPlies < 0){
+            throw new IllegalArgumentException("The index cannot hold " + indexPlies + " plies of a game");
+        }
+        this.base = base;
+        this.indexPlies = indexPlies;
+        this.games = FileChannel.open(ArchiveFormat.gamesPath(base), StandardOpenOption.CREATE,
+                                      StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ArchiveFormat.writeHeader(this.games, ArchiveFormat.GAMES_MAGIC, 0);
+    }
+
+    //boards holds the start board and the board after every move, as PgnGame.replay() fills them
+    //a FEN tag is kept with the other tags and tells the reader where the game starts, returns the game's offset
+    public long addGame(final Map<String, String> tags, final List<Board> boards, final List<Move> moves) throws IOException {
+        if(boards.size() != moves.size() + 1){
+            throw new IllegalArgumentException(moves.size() + " moves need " + (moves.size() + 1) +
+                                               " boards, got " + boards.size());
+        }
+        final GameResult result = GameResult.fromTag(tags.get("Result"));
+        final byte[] record = encodeGame(tags, result, boards, moves);
+        //the entries without the offset, which is only known under the lock
+        final int plies = Math.min(this.indexPlies, moves.size());
+        final long[] hashes = new long[plies];
+        final long[] values = new long[plies];
+        int entries = 0;
+        for(int ply = 0; ply < plies; ply++){
+            final long hash = boards.get(ply).getZobristHash();
+            final long value = ArchiveFormat.indexValue(MoveEncoding.getKey(moves.get(ply).getEncodedMove()), result, 0L);
+            //a position repeated with the same move counts once for the game
+            if(!contains(hashes, values, entries, hash, value)){
+                hashes[entries] = hash;
+                values[entries] = value;
+                entries++;
+            }
+        }
+        synchronized(this){
+            if(this.isClosed){
+                throw new IllegalStateException("The archive " + this.base + " is closed");
+            }
+            final long offset = this.gamesEnd;
+            if(offset > ArchiveFormat.MAX_OFFSET){
+                throw new RuntimeException("The archive " + this.base + " is full");
+            }
+            writeGames(record);
+            for(int i = 0; i < entries; i++){
+                if(this.runEntries == RUN_SIZE){
+                    spillRun();
+                }
+                this.runHashes[this.runEntries] = hashes[i];
+                this.runValues[this.runEntries] = values[i] | offset;
+                this.runEntries++;
+            }
+            this.gameCount++;
+            this.entryCount += entries;
+            return offset;
+        }
+    }
+
+    public synchronized long getGameCount() {
+        return this.gameCount;
+    }
+
+    //index entries so far, a position repeated in a game is one entry
+    public synchronized long getEntryCount() {
+        return this.entryCount;
+    }
+
+    //finishes the games, merges the runs into the index and the statistics
+    @Override
+    public synchronized void close() throws IOException {
+        if(this.isClosed){
+            return;
+        }
+        this.isClosed = true;
+        try {
+            flushGames();
+            ArchiveFormat.writeHeader(this.games, ArchiveFormat.GAMES_MAGIC, this.gameCount);
+        } finally {
+            this.games.close();
+        }
+        spillRun();
+        try {
+            mergeRuns();
+        } finally {
+            for(final Path run : this.runs){
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    private static byte[] encodeGame(final Map<String, String> tags,
+                                     final GameResult result,
+                                     final List<Board> boards,
+                                     final List<Move> moves) {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        body.write(result.ordinal());
+        ArchiveFormat.writeVarint(body, moves.size());
+        ArchiveFormat.writeVarint(body, tags.size());
+        for(final Map.Entry<String, String> tag : tags.entrySet()){
+            ArchiveFormat.writeString(body, tag.getKey());
+            ArchiveFormat.writeString(body, tag.getValue());
+        }
+        //the bits go in from the lowest one of each byte up
+        long bits = 0L;
+        int bitCount = 0;
+        for(int ply = 0; ply < moves.size(); ply++){
+            final Move move = moves.get(ply);
+            final Board board = boards.get(ply);
+            int index = 0;
+            int moveCount = 0;
+            int moveIndex = -1;
+            for(final Move legalMove : board.currentPlayer().getLegalMoves()){
+                if(moveIndex < 0 && (legalMove == move || legalMove.equals(move))){
+                    moveIndex = index;
+                }
+                index++;
+                moveCount++;
+            }
+            if(moveIndex < 0){
+                throw new IllegalArgumentException("Move " + MoveEncoding.toString(move.getEncodedMove()) +
+                                                   " at ply " + (ply + 1) + " is not legal");
+            }
+            bits |= (long) moveIndex << bitCount;
+            bitCount += ArchiveFormat.indexBits(moveCount);
+            while(bitCount >= 8){
+                body.write((int) bits);
+                bits >>>= 8;
+                bitCount -= 8;
+            }
+        }
+        if(bitCount > 0){
+            body.write((int) bits);
+        }
+        final ByteArrayOutputStream record = new ByteArrayOutputStream(body.size() + 5);
+        ArchiveFormat.writeVarint(record, body.size());
+        record.write(body.toByteArray(), 0, body.size());
+        return record.toByteArray();
+    }
+
+    private static boolean contains(final long[] hashes, final long[] values, final int entries,
+                                    final long hash, final long value) {
+        for(int i = 0; i < entries; i++){
+            if(hashes[i] == hash && values[i] == value){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeGames(final byte[] record) throws IOException {
+        if(record.length > this.gamesBuffer.remaining()){
+            flushGames();
+        }
+        if(record.length > this.gamesBuffer.capacity()){
+            final ByteBuffer bytes = ByteBuffer.wrap(record);
+            while(bytes.hasRemaining()){
+                this.games.write(bytes, this.gamesEnd + bytes.position());
+            }
+        } else {
+            this.gamesBuffer.put(record);
+        }
+        this.gamesEnd += record.length;
+    }
+
+    private void flushGames() throws IOException {
+        this.gamesBuffer.flip();
+        final long position = this.gamesEnd - this.gamesBuffer.remaining();
+        while(this.gamesBuffer.hasRemaining()){
+            this.games.write(this.gamesBuffer, position + this.gamesBuffer.position());
+        }
+        this.gamesBuffer.clear();
+    }
+
+    private void spillRun() throws IOException {
+        if(this.runEntries == 0){
+            return;
+        }
+        EntrySort.sort(this.runHashes, this.runValues, 0, this.runEntries, ENTRY_ORDER);
+        final Path run = this.base.resolveSibling(this.base.getFileName() + ".run" + this.runs.size());
+        this.runs.add(run);
+        try(final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE))){
+            for(int i = 0; i < this.runEntries; i++){
+                out.writeLong(this.runHashes[i]);
+                out.writeLong(this.runValues[i]);
+            }
+        }
+        this.runEntries = 0;
+    }
+
+    //a k-way merge of the sorted runs
+    private void mergeRuns() throws IOException {
+        final PriorityQueue<RunReader> queue = new PriorityQueue<>(Math.max(1, this.runs.size()), new Comparator<RunReader>() {
+            @Override
+            public int compare(final RunReader first, final RunReader second) {
+                return compareEntries(first.hash, first.value, second.hash, second.value);
+            }
+        });
+        try(final FileChannel index = FileChannel.open(ArchiveFormat.indexPath(this.base), StandardOpenOption.CREATE,
+                                                       StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            final FileChannel statistics = FileChannel.open(ArchiveFormat.statisticsPath(this.base), StandardOpenOption.CREATE,
+                                                            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            final DataOutputStream indexOut = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(index.position(ArchiveFormat.HEADER_SIZE)), BUFFER_SIZE));
+            final DataOutputStream statisticsOut = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(statistics.position(ArchiveFormat.HEADER_SIZE)), BUFFER_SIZE));
+            try {
+                for(final Path run : this.runs){
+                    final RunReader reader = new RunReader(run);
+                    if(reader.next()){
+                        queue.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+                long entries = 0L;
+                long records = 0L;
+                long currentHash = 0L;
+                int currentMove = -1;
+                final int[] results = new int[GameResult.values().length];
+                while(!queue.isEmpty()){
+                    final RunReader reader = queue.poll();
+                    final long hash = reader.hash;
+                    final long value = reader.value;
+                    if(reader.next()){
+                        queue.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                    indexOut.writeLong(hash);
+                    indexOut.writeLong(value);
+                    entries++;
+                    final int move = ArchiveFormat.moveKey(value);
+                    if(currentMove >= 0 && (hash != currentHash || move != currentMove)){
+                        writeStatistics(statisticsOut, currentHash, currentMove, results);
+                        records++;
+                    }
+                    currentHash = hash;
+                    currentMove = move;
+                    results[ArchiveFormat.result(value).ordinal()]++;
+                }
+                if(currentMove >= 0){
+                    writeStatistics(statisticsOut, currentHash, currentMove, results);
+                    records++;
+                }
+                indexOut.flush();
+                statisticsOut.flush();
+                ArchiveFormat.writeHeader(index, ArchiveFormat.INDEX_MAGIC, entries);
+                ArchiveFormat.writeHeader(statistics, ArchiveFormat.STATISTICS_MAGIC, records);
+            } finally {
+                for(final RunReader reader : queue){
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    //clears the counts for the next move
+    private static void writeStatistics(final DataOutputStream out, final long hash, final int move,
+                                        final int[] results) throws IOException {
+        out.writeLong(hash);
+        out.writeInt(move);
+        for(int i = 0; i < results.length; i++){
+            out.writeInt(results[i]);
+            results[i] = 0;
+        }
+        out.writeInt(0);
+    }
+
+    private static int compareEntries(final long firstHash, final long firstValue,
+                                      final long secondHash, final long secondValue) {
+        final int byHash = Long.compare(firstHash, secondHash);
+        return byHash != 0 ? byHash : Long.compare(firstValue, secondValue);
+    }
+
+    //the entry it is at, next() moves to the following one
+    private static final class RunReader implements Closeable {
+
+        private final DataInputStream in;
+        private long hash;
+        private long value;
+
+        RunReader(final Path run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), RUN_BUFFER_SIZE));
+        }
+
+        //false at the end of the run
+        boolean next() throws IOException {
+            try {
+                this.hash = this.in.readLong();
+            } catch(final EOFException e) {
+                return false;
+            }
+            this.value = this.in.readLong();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.chess.archive;
+
+//the result of an archived game, its ordinal is what the archive stores
+public enum GameResult {
+
+    WHITE_WINS("1-0"),
+    DRAW("1/2-1/2"),
+    BLACK_WINS("0-1"),
+    UNFINISHED("*");
+
+    private static final GameResult[] RESULTS = values();
+
+    private final String tag;
+
+    GameResult(final String tag) {
+        this.tag = tag;
+    }
+
+    //the pgn Result tag
+    public String getTag() {
+        return this.tag;
+    }
+
+    //anything that is not a known result, or no tag at all, is unfinished
+    public static GameResult fromTag(final String tag) {
+        for(final GameResult result : RESULTS){
+            if(result != UNFINISHED && result.tag.equals(tag)){
+                return result;
+            }
+        }
+        return UNFINISHED;
+    }
+
+    static GameResult fromOrdinal(final int ordinal) {
+        return RESULTS[ordinal];
+    }
+}
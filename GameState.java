@@ -0,0 +1,37 @@
+package com.chess.engine.board;
+
+//how a position stands for the player to move
+public enum GameState {
+    ONGOING {
+        @Override
+        public boolean isGameOver() {
+            return false;
+        }
+    },
+    CHECK {
+        @Override
+        public boolean isGameOver() {
+            return false;
+        }
+    },
+    CHECKMATE {
+        @Override
+        public boolean isGameOver() {
+            return true;
+        }
+    },
+    STALEMATE {
+        @Override
+        public boolean isGameOver() {
+            return true;
+        }
+    },
+    //neither side has enough pieces left to ever give mate
+    INSUFFICIENT_MATERIAL {
+        @Override
+        public boolean isGameOver() {
+            return true;
+        }
+    };
+    public abstract boolean isGameOver();
+}
@@ -0,0 +1,100 @@
+package com.chess.engine.board;
+
+import java.util.Arrays;
+
+//a growable list of MoveEncoding ints, reused across positions so generating moves allocates nothing
+public final class IntMoveList {
+
+    private static final int DEFAULT_CAPACITY = SearchBoard.MAX_MOVES;
+
+    private int[] moves;
+    private int size;
+
+    public IntMoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntMoveList(final int capacity) {
+        this.moves = new int[capacity];
+        this.size = 0;
+    }
+
+    public void add(final int move) {
+        if(this.size == this.moves.length){
+            this.moves = Arrays.copyOf(this.moves, this.moves.length * 2);
+        }
+        this.moves[this.size++] = move;
+    }
+
+    public int get(final int index) {
+        if(index >= this.size){
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + this.size);
+        }
+        return this.moves[index];
+    }
+
+    public void set(final int index, final int move) {
+        if(index >= this.size){
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + this.size);
+        }
+        this.moves[index] = move;
+    }
+
+    //for move ordering: pick the best remaining move and swap it to the front
+    public void swap(final int first, final int second) {
+        final int move = this.moves[first];
+        this.moves[first] = this.moves[second];
+        this.moves[second] = move;
+    }
+
+    //compares the low 16 bits, so a move matches whether or not it carries its captured type
+    public boolean contains(final int move) {
+        final int key = MoveEncoding.getKey(move);
+        for(int i = 0; i < this.size; i++){
+            if(MoveEncoding.getKey(this.moves[i]) == key){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(this.moves, this.size);
+    }
+
+    //lets generators that write into a plain array fill the list directly
+    int[] elements(final int freeCapacity) {
+        if(this.size + freeCapacity > this.moves.length){
+            this.moves = Arrays.copyOf(this.moves, Math.max(this.moves.length * 2, this.size + freeCapacity));
+        }
+        return this.moves;
+    }
+
+    void setSize(final int size) {
+        this.size = size;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("[");
+        for(int i = 0; i < this.size; i++){
+            if(i > 0){
+                builder.append(", ");
+            }
+            builder.append(MoveEncoding.toString(this.moves[i]));
+        }
+        return builder.append(']').toString();
+    }
+}
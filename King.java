@@ -1,67 +1,29 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.IntMoveList;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Tile;
-import com.google.common.collect.ImmutableList;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-
-import static com.chess.engine.board.Move.*;
 
 public class King extends Piece{
-    private final static int[] CANDIDATE_MOVE_COORDINATE={-9, -8, -7, -1, 1, 7, 8, 9};
-    public King(final Alliance pieceAlliance,
-                final int piecePosition) {
-        super(PieceType.KING, piecePosition, pieceAlliance);
+
+    King(final Alliance pieceAlliance,
+         final int piecePosition,
+         final boolean isFirstMove) {
+        super(PieceType.KING, piecePosition, pieceAlliance, isFirstMove);
     }
 
     @Override
-    public Collection<Move> calculateLegalMoves(Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
-
-        for(final int currentCandidateOffset : CANDIDATE_MOVE_COORDINATE){
-            final int candidateDestinationCoordinate=this.piecePosition+currentCandidateOffset;
-
-            if(isFirstColumnExclusion(this.piecePosition, currentCandidateOffset) ||
-               isEighthColumnExclusion(this.piecePosition, currentCandidateOffset)){
-                continue;
-            }
-            if(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-                final Tile candidateDestinationTile=board.getTile(candidateDestinationCoordinate);
-                if(!candidateDestinationTile.isTileOccupied()){
-                    legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
-                } else{
-                    final Piece pieceAtDestination= candidateDestinationTile.getPiece();
-                    final Alliance pieceAlliance= pieceAtDestination.getPieceAlliance();
-
-                    if(this.pieceAlliance != pieceAlliance) {
-                        legalMoves.add(new AttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
-                    }
-                }
-            }
-        }
-        return ImmutableList.copyOf(legalMoves);
+    public void generateMoves(final Board board, final IntMoveList moves) {
+        addMoves(board, AttackTables.kingAttacks(this.piecePosition), moves);
     }
     @Override
     public King movePiece(final Move move) {
-        return new King(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate());
+        return (King) PieceUtils.getPiece(PieceType.KING, move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(), false);
     }
     @Override
     public String toString(){
         return PieceType.KING.toString();
     }
-    private static boolean isFirstColumnExclusion(final int currentPosition, final int candidateOffset){
-        return BoardUtils.FIRST_COLUMN[currentPosition] && (candidateOffset == -9 || candidateOffset == -1 ||
-                candidateOffset == 7);
-    }
-
-    private static boolean isEighthColumnExclusion(final int currentPosition, final int candidateOffset) {
-        return BoardUtils.EIGHTH_COLUMN[currentPosition] && (candidateOffset == -7 || candidateOffset == 1 ||
-                candidateOffset == 9);
-    }
 }
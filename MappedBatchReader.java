@@ -0,0 +1,104 @@
+package com.chess.pgn;
+
+import com.chess.engine.DaemonThreadFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+//reads a file through memory mapped windows, cuts every window into units, games or lines, and hands them in
+//batches to a pool of threads. memory stays bounded: only a few batches per thread wait at a time and the reading
+//waits for them. a window grows when not a single unit fits in it
+final class MappedBatchReader {
+
+    //a window grows past this when a single unit does not fit in it
+    static final int WINDOW_SIZE = 64 << 20;
+    //batches waiting for a thread, per thread, before the reading waits for them
+    private static final int BATCHES_PER_THREAD = 4;
+
+    interface UnitFinder {
+        //the count of whole units goes in units[0], their starts follow it and then the end of the last one,
+        //which is where the next window starts. with no whole unit, units[1] is how much of the window to skip,
+        //0 when the window has to grow. in the last window of the file every unit is whole
+        //the array grows as needed and is returned
+        int[] findUnits(MappedByteBuffer window, int length, boolean isLastWindow, int[] units);
+    }
+
+    interface BatchFactory {
+        //called on the reading thread, bounds holds the batch's unit starts in the window and the end of the last
+        //one. the task runs on a pool thread, null stops the reading
+        Runnable createBatch(MappedByteBuffer window, long windowStart, int[] bounds);
+    }
+
+    private final FileChannel channel;
+    private final int windowSize;
+    private final int batchSize;
+
+    MappedBatchReader(final FileChannel channel, final int windowSize, final int batchSize) {
+        this.channel = channel;
+        this.windowSize = windowSize;
+        this.batchSize = batchSize;
+    }
+
+    //blocks until every batch has run, returns false when the factory stopped the reading
+    boolean read(final int threads, final String threadName, final UnitFinder finder,
+                 final BatchFactory factory) throws IOException, InterruptedException {
+        final ExecutorService pool = Executors.newFixedThreadPool(threads, new DaemonThreadFactory(threadName));
+        final Semaphore waitingBatches = new Semaphore(threads * BATCHES_PER_THREAD);
+        boolean isStopped = false;
+        try {
+            final long fileSize = this.channel.size();
+            long windowStart = 0L;
+            int windowSize = this.windowSize;
+            int[] units = new int[this.batchSize + 2];
+            windows:
+            while(windowStart < fileSize){
+                final int length = (int) Math.min(windowSize, fileSize - windowStart);
+                final boolean isLastWindow = windowStart + length == fileSize;
+                final MappedByteBuffer window = this.channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+                units = finder.findUnits(window, length, isLastWindow, units);
+                final int unitCount = units[0];
+                if(unitCount == 0 && !isLastWindow){
+                    if(units[1] > 0){
+                        windowStart += units[1];
+                    } else {
+                        windowSize = (int) Math.min(Integer.MAX_VALUE, windowSize * 2L);
+                    }
+                    continue;
+                }
+                for(int first = 0; first < unitCount; first += this.batchSize){
+                    final int last = Math.min(first + this.batchSize, unitCount);
+                    final Runnable batch = factory.createBatch(window, windowStart,
+                                                               Arrays.copyOfRange(units, first + 1, last + 2));
+                    if(batch == null){
+                        isStopped = true;
+                        break windows;
+                    }
+                    waitingBatches.acquire();
+                    pool.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                batch.run();
+                            } finally {
+                                waitingBatches.release();
+                            }
+                        }
+                    });
+                }
+                windowStart = isLastWindow ? fileSize : windowStart + units[unitCount + 1];
+            }
+        } catch(final IOException | InterruptedException | RuntimeException e) {
+            pool.shutdownNow();
+            throw e;
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        return !isStopped;
+    }
+}
@@ -0,0 +1,79 @@
+package com.chess.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//a file of fixed size records that start with a long hash, sorted by it, mapped in segments of about a gigabyte
+//a mapped buffer is limited to 2 gigabytes, the segments hold whole records so none is split between two
+final class MappedRecords implements Closeable {
+
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final int recordSize;
+    private final int recordsPerSegment;
+    private final long recordCount;
+    private final MappedByteBuffer[] segments;
+
+    MappedRecords(final Path path, final int magic, final int recordSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.recordSize = recordSize;
+            this.recordsPerSegment = SEGMENT_SIZE / recordSize;
+            this.recordCount = ArchiveFormat.readHeader(this.channel, magic, path);
+            if(this.channel.size() != ArchiveFormat.HEADER_SIZE + this.recordCount * recordSize){
+                throw new IOException(path + " should hold " + this.recordCount + " records but is " +
+                                      this.channel.size() + " bytes");
+            }
+            final int segmentCount = (int) ((this.recordCount + this.recordsPerSegment - 1) / this.recordsPerSegment);
+            this.segments = new MappedByteBuffer[segmentCount];
+            for(int i = 0; i < segmentCount; i++){
+                final long first = (long) i * this.recordsPerSegment;
+                final long records = Math.min(this.recordsPerSegment, this.recordCount - first);
+                this.segments[i] = this.channel.map(FileChannel.MapMode.READ_ONLY,
+                                                    ArchiveFormat.HEADER_SIZE + first * recordSize, records * recordSize);
+            }
+        } catch(final IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    long getRecordCount() {
+        return this.recordCount;
+    }
+
+    long getLong(final long record, final int field) {
+        return this.segments[(int) (record / this.recordsPerSegment)]
+                .getLong((int) (record % this.recordsPerSegment) * this.recordSize + field);
+    }
+
+    int getInt(final long record, final int field) {
+        return this.segments[(int) (record / this.recordsPerSegment)]
+                .getInt((int) (record % this.recordsPerSegment) * this.recordSize + field);
+    }
+
+    //the first record with the hash, or the record count if there is none
+    long find(final long hash) {
+        long low = 0;
+        long high = this.recordCount;
+        while(low < high){
+            final long middle = (low + high) >>> 1;
+            if(getLong(middle, 0) < hash){
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < this.recordCount && getLong(low, 0) == hash ? low : this.recordCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,221 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//the pieces of an ending, written like KBNK: white's pieces and then black's, each side from its king down
+//a table holds the stronger side as white, canonical() gives that form, and a board with the colours the other way
+//round is probed with the board mirrored. the pieces have slots in this order, the kings in slot 0 and whiteCount
+public final class MaterialSignature {
+
+    //the order of the pieces of a side, after the king
+    private static final PieceType[] ORDER = {PieceType.KING, PieceType.QUEEN, PieceType.ROOK,
+                                              PieceType.BISHOP, PieceType.KNIGHT, PieceType.PAWN};
+    //bits for a piece type's count in the material key
+    private static final int COUNT_BITS = 2;
+
+    private final PieceType[] pieceTypes;
+    private final int whiteCount;
+
+    private MaterialSignature(final PieceType[] pieceTypes, final int whiteCount) {
+        this.pieceTypes = pieceTypes;
+        this.whiteCount = whiteCount;
+    }
+
+    public static MaterialSignature parse(final String text) {
+        final String signature = text.trim().toUpperCase();
+        final int blackKing = signature.indexOf('K', 1);
+        if(signature.isEmpty() || signature.charAt(0) != 'K' || blackKing < 0 || signature.indexOf('K', blackKing + 1) >= 0){
+            throw new IllegalArgumentException("A signature needs one king a side, like KQK, got " + text);
+        }
+        final PieceType[] pieceTypes = new PieceType[signature.length()];
+        for(int i = 0; i < signature.length(); i++){
+            pieceTypes[i] = pieceType(signature.charAt(i), text);
+        }
+        sortSide(pieceTypes, 1, blackKing);
+        sortSide(pieceTypes, blackKing + 1, pieceTypes.length);
+        return new MaterialSignature(pieceTypes, blackKing);
+    }
+
+    public int getPieceCount() {
+        return this.pieceTypes.length;
+    }
+
+    public int getWhiteCount() {
+        return this.whiteCount;
+    }
+
+    public PieceType getPieceType(final int slot) {
+        return this.pieceTypes[slot];
+    }
+
+    public boolean isWhite(final int slot) {
+        return slot < this.whiteCount;
+    }
+
+    public boolean hasPawns() {
+        for(final PieceType pieceType : this.pieceTypes){
+            if(pieceType == PieceType.PAWN){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //the same pieces with the colours swapped
+    public MaterialSignature swapColors() {
+        final PieceType[] pieceTypes = new PieceType[this.pieceTypes.length];
+        final int blackCount = this.pieceTypes.length - this.whiteCount;
+        System.arraycopy(this.pieceTypes, this.whiteCount, pieceTypes, 0, blackCount);
+        System.arraycopy(this.pieceTypes, 0, pieceTypes, blackCount, this.whiteCount);
+        return new MaterialSignature(pieceTypes, blackCount);
+    }
+
+    //the stronger side as white: more material, or the same material in earlier pieces
+    public MaterialSignature canonical() {
+        final int whiteValue = sideValue(0, this.whiteCount);
+        final int blackValue = sideValue(this.whiteCount, this.pieceTypes.length);
+        if(blackValue > whiteValue || (blackValue == whiteValue && compareSides() > 0)){
+            return swapColors();
+        }
+        return this;
+    }
+
+    //the endings a capture or a promotion leads to, canonical, without repeats, two bare kings among them
+    public List<MaterialSignature> getSuccessors() {
+        final List<MaterialSignature> successors = new ArrayList<>();
+        for(int slot = 0; slot < this.pieceTypes.length; slot++){
+            if(this.pieceTypes[slot] == PieceType.KING){
+                continue;
+            }
+            final PieceType[] captured = new PieceType[this.pieceTypes.length - 1];
+            System.arraycopy(this.pieceTypes, 0, captured, 0, slot);
+            System.arraycopy(this.pieceTypes, slot + 1, captured, slot, captured.length - slot);
+            addSuccessor(successors, new MaterialSignature(captured, slot < this.whiteCount ? this.whiteCount - 1 : this.whiteCount));
+            if(this.pieceTypes[slot] == PieceType.PAWN){
+                for(final PieceType promotionType : new PieceType[]{PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT}){
+                    final PieceType[] promoted = this.pieceTypes.clone();
+                    promoted[slot] = promotionType;
+                    addSuccessor(successors, new MaterialSignature(promoted, this.whiteCount));
+                }
+            }
+        }
+        return successors;
+    }
+
+    //the piece counts of both sides in an int, for finding a table by the material of a board
+    public int getMaterialKey() {
+        int materialKey = 0;
+        for(int slot = 0; slot < this.pieceTypes.length; slot++){
+            materialKey += materialKey(this.pieceTypes[slot], isWhite(slot));
+        }
+        return materialKey;
+    }
+
+    //what one piece adds to a material key, kings add nothing
+    static int materialKey(final PieceType pieceType, final boolean isWhite) {
+        if(pieceType == PieceType.KING){
+            return 0;
+        }
+        return 1 << (COUNT_BITS * (orderOf(pieceType) + (isWhite ? 0 : ORDER.length)));
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if(this == other){
+            return true;
+        }
+        if(!(other instanceof MaterialSignature)){
+            return false;
+        }
+        final MaterialSignature otherSignature = (MaterialSignature) other;
+        return this.whiteCount == otherSignature.whiteCount && Arrays.equals(this.pieceTypes, otherSignature.pieceTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(this.pieceTypes) + this.whiteCount;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder signature = new StringBuilder(this.pieceTypes.length);
+        for(final PieceType pieceType : this.pieceTypes){
+            signature.append(pieceType.toString());
+        }
+        return signature.toString();
+    }
+
+    //a promoted piece keeps the pawn's slot until the side is sorted again
+    private static void addSuccessor(final List<MaterialSignature> successors, final MaterialSignature successor) {
+        sortSide(successor.pieceTypes, 1, successor.whiteCount);
+        sortSide(successor.pieceTypes, successor.whiteCount + 1, successor.pieceTypes.length);
+        final MaterialSignature canonical = successor.canonical();
+        if(!successors.contains(canonical)){
+            successors.add(canonical);
+        }
+    }
+
+    private int sideValue(final int from, final int to) {
+        int value = 0;
+        for(int slot = from; slot < to; slot++){
+            if(this.pieceTypes[slot] != PieceType.KING){
+                value += this.pieceTypes[slot].getPieceValue();
+            }
+        }
+        return value;
+    }
+
+    //white's pieces against black's in ORDER, the side with the earlier piece first
+    private int compareSides() {
+        final int blackCount = this.pieceTypes.length - this.whiteCount;
+        for(int i = 0; i < Math.min(this.whiteCount, blackCount); i++){
+            final int byOrder = Integer.compare(orderOf(this.pieceTypes[i]), orderOf(this.pieceTypes[this.whiteCount + i]));
+            if(byOrder != 0){
+                return byOrder;
+            }
+        }
+        return Integer.compare(blackCount, this.whiteCount);
+    }
+
+    private static void sortSide(final PieceType[] pieceTypes, final int from, final int to) {
+        for(int i = from + 1; i < to; i++){
+            for(int j = i; j > from && orderOf(pieceTypes[j - 1]) > orderOf(pieceTypes[j]); j--){
+                final PieceType pieceType = pieceTypes[j];
+                pieceTypes[j] = pieceTypes[j - 1];
+                pieceTypes[j - 1] = pieceType;
+            }
+        }
+    }
+
+    private static int orderOf(final PieceType pieceType) {
+        for(int i = 0; i < ORDER.length; i++){
+            if(ORDER[i] == pieceType){
+                return i;
+            }
+        }
+        throw new RuntimeException("Unknown piece type " + pieceType);
+    }
+
+    private static PieceType pieceType(final char c, final String text) {
+        switch(c){
+            case 'K':
+                return PieceType.KING;
+            case 'Q':
+                return PieceType.QUEEN;
+            case 'R':
+                return PieceType.ROOK;
+            case 'B':
+                return PieceType.BISHOP;
+            case 'N':
+                return PieceType.KNIGHT;
+            case 'P':
+                return PieceType.PAWN;
+            default:
+                throw new IllegalArgumentException("Unknown piece " + c + " in " + text);
+        }
+    }
+}
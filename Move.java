@@ -1,7 +1,10 @@
 package com.chess.engine.board;
 
+import com.chess.engine.Alliance;
 import com.chess.engine.pieces.Pawn;
 import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+import com.chess.engine.pieces.PieceUtils;
 import com.chess.engine.pieces.Rook;
 
 import static com.chess.engine.board.Board.*;
@@ -63,26 +66,62 @@ public abstract class Move {
     public Piece getAttackedPiece(){
         return null;
     }
+    //the same move as a MoveEncoding int
+    public int getEncodedMove(){
+        final Piece attackedPiece=getAttackedPiece();
+        return MoveEncoding.encode(getCurrentCoordinate(), this.destinationCoordinate, getMoveFlags(),
+                                   attackedPiece == null ? null : attackedPiece.getPieceType());
+    }
+    int getMoveFlags(){
+        return isAttack() ? MoveEncoding.CAPTURE : MoveEncoding.QUIET_MOVE;
+    }
 
     public Board execute() {
-        //this code creates a new board after a player makes a move using the builder in java
-        final Builder builder=new Builder();
-        for(final Piece piece : this.board.currentPlayer().getActivePieces()){
-            //if the pieces are not the moved pieces, then keep their locations the same in the new board
-            if(!this.movedPiece.equals(piece)){
-                builder.setPiece(piece);
-            }
-        }
-        //place the same locations for the opponent's pieces on the new board
-        for(final Piece piece : this.board.currentPlayer().getOpponent().getActivePieces()){
-            builder.setPiece(piece);
-        }
-        //move the moved piece in the new board
+        //this code creates a new board after a player makes a move, starting from a copy of the current one
+        final Builder builder=new Builder(this.board);
+        //move the moved piece in the new board, a piece captured on the destination tile is overwritten
+        builder.removePiece(getCurrentCoordinate());
         builder.setPiece(this.movedPiece.movePiece(this));
+        builder.setEnPassantPawn(null);
         //change the next move to the opponent cuz it's their turn to move
         builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+        builder.setZobristHash(calculateZobristHash());
+        builder.setPieceSquareScore(calculatePieceSquareScore());
+        builder.setMoveClocks(calculateHalfMoveClock(), calculateFullMoveNumber());
+        builder.setInheritedMoveLists(this.board.inheritMoveLists(getChangedSquares()));
         return builder.build();
     }
+    //the tiles whose content this move changes
+    long getChangedSquares(){
+        return BitBoard.squareBit(getCurrentCoordinate()) | BitBoard.squareBit(this.destinationCoordinate);
+    }
+    //the hash of the board this move creates: xor out what the move takes away and xor in what it adds
+    long calculateZobristHash(){
+        final Alliance nextMoveMaker=this.board.currentPlayer().getOpponent().getAlliance();
+        final int castlingRights=this.board.getCastlingRights();
+        return this.board.getZobristHash() ^
+               Zobrist.pieceKey(this.movedPiece) ^
+               Zobrist.pieceKey(this.movedPiece.getPieceType(), this.movedPiece.getPieceAlliance(), this.destinationCoordinate) ^
+               Zobrist.castlingKey(castlingRights) ^
+               Zobrist.castlingKey(BoardUtils.updateCastlingRights(castlingRights, getCurrentCoordinate(), this.destinationCoordinate)) ^
+               Zobrist.enPassantKey(this.board.getEnPassantSquare()) ^
+               Zobrist.sideToMoveKey(this.board.currentPlayer().getAlliance()) ^
+               Zobrist.sideToMoveKey(nextMoveMaker);
+    }
+    //the same for the board's piece square score
+    int calculatePieceSquareScore(){
+        return this.board.getPieceSquareScore() -
+               PieceSquareTables.score(this.movedPiece) +
+               PieceSquareTables.score(this.movedPiece.getPieceType(), this.movedPiece.getPieceAlliance(), this.destinationCoordinate);
+    }
+
+    //captures and pawn moves start the fifty move count again
+    int calculateHalfMoveClock(){
+        return isAttack() || this.movedPiece.getPieceType() == PieceType.PAWN ? 0 : this.board.getHalfMoveClock()+1;
+    }
+    int calculateFullMoveNumber(){
+        return this.board.getFullMoveNumber() + (this.movedPiece.getPieceAlliance().isWhite() ? 0 : 1);
+    }
 
     public static final class MajorMove extends Move {
 
@@ -119,8 +158,12 @@ public abstract class Move {
         }
 
         @Override
-        public Board execute() {
-            return null;
+        long calculateZobristHash(){
+            return super.calculateZobristHash() ^ Zobrist.pieceKey(this.attackedPiece);
+        }
+        @Override
+        int calculatePieceSquareScore(){
+            return super.calculatePieceSquareScore() - PieceSquareTables.score(this.attackedPiece);
         }
         @Override
         public boolean isAttack(){
@@ -159,7 +202,98 @@ public abstract class Move {
                         final Piece attackedPiece) {
             super(board, movedPiece, destinationCoordinate, attackedPiece);
         }
+        @Override
+        int getMoveFlags(){
+            return MoveEncoding.EN_PASSANT_CAPTURE;
+        }
+        @Override
+        long getChangedSquares(){
+            return super.getChangedSquares() | BitBoard.squareBit(getAttackedPiece().getPiecePosition());
+        }
+        @Override
+        public Board execute(){
+            final Builder builder=new Builder(this.board);
+            builder.removePiece(getCurrentCoordinate());
+            //the captured pawn is not on the destination tile, so it has to be taken off separately
+            builder.removePiece(getAttackedPiece().getPiecePosition());
+            builder.setPiece(this.movedPiece.movePiece(this));
+            builder.setEnPassantPawn(null);
+            builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            builder.setZobristHash(calculateZobristHash());
+            builder.setPieceSquareScore(calculatePieceSquareScore());
+            builder.setMoveClocks(calculateHalfMoveClock(), calculateFullMoveNumber());
+            builder.setInheritedMoveLists(this.board.inheritMoveLists(getChangedSquares()));
+            return builder.build();
+        }
+
+    }
+    //wraps the pawn move or capture that reaches the last rank and swaps the pawn for the promotion piece
+    public static final class PawnPromotion extends Move {
+        final Move decoratedMove;
+        final Piece promotionPiece;
 
+        public PawnPromotion(final Move decoratedMove,
+                             final Piece promotionPiece) {
+            super(decoratedMove.board, decoratedMove.getMovedPiece(), decoratedMove.getDestinationCoordinate());
+            this.decoratedMove=decoratedMove;
+            this.promotionPiece=promotionPiece;
+        }
+        @Override
+        public int hashCode(){
+            return this.decoratedMove.hashCode()+31*this.promotionPiece.hashCode();
+        }
+        @Override
+        public boolean equals(final Object other){
+            if(this==other){
+                return true;
+            }
+            if(!(other instanceof PawnPromotion)){
+                return false;
+            }
+            final PawnPromotion otherPromotion=(PawnPromotion) other;
+            return this.decoratedMove.equals(otherPromotion.decoratedMove) &&
+                   this.promotionPiece.equals(otherPromotion.promotionPiece);
+        }
+        public Piece getPromotionPiece(){
+            return this.promotionPiece;
+        }
+        @Override
+        int getMoveFlags(){
+            return MoveEncoding.promotionFlag(this.promotionPiece.getPieceType()) | this.decoratedMove.getMoveFlags();
+        }
+        @Override
+        public boolean isAttack(){
+            return this.decoratedMove.isAttack();
+        }
+        @Override
+        public Piece getAttackedPiece(){
+            return this.decoratedMove.getAttackedPiece();
+        }
+        @Override
+        public Board execute(){
+            final Builder builder=new Builder(this.board);
+            builder.removePiece(getCurrentCoordinate());
+            builder.setPiece(this.promotionPiece);
+            builder.setEnPassantPawn(null);
+            builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            builder.setZobristHash(calculateZobristHash());
+            builder.setPieceSquareScore(calculatePieceSquareScore());
+            builder.setMoveClocks(calculateHalfMoveClock(), calculateFullMoveNumber());
+            builder.setInheritedMoveLists(this.board.inheritMoveLists(getChangedSquares()));
+            return builder.build();
+        }
+        @Override
+        long calculateZobristHash(){
+            return this.decoratedMove.calculateZobristHash() ^
+                   Zobrist.pieceKey(this.movedPiece.getPieceType(), this.movedPiece.getPieceAlliance(), this.destinationCoordinate) ^
+                   Zobrist.pieceKey(this.promotionPiece);
+        }
+        @Override
+        int calculatePieceSquareScore(){
+            return this.decoratedMove.calculatePieceSquareScore() -
+                   PieceSquareTables.score(this.movedPiece.getPieceType(), this.movedPiece.getPieceAlliance(), this.destinationCoordinate) +
+                   PieceSquareTables.score(this.promotionPiece);
+        }
     }
     public static final class PawnJump extends Move {
 
@@ -168,24 +302,29 @@ public abstract class Move {
                         final int destinationCoordinate) {
             super(board, movedPiece, destinationCoordinate);
         }
+        @Override
+        int getMoveFlags(){
+            return MoveEncoding.PAWN_JUMP;
+        }
         //if a pawn jump occurs, I am going to mark that pawn as the enpassant pawn. If the pawn jump piece is not null, then the prior move is a pawn jump
         @Override
         public Board execute(){
-            final Builder builder=new Builder();
-            for(final Piece piece: this.board.currentPlayer().getActivePieces()){
-                if(!this.movedPiece.equals(piece)){
-                    builder.setPiece(piece);
-                }
-            }
-            for(final Piece piece: this.board.currentPlayer().getOpponent().getActivePieces()){
-                builder.setPiece(piece);
-            }
+            final Builder builder=new Builder(this.board);
+            builder.removePiece(getCurrentCoordinate());
             final Pawn movedPawn=(Pawn)this.movedPiece.movePiece(this);
             builder.setPiece(movedPawn);
             builder.setEnPassantPawn(movedPawn);
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            builder.setZobristHash(calculateZobristHash());
+            builder.setPieceSquareScore(calculatePieceSquareScore());
+            builder.setMoveClocks(calculateHalfMoveClock(), calculateFullMoveNumber());
+            builder.setInheritedMoveLists(this.board.inheritMoveLists(getChangedSquares()));
             return builder.build();
         }
+        @Override
+        long calculateZobristHash(){
+            return super.calculateZobristHash() ^ Zobrist.enPassantKey((getCurrentCoordinate() + this.destinationCoordinate) / 2);
+        }
     }
     static abstract class CastleMove extends Move {
         protected final Rook castleRook;
@@ -207,28 +346,41 @@ public abstract class Move {
             return this.castleRook;
         }
         @Override
+        long getChangedSquares(){
+            return super.getChangedSquares() | BitBoard.squareBit(this.castleRookStart) | BitBoard.squareBit(this.castleRookDestination);
+        }
+        @Override
         public boolean isCastlingMove(){
             return true;
         }
         @Override
         public Board execute(){
-            final Builder builder=new Builder();
-            for(final Piece piece: this.board.currentPlayer().getActivePieces()){
-                //if the piece that we are moving on the board is not the moved piece and it's not the castle rook
-                if(!this.movedPiece.equals(piece) && !this.castleRook.equals(piece)){
-                    //then set the piece
-                    builder.setPiece(piece);
-                }
-            }
-            for(final Piece piece: this.board.currentPlayer().getOpponent().getActivePieces()){
-                builder.setPiece(piece);
-            }
-            //moved piece is king and created a new castle side rook in the new board and erased the old rook
+            final Builder builder=new Builder(this.board);
+            //the king and the castle side rook leave their tiles and are put on their new ones
+            builder.removePiece(getCurrentCoordinate());
+            builder.removePiece(this.castleRookStart);
             builder.setPiece(this.movedPiece.movePiece(this));
-            builder.setPiece(new Rook(this.castleRook.getPieceAlliance(), this.castleRookDestination));
+            builder.setPiece(PieceUtils.getPiece(PieceType.ROOK, this.castleRook.getPieceAlliance(), this.castleRookDestination, false));
+            builder.setEnPassantPawn(null);
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            builder.setZobristHash(calculateZobristHash());
+            builder.setPieceSquareScore(calculatePieceSquareScore());
+            builder.setMoveClocks(calculateHalfMoveClock(), calculateFullMoveNumber());
+            builder.setInheritedMoveLists(this.board.inheritMoveLists(getChangedSquares()));
             return builder.build();
         }
+        @Override
+        long calculateZobristHash(){
+            return super.calculateZobristHash() ^
+                   Zobrist.pieceKey(this.castleRook) ^
+                   Zobrist.pieceKey(this.castleRook.getPieceType(), this.castleRook.getPieceAlliance(), this.castleRookDestination);
+        }
+        @Override
+        int calculatePieceSquareScore(){
+            return super.calculatePieceSquareScore() -
+                   PieceSquareTables.score(this.castleRook) +
+                   PieceSquareTables.score(this.castleRook.getPieceType(), this.castleRook.getPieceAlliance(), this.castleRookDestination);
+        }
 
     }
     public static final class KingSideCastleMove extends CastleMove {
@@ -242,6 +394,10 @@ public abstract class Move {
             super(board, movedPiece, destinationCoordinate, castleRook, castleRookStart, castleRookDestination);
         }
         @Override
+        int getMoveFlags(){
+            return MoveEncoding.KING_SIDE_CASTLE;
+        }
+        @Override
         public String toString(){
             return "O-O";
         }
@@ -257,6 +413,10 @@ public abstract class Move {
             super(board, movedPiece, destinationCoordinate, castleRook, castleRookStart, castleRookDestination);
         }
         @Override
+        int getMoveFlags(){
+            return MoveEncoding.QUEEN_SIDE_CASTLE;
+        }
+        @Override
         public String toString(){
             return "O-O-O";
         }
@@ -267,6 +427,14 @@ public abstract class Move {
             super(null, null, -1);
         }
         @Override
+        public int getCurrentCoordinate(){
+            return -1;
+        }
+        @Override
+        public int getEncodedMove(){
+            return MoveEncoding.NO_MOVE;
+        }
+        @Override
         public Board execute(){
             throw new RuntimeException("Cannot execute the null move!");
         }
@@ -275,16 +443,65 @@ public abstract class Move {
         private MoveFactory(){
             throw new RuntimeException("Not instantiable!");
         }
+        //a lookup in the side to move's move index, not a scan of every legal move
         public static Move createMove(final Board board,
                                       final int currentCoordinate,
                                       final int destinatinoCoordinate){
-            for(final Move move: board.getAllLegalMoves()){
-                if(move.getCurrentCoordinate()== currentCoordinate &&
-                move.getDestinationCoordinate()== destinatinoCoordinate){
-                    return move;
-                }
+            final Move move=board.currentPlayer().findMove(currentCoordinate, destinatinoCoordinate);
+            return move != null ? move : NULL_MOVE;
+        }
+        public static Move createMove(final Board board,
+                                      final int currentCoordinate,
+                                      final int destinationCoordinate,
+                                      final PieceType promotionType){
+            final Move move=board.currentPlayer().findMove(currentCoordinate, destinationCoordinate, promotionType);
+            return move != null ? move : NULL_MOVE;
+        }
+        //the object view of a MoveEncoding int generated for this board
+        public static Move createMove(final Board board,
+                                      final int encodedMove){
+            final Piece movedPiece=board.getPiece(MoveEncoding.getCurrentCoordinate(encodedMove));
+            if(movedPiece == null){
+                return NULL_MOVE;
+            }
+            return createMove(board, movedPiece, encodedMove);
+        }
+        public static Move createMove(final Board board,
+                                      final Piece movedPiece,
+                                      final int encodedMove){
+            final int destinationCoordinate=MoveEncoding.getDestinationCoordinate(encodedMove);
+            final int flags=MoveEncoding.getFlags(encodedMove);
+            if(MoveEncoding.isPromotion(encodedMove)){
+                final Move pawnMove=MoveEncoding.isCapture(encodedMove) ?
+                        new PawnAttackMove(board, movedPiece, destinationCoordinate, board.getPiece(destinationCoordinate)) :
+                        new PawnMove(board, movedPiece, destinationCoordinate);
+                return new PawnPromotion(pawnMove, PieceUtils.getPiece(MoveEncoding.getPromotionType(encodedMove),
+                                                                       movedPiece.getPieceAlliance(),
+                                                                       destinationCoordinate,
+                                                                       false));
+            }
+            final boolean isPawn=movedPiece.getPieceType() == PieceType.PAWN;
+            switch(flags){
+                case MoveEncoding.PAWN_JUMP:
+                    return new PawnJump(board, movedPiece, destinationCoordinate);
+                case MoveEncoding.EN_PASSANT_CAPTURE:
+                    return new PawnEnPassantAttackMove(board, movedPiece, destinationCoordinate, board.getEnPassantPawn());
+                case MoveEncoding.KING_SIDE_CASTLE:
+                    return new KingSideCastleMove(board, movedPiece, destinationCoordinate,
+                                                  (Rook) board.getPiece(destinationCoordinate + 1),
+                                                  destinationCoordinate + 1, destinationCoordinate - 1);
+                case MoveEncoding.QUEEN_SIDE_CASTLE:
+                    return new QueenSideCastleMove(board, movedPiece, destinationCoordinate,
+                                                   (Rook) board.getPiece(destinationCoordinate - 2),
+                                                   destinationCoordinate - 2, destinationCoordinate + 1);
+                case MoveEncoding.CAPTURE:
+                    final Piece attackedPiece=board.getPiece(destinationCoordinate);
+                    return isPawn ? new PawnAttackMove(board, movedPiece, destinationCoordinate, attackedPiece) :
+                                    new AttackMove(board, movedPiece, destinationCoordinate, attackedPiece);
+                default:
+                    return isPawn ? new PawnMove(board, movedPiece, destinationCoordinate) :
+                                    new MajorMove(board, movedPiece, destinationCoordinate);
             }
-            return NULL_MOVE;
         }
 
     }
@@ -0,0 +1,108 @@
+package com.chess.engine.board;
+
+import com.chess.engine.pieces.Piece.PieceType;
+
+//moves packed into an int, shared by the search board, the move generators and the transposition table
+//bits 0-5 the current tile, bits 6-11 the destination tile, bits 12-15 the move flags,
+//bits 16-18 the captured piece type (ordinal + 1, 0 for none)
+//the low 16 bits alone identify a move in its position, the captured type is there for move ordering
+public final class MoveEncoding {
+
+    public static final int NO_MOVE = 0;
+
+    public static final int QUIET_MOVE = 0;
+    public static final int PAWN_JUMP = 1;
+    public static final int KING_SIDE_CASTLE = 2;
+    public static final int QUEEN_SIDE_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT_CAPTURE = 5;
+    //promotion flags carry the piece in the low two bits, captures add the capture bit
+    public static final int KNIGHT_PROMOTION = 8;
+    public static final int BISHOP_PROMOTION = 9;
+    public static final int ROOK_PROMOTION = 10;
+    public static final int QUEEN_PROMOTION = 11;
+
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    private static final PieceType[] PROMOTION_TYPES = {PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    private MoveEncoding() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static int encode(final int currentCoordinate, final int destinationCoordinate, final int flags) {
+        return currentCoordinate | (destinationCoordinate << 6) | (flags << 12);
+    }
+
+    public static int encode(final int currentCoordinate,
+                             final int destinationCoordinate,
+                             final int flags,
+                             final PieceType capturedType) {
+        return encode(currentCoordinate, destinationCoordinate, flags, capturedType == null ? -1 : capturedType.ordinal());
+    }
+
+    //captured type as a PieceType ordinal, -1 for none
+    static int encode(final int currentCoordinate,
+                      final int destinationCoordinate,
+                      final int flags,
+                      final int capturedType) {
+        return encode(currentCoordinate, destinationCoordinate, flags) | ((capturedType + 1) << 16);
+    }
+
+    public static int getCurrentCoordinate(final int move) {
+        return move & 0x3F;
+    }
+
+    public static int getDestinationCoordinate(final int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int getFlags(final int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    //the move without the captured type, enough to find it among the moves of its position
+    public static int getKey(final int move) {
+        return move & 0xFFFF;
+    }
+
+    public static boolean isCapture(final int move) {
+        return (getFlags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(final int move) {
+        return (getFlags(move) & KNIGHT_PROMOTION) != 0;
+    }
+
+    public static boolean isCastle(final int move) {
+        final int flags = getFlags(move);
+        return flags == KING_SIDE_CASTLE || flags == QUEEN_SIDE_CASTLE;
+    }
+
+    public static PieceType getPromotionType(final int move) {
+        return isPromotion(move) ? PROMOTION_TYPES[getFlags(move) & 3] : null;
+    }
+
+    //the promotion flag for a piece type, without the capture bit
+    public static int promotionFlag(final PieceType promotionType) {
+        for(int i = 0; i < PROMOTION_TYPES.length; i++){
+            if(PROMOTION_TYPES[i] == promotionType){
+                return KNIGHT_PROMOTION | i;
+            }
+        }
+        throw new RuntimeException("Cannot promote to " + promotionType);
+    }
+
+    //null for moves that capture nothing
+    public static PieceType getCapturedType(final int move) {
+        final int capturedType = (move >>> 16) & 0x7;
+        return capturedType == 0 ? null : PIECE_TYPES[capturedType - 1];
+    }
+
+    //coordinate notation, e.g. e2e4 or e7e8q
+    public static String toString(final int move) {
+        final String notation = BoardUtils.getPositionAtCoordinate(getCurrentCoordinate(move)) +
+                                BoardUtils.getPositionAtCoordinate(getDestinationCoordinate(move));
+        final PieceType promotionType = getPromotionType(move);
+        return promotionType == null ? notation : notation + promotionType.toString().toLowerCase();
+    }
+}
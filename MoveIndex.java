@@ -0,0 +1,102 @@
+package com.chess.engine.board;
+
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.util.Collection;
+
+//finds a move by its tiles in constant time: a 64x64 bitset of (current, destination) pairs
+//plus the moves in one array sorted by current tile, then destination tile
+//a move's slot is the number of pairs before it on its current tile, which is a popcount of that tile's row
+//promotion pairs hold four moves, queen first, so they are counted again in a second bitset
+public final class MoveIndex {
+
+    private static final int PROMOTIONS_PER_PAIR = 4;
+
+    private final long[] destinations = new long[BoardUtils.NUM_TILES];
+    private final long[] promotionDestinations = new long[BoardUtils.NUM_TILES];
+    private final int[] firstSlots = new int[BoardUtils.NUM_TILES];
+    private final Move[] moves;
+
+    public MoveIndex(final Collection<Move> moves) {
+        final int[] movesPerTile = new int[BoardUtils.NUM_TILES];
+        for(final Move move : moves){
+            final int currentCoordinate = move.getCurrentCoordinate();
+            final long destinationBit = BitBoard.squareBit(move.getDestinationCoordinate());
+            if((this.destinations[currentCoordinate] & destinationBit) == 0){
+                this.destinations[currentCoordinate] |= destinationBit;
+                if(move instanceof Move.PawnPromotion){
+                    this.promotionDestinations[currentCoordinate] |= destinationBit;
+                    movesPerTile[currentCoordinate] += PROMOTIONS_PER_PAIR;
+                } else {
+                    movesPerTile[currentCoordinate]++;
+                }
+            }
+        }
+        int slot = 0;
+        for(int tile = 0; tile < BoardUtils.NUM_TILES; tile++){
+            this.firstSlots[tile] = slot;
+            slot += movesPerTile[tile];
+        }
+        this.moves = new Move[slot];
+        for(final Move move : moves){
+            int moveSlot = slotOf(move.getCurrentCoordinate(), move.getDestinationCoordinate());
+            if(move instanceof Move.PawnPromotion){
+                moveSlot += promotionOffset(((Move.PawnPromotion) move).getPromotionPiece().getPieceType());
+            }
+            this.moves[moveSlot] = move;
+        }
+    }
+
+    //a plain from/to move promotes to a queen, null if there is no such move
+    public Move getMove(final int currentCoordinate, final int destinationCoordinate) {
+        return getMove(currentCoordinate, destinationCoordinate, null);
+    }
+
+    public Move getMove(final int currentCoordinate, final int destinationCoordinate, final PieceType promotionType) {
+        if(!BoardUtils.isValidTileCoordinate(currentCoordinate) || !BoardUtils.isValidTileCoordinate(destinationCoordinate)){
+            return null;
+        }
+        final long destinationBit = BitBoard.squareBit(destinationCoordinate);
+        if((this.destinations[currentCoordinate] & destinationBit) == 0){
+            return null;
+        }
+        final int slot = slotOf(currentCoordinate, destinationCoordinate);
+        if((this.promotionDestinations[currentCoordinate] & destinationBit) == 0){
+            return promotionType == null ? this.moves[slot] : null;
+        }
+        return this.moves[slot + promotionOffset(promotionType == null ? PieceType.QUEEN : promotionType)];
+    }
+
+    public boolean contains(final Move move) {
+        final PieceType promotionType = move instanceof Move.PawnPromotion ?
+                ((Move.PawnPromotion) move).getPromotionPiece().getPieceType() : null;
+        final Move indexedMove = getMove(move.getCurrentCoordinate(), move.getDestinationCoordinate(), promotionType);
+        return indexedMove != null && indexedMove.equals(move);
+    }
+
+    public int size() {
+        return this.moves.length;
+    }
+
+    private int slotOf(final int currentCoordinate, final int destinationCoordinate) {
+        final long lowerDestinations = BitBoard.squareBit(destinationCoordinate) - 1;
+        return this.firstSlots[currentCoordinate] +
+               Long.bitCount(this.destinations[currentCoordinate] & lowerDestinations) +
+               (PROMOTIONS_PER_PAIR - 1) * Long.bitCount(this.promotionDestinations[currentCoordinate] & lowerDestinations);
+    }
+
+    private static int promotionOffset(final PieceType promotionType) {
+        switch(promotionType){
+            case QUEEN:
+                return 0;
+            case ROOK:
+                return 1;
+            case BISHOP:
+                return 2;
+            case KNIGHT:
+                return 3;
+            default:
+                throw new RuntimeException("Cannot promote to " + promotionType);
+        }
+    }
+}
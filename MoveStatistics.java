@@ -0,0 +1,51 @@
+package com.chess.archive;
+
+import com.chess.engine.board.Move;
+
+//how the archived games that played a move from a position ended
+public final class MoveStatistics {
+
+    private final Move move;
+    private final int whiteWins;
+    private final int draws;
+    private final int blackWins;
+    private final int unfinished;
+
+    MoveStatistics(final Move move, final int whiteWins, final int draws, final int blackWins, final int unfinished) {
+        this.move = move;
+        this.whiteWins = whiteWins;
+        this.draws = draws;
+        this.blackWins = blackWins;
+        this.unfinished = unfinished;
+    }
+
+    public Move getMove() {
+        return this.move;
+    }
+
+    public int getWhiteWins() {
+        return this.whiteWins;
+    }
+
+    public int getDraws() {
+        return this.draws;
+    }
+
+    public int getBlackWins() {
+        return this.blackWins;
+    }
+
+    public int getUnfinished() {
+        return this.unfinished;
+    }
+
+    public int getGameCount() {
+        return this.whiteWins + this.draws + this.blackWins + this.unfinished;
+    }
+
+    //white's share of the points of the finished games, 0.5 if none finished
+    public double getWhiteScore() {
+        final int finished = this.whiteWins + this.draws + this.blackWins;
+        return finished == 0 ? 0.5 : (this.whiteWins + this.draws * 0.5) / finished;
+    }
+}
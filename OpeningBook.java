@@ -0,0 +1,169 @@
+package com.chess.engine.book;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//a Polyglot .bin opening book: 16 byte big endian entries of key, move, weight and learn, sorted by the key unsigned
+//the file is memory mapped and a position's entries are found by a binary search on its key, so the heap holds
+//nothing of the book and processes that open the same book share its pages. entries are read as they are needed,
+//a lookup allocates only what it returns
+//a mapped buffer is limited to 2 gigabytes, the file is mapped in segments of whole entries
+public final class OpeningBook implements Closeable {
+
+    static final int ENTRY_SIZE = 16;
+    private static final int SEGMENT_SIZE = 1 << 30;
+    private static final int ENTRIES_PER_SEGMENT = SEGMENT_SIZE / ENTRY_SIZE;
+
+    private final Path path;
+    private final PolyglotKeys keys;
+    private final FileChannel channel;
+    private final long entryCount;
+    private final MappedByteBuffer[] segments;
+
+    private OpeningBook(final Path path, final PolyglotKeys keys, final FileChannel channel) throws IOException {
+        this.path = path;
+        this.keys = keys;
+        this.channel = channel;
+        final long size = channel.size();
+        if(size % ENTRY_SIZE != 0){
+            throw new IOException(path + " is " + size + " bytes, not a whole number of book entries");
+        }
+        this.entryCount = size / ENTRY_SIZE;
+        final int segmentCount = (int) ((this.entryCount + ENTRIES_PER_SEGMENT - 1) / ENTRIES_PER_SEGMENT);
+        this.segments = new MappedByteBuffer[segmentCount];
+        for(int i = 0; i < segmentCount; i++){
+            final long first = (long) i * ENTRIES_PER_SEGMENT;
+            this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * ENTRY_SIZE,
+                                           Math.min(ENTRIES_PER_SEGMENT, this.entryCount - first) * ENTRY_SIZE);
+        }
+    }
+
+    public static OpeningBook open(final Path path) throws IOException {
+        return open(path, PolyglotKeys.getDefault());
+    }
+
+    public static OpeningBook open(final Path path, final PolyglotKeys keys) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new OpeningBook(path, keys, channel);
+        } catch(final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    public PolyglotKeys getKeys() {
+        return this.keys;
+    }
+
+    public long getEntryCount() {
+        return this.entryCount;
+    }
+
+    //only the key and the search, the board's moves are not needed for it
+    public boolean contains(final Board board) {
+        return findFirst(this.keys.getKey(board)) >= 0;
+    }
+
+    //the book's moves for the position in the order of the file, which is by weight in most books
+    //an entry whose move the side to move does not have belongs to another position with the same key, it is left out
+    public List<BookMove> getMoves(final Board board) {
+        final long key = this.keys.getKey(board);
+        final List<BookMove> bookMoves = new ArrayList<>();
+        final long first = findFirst(key);
+        if(first < 0){
+            return bookMoves;
+        }
+        for(long entry = first; entry < this.entryCount && getKey(entry) == key; entry++){
+            final Move move = PolyglotKeys.toMove(board, getMove(entry));
+            if(move != null){
+                bookMoves.add(new BookMove(move, getWeight(entry), getLearn(entry)));
+            }
+        }
+        return bookMoves;
+    }
+
+    //a move picked at random with the odds of the weights, null if the position is not in the book
+    //moves of weight 0 are never picked
+    public Move pickMove(final Board board, final Random random) {
+        final long key = this.keys.getKey(board);
+        final long first = findFirst(key);
+        if(first < 0){
+            return null;
+        }
+        long totalWeight = 0L;
+        long end = first;
+        for(; end < this.entryCount && getKey(end) == key; end++){
+            totalWeight += getWeight(end);
+        }
+        if(totalWeight == 0L){
+            return null;
+        }
+        long pick = (long) (random.nextDouble() * totalWeight);
+        for(long entry = first; entry < end; entry++){
+            pick -= getWeight(entry);
+            if(pick < 0){
+                return PolyglotKeys.toMove(board, getMove(entry));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    //the first entry with the key, -1 if there is none
+    private long findFirst(final long key) {
+        long low = 0;
+        long high = this.entryCount;
+        while(low < high){
+            final long middle = (low + high) >>> 1;
+            if(Long.compareUnsigned(getKey(middle), key) < 0){
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < this.entryCount && getKey(low) == key ? low : -1;
+    }
+
+    private long getKey(final long entry) {
+        return segment(entry).getLong(position(entry));
+    }
+
+    private int getMove(final long entry) {
+        return segment(entry).getShort(position(entry) + 8) & 0xFFFF;
+    }
+
+    private int getWeight(final long entry) {
+        return segment(entry).getShort(position(entry) + 10) & 0xFFFF;
+    }
+
+    private int getLearn(final long entry) {
+        return segment(entry).getInt(position(entry) + 12);
+    }
+
+    private MappedByteBuffer segment(final long entry) {
+        return this.segments[(int) (entry / ENTRIES_PER_SEGMENT)];
+    }
+
+    private static int position(final long entry) {
+        return (int) (entry % ENTRIES_PER_SEGMENT) * ENTRY_SIZE;
+    }
+}
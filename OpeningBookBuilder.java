@@ -0,0 +1,246 @@
+package com.chess.engine.book;
+
+import com.chess.engine.EntrySort;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.pgn.PgnDatabase;
+import com.chess.pgn.PgnGame;
+import com.chess.pgn.PgnGameHandler;
+import com.chess.pgn.PgnLoadListener;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+//builds a Polyglot book from pgn games, which PgnDatabase replays on every core and hands to gameReplayed
+//every move of the first plies of a finished game counts for its position: 2 points for a win of the side that
+//played it, 1 for a draw, and the weight is those points. unfinished games are left out
+//the counts go into hash tables in shards by the top bits of the key, each behind its own lock. the shards hold
+//key ranges in the book's order, so write() sorts them one by one and the book comes out sorted
+//usage: OpeningBookBuilder file.pgn book.bin [--threads N] [--plies N] [--min-games N] [--keys random64.txt]
+public final class OpeningBookBuilder implements PgnGameHandler {
+
+    public static final int DEFAULT_PLIES = 30;
+    //a move played in fewer games is left out of the book
+    public static final int DEFAULT_MIN_GAMES = 3;
+
+    private static final int SHARD_BITS = 6;
+    private static final int MAX_WEIGHT = 0xFFFF;
+    //by key, unsigned like the book's probes, then the most points first
+    private static final EntrySort.EntryOrder ENTRY_ORDER = new EntrySort.EntryOrder() {
+        @Override
+        public int compare(final long firstKey, final long firstValue, final long secondKey, final long secondValue) {
+            final int byKey = Long.compareUnsigned(firstKey, secondKey);
+            return byKey != 0 ? byKey : Long.compare(secondValue, firstValue);
+        }
+    };
+
+    private final PolyglotKeys keys;
+    private final int plies;
+    private final Shard[] shards = new Shard[1 << SHARD_BITS];
+
+    public OpeningBookBuilder(final PolyglotKeys keys, final int plies) {
+        if(plies < 1){
+            throw new IllegalArgumentException("A book needs at least 1 ply, got " + plies);
+        }
+        this.keys = keys;
+        this.plies = plies;
+        for(int i = 0; i < this.shards.length; i++){
+            this.shards[i] = new Shard();
+        }
+    }
+
+    public static void main(final String[] args) throws IOException {
+        String pgnFile = null;
+        String bookFile = null;
+        String keysFile = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int plies = DEFAULT_PLIES;
+        int minGames = DEFAULT_MIN_GAMES;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--threads") && i + 1 < args.length){
+                threads = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("--plies") && i + 1 < args.length){
+                plies = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("--min-games") && i + 1 < args.length){
+                minGames = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("--keys") && i + 1 < args.length){
+                keysFile = args[++i];
+            } else if(pgnFile == null && !args[i].startsWith("--")){
+                pgnFile = args[i];
+            } else if(bookFile == null && !args[i].startsWith("--")){
+                bookFile = args[i];
+            } else {
+                throw new RuntimeException("Unknown argument: " + args[i]);
+            }
+        }
+        if(bookFile == null){
+            throw new RuntimeException("Usage: OpeningBookBuilder file.pgn book.bin [--threads N] [--plies N] " +
+                                       "[--min-games N] [--keys random64.txt]");
+        }
+        final String sourceFile = pgnFile;
+        final int loadThreads = threads;
+        final PolyglotKeys keys = keysFile == null ? PolyglotKeys.getDefault() : PolyglotKeys.load(Paths.get(keysFile));
+        final OpeningBookBuilder builder = new OpeningBookBuilder(keys, plies);
+        final long start = System.nanoTime();
+        try(final PgnDatabase database = PgnDatabase.open(Paths.get(sourceFile))){
+            database.load(loadThreads, new PgnLoadListener() {
+                @Override
+                public void gamesIndexed(final int gameCount) {
+                }
+
+                @Override
+                public void gamesReplayed(final int replayed, final int rejected) {
+                }
+
+                @Override
+                public void loadFinished(final int gameCount, final int rejected, final long millis) {
+                    System.out.println(String.format("%d games replayed, %d rejected, %d ms on %d threads",
+                            gameCount, rejected, millis, loadThreads));
+                }
+
+                @Override
+                public void loadFailed(final Exception exception) {
+                    throw new RuntimeException("Reading " + sourceFile + " failed", exception);
+                }
+            }, builder);
+        }
+        final long entries = builder.write(Paths.get(bookFile), minGames);
+        System.out.println(String.format("%d book entries written to %s, %d ms", entries, bookFile,
+                (System.nanoTime() - start) / 1_000_000));
+    }
+
+    @Override
+    public void gameReplayed(final PgnGame game, final List<Board> boards, final List<Move> moves) {
+        final String result = game.getTag("Result");
+        //the points of a white move, black's are 2 - whitePoints
+        final int whitePoints;
+        if("1-0".equals(result)){
+            whitePoints = 2;
+        } else if("0-1".equals(result)){
+            whitePoints = 0;
+        } else if("1/2-1/2".equals(result)){
+            whitePoints = 1;
+        } else {
+            return;
+        }
+        final int bookPlies = Math.min(this.plies, moves.size());
+        for(int ply = 0; ply < bookPlies; ply++){
+            final Board board = boards.get(ply);
+            final long key = this.keys.getKey(board);
+            final int points = board.currentPlayer().getAlliance().isWhite() ? whitePoints : 2 - whitePoints;
+            this.shards[(int) (key >>> (Long.SIZE - SHARD_BITS))].add(key, PolyglotKeys.toPolyglotMove(moves.get(ply)), points);
+        }
+    }
+
+    //writes every move played in at least minGames games, returns the number of entries
+    //a position whose points do not fit in the 16 bit weight has its weights scaled down
+    public long write(final Path path, final int minGames) throws IOException {
+        long entries = 0L;
+        try(final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 20))){
+            for(final Shard shard : this.shards){
+                entries += shard.write(out, minGames);
+            }
+        }
+        return entries;
+    }
+
+    //an open addressing table of key and move to games and points
+    private static final class Shard {
+
+        private static final int INITIAL_CAPACITY = 1 << 10;
+
+        //guarded by this, a move of 0 marks an empty slot, no move goes from a1 to a1
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private int[] moves = new int[INITIAL_CAPACITY];
+        private int[] games = new int[INITIAL_CAPACITY];
+        private int[] points = new int[INITIAL_CAPACITY];
+        private int size;
+
+        synchronized void add(final long key, final int move, final int movePoints) {
+            int slot = find(this.keys, this.moves, key, move);
+            if(this.moves[slot] == 0){
+                //at most two thirds full
+                if((this.size + 1) * 3 > this.keys.length * 2){
+                    grow();
+                    slot = find(this.keys, this.moves, key, move);
+                }
+                this.keys[slot] = key;
+                this.moves[slot] = move;
+                this.size++;
+            }
+            this.games[slot]++;
+            this.points[slot] += movePoints;
+        }
+
+        synchronized int write(final DataOutputStream out, final int minGames) throws IOException {
+            //the entries sorted by key unsigned and then by points, the most first
+            final long[] entryKeys = new long[this.size];
+            final long[] entryValues = new long[this.size];
+            int count = 0;
+            for(int slot = 0; slot < this.keys.length; slot++){
+                if(this.moves[slot] != 0 && this.games[slot] >= minGames){
+                    entryKeys[count] = this.keys[slot];
+                    entryValues[count] = (long) this.points[slot] << 16 | this.moves[slot];
+                    count++;
+                }
+            }
+            EntrySort.sort(entryKeys, entryValues, 0, count, ENTRY_ORDER);
+            int first = 0;
+            while(first < count){
+                int end = first;
+                long maxPoints = 0L;
+                while(end < count && entryKeys[end] == entryKeys[first]){
+                    maxPoints = Math.max(maxPoints, entryValues[end] >>> 16);
+                    end++;
+                }
+                for(int i = first; i < end; i++){
+                    final long entryPoints = entryValues[i] >>> 16;
+                    final long weight = maxPoints <= MAX_WEIGHT ? entryPoints :
+                                        Math.max(entryPoints == 0 ? 0 : 1, entryPoints * MAX_WEIGHT / maxPoints);
+                    out.writeLong(entryKeys[i]);
+                    out.writeShort((int) (entryValues[i] & 0xFFFF));
+                    out.writeShort((int) weight);
+                    out.writeInt(0);
+                }
+                first = end;
+            }
+            return count;
+        }
+
+        private void grow() {
+            final long[] oldKeys = this.keys;
+            final int[] oldMoves = this.moves;
+            final int[] oldGames = this.games;
+            final int[] oldPoints = this.points;
+            this.keys = new long[oldKeys.length * 2];
+            this.moves = new int[oldKeys.length * 2];
+            this.games = new int[oldKeys.length * 2];
+            this.points = new int[oldKeys.length * 2];
+            for(int i = 0; i < oldKeys.length; i++){
+                if(oldMoves[i] != 0){
+                    final int slot = find(this.keys, this.moves, oldKeys[i], oldMoves[i]);
+                    this.keys[slot] = oldKeys[i];
+                    this.moves[slot] = oldMoves[i];
+                    this.games[slot] = oldGames[i];
+                    this.points[slot] = oldPoints[i];
+                }
+            }
+        }
+
+        //the slot of the key and move, or the empty slot where they go
+        private static int find(final long[] keys, final int[] moves, final long key, final int move) {
+            final int mask = keys.length - 1;
+            //the top bits picked the shard, the hash comes from the others
+            int slot = (int) (((key ^ move) * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while(moves[slot] != 0 && (keys[slot] != key || moves[slot] != move)){
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
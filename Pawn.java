@@ -1,71 +1,78 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
+import com.chess.engine.board.BitBoard;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.IntMoveList;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Move.MajorMove;
-import com.google.common.collect.ImmutableList;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import com.chess.engine.board.MoveEncoding;
 
 public class Pawn extends Piece{
-    private final static int[] CANDIDATE_MOVE_COORDINATE={7, 8, 9, 16};
-    public Pawn(final Alliance pieceAlliance,
-                final int piecePosition) {
-        super(PieceType.PAWN, piecePosition, pieceAlliance);
+    Pawn(final Alliance pieceAlliance,
+         final int piecePosition,
+         final boolean isFirstMove) {
+        super(PieceType.PAWN, piecePosition, pieceAlliance, isFirstMove);
     }
 
     @Override
-    public Collection<Move> calculateLegalMoves(final Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for(final int currentCandidateOffset:CANDIDATE_MOVE_COORDINATE){
-            final int candidateDestinationCoordinate=this.piecePosition+(this.pieceAlliance.getDirection() * currentCandidateOffset);
-            if(!BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-                continue;
-            }
-            if(currentCandidateOffset == 8 && board.getTile(candidateDestinationCoordinate).isTileOccupied()){
-                //more work to do hither!!!
-                legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
-            }else if(currentCandidateOffset == 16 && this.isFirstMove() &&
-                    (BoardUtils.SEVENTH_RANK[this.piecePosition]) && this.getPieceAlliance().isBlack()||
-                    (BoardUtils.SECOND_RANK[this.piecePosition] && this.getPieceAlliance().isWhite())){
-                final int behindCandidateDestinationCoordinate = this.piecePosition+(this.pieceAlliance.getDirection()*8);
-                if(!board.getTile(behindCandidateDestinationCoordinate).isTileOccupied()&&
-                   !board.getTile(candidateDestinationCoordinate).isTileOccupied()){
-                    legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
-
-                }
-            }else if(currentCandidateOffset == 7&&
-                    !((BoardUtils.EIGHTH_COLUMN[this.piecePosition]&& this.pieceAlliance.isWhite()||
-                    (BoardUtils.FIRST_COLUMN[this.piecePosition]&& this.pieceAlliance.isBlack())))){
-                if(board.getTile(candidateDestinationCoordinate).isTileOccupied()){
-                    final Piece pieceOnCandidate=board.getTile(candidateDestinationCoordinate).getPiece();
-                    if(this.pieceAlliance != pieceOnCandidate.getPieceAlliance()){
-                        //More work to do hither@@@@@@@@@@!@!@!!@!@!(*^&%$^&*&()&^%#$@!
-                        legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
-                    }
-                }
-            }else if(currentCandidateOffset == 9&&
-                    !((BoardUtils.FIRST_COLUMN[this.piecePosition]&& this.pieceAlliance.isWhite()||
-                     (BoardUtils.EIGHTH_COLUMN[this.piecePosition]&& this.pieceAlliance.isBlack())))){
-                if(board.getTile(candidateDestinationCoordinate).isTileOccupied()){
-                    final Piece pieceOnCandidate=board.getTile(candidateDestinationCoordinate).getPiece();
-                    if(this.pieceAlliance != pieceOnCandidate.getPieceAlliance()){
-                        //More work to do hither@@@@@@@@@@!@!@!!@!@!(*^&%$^&*&()&^%#$@!
-                        legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
-                    }
+    public void generateMoves(final Board board, final IntMoveList moves) {
+        final BitBoard bitBoard=board.getBitBoard();
+        final int forwardOffset=this.pieceAlliance.getDirection()*BoardUtils.NUM_TILES_PER_ROW;
+        final int pushDestinationCoordinate=this.piecePosition+forwardOffset;
+        //a pawn can only go forward onto an empty tile, and jump two tiles from its starting rank if both are empty
+        if(BoardUtils.isValidTileCoordinate(pushDestinationCoordinate) && !bitBoard.isOccupied(pushDestinationCoordinate)){
+            if(isPromotionTile(pushDestinationCoordinate)){
+                addPromotions(moves, pushDestinationCoordinate, MoveEncoding.QUIET_MOVE, null);
+            } else{
+                moves.add(MoveEncoding.encode(this.piecePosition, pushDestinationCoordinate, MoveEncoding.QUIET_MOVE));
+                final int jumpDestinationCoordinate=pushDestinationCoordinate+forwardOffset;
+                if(isOnStartingRank() && !bitBoard.isOccupied(jumpDestinationCoordinate)){
+                    moves.add(MoveEncoding.encode(this.piecePosition, jumpDestinationCoordinate, MoveEncoding.PAWN_JUMP));
                 }
             }
         }
-        return ImmutableList.copyOf(legalMoves);
-
+        //captures come straight from the pawn attack table
+        final long attacks=AttackTables.pawnAttacks(this.pieceAlliance, this.piecePosition);
+        long captures=attacks & bitBoard.getOccupancy() & ~bitBoard.getOccupancy(this.pieceAlliance);
+        while(captures != 0){
+            final int attackDestinationCoordinate=Long.numberOfTrailingZeros(captures);
+            captures&=captures-1;
+            final PieceType capturedType=bitBoard.getPieceType(attackDestinationCoordinate);
+            if(isPromotionTile(attackDestinationCoordinate)){
+                addPromotions(moves, attackDestinationCoordinate, MoveEncoding.CAPTURE, capturedType);
+            } else{
+                moves.add(MoveEncoding.encode(this.piecePosition, attackDestinationCoordinate, MoveEncoding.CAPTURE, capturedType));
+            }
+        }
+        //a pawn that just jumped past our attack can be taken on the tile it skipped
+        final Pawn enPassantPawn=board.getEnPassantPawn();
+        if(enPassantPawn != null && enPassantPawn.getPieceAlliance() != this.pieceAlliance &&
+           (attacks & BitBoard.squareBit(board.getEnPassantSquare())) != 0){
+            moves.add(MoveEncoding.encode(this.piecePosition, board.getEnPassantSquare(),
+                                          MoveEncoding.EN_PASSANT_CAPTURE, PieceType.PAWN));
+        }
+    }
+    //the queen goes first so it is what a plain from/to move promotes to
+    private void addPromotions(final IntMoveList moves,
+                               final int promotionCoordinate,
+                               final int captureFlag,
+                               final PieceType capturedType){
+        for(int promotion=MoveEncoding.QUEEN_PROMOTION; promotion>=MoveEncoding.KNIGHT_PROMOTION; promotion--){
+            moves.add(MoveEncoding.encode(this.piecePosition, promotionCoordinate, promotion | captureFlag, capturedType));
+        }
+    }
+    private static boolean isPromotionTile(final int tileCoordinate){
+        return BoardUtils.EIGHTH_RANK[tileCoordinate] || BoardUtils.FIRST_RANK[tileCoordinate];
+    }
+    private boolean isOnStartingRank(){
+        return this.pieceAlliance.isWhite() ? BoardUtils.SECOND_RANK[this.piecePosition] :
+                                              BoardUtils.SEVENTH_RANK[this.piecePosition];
     }
     @Override
     public Pawn movePiece(final Move move) {
-        return new Pawn(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate());
+        return (Pawn) PieceUtils.getPiece(PieceType.PAWN, move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(), false);
     }
     @Override
     public String toString(){
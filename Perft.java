@@ -0,0 +1,106 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.IntMoveList;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.Move.PawnPromotion;
+import com.chess.engine.board.MoveEncoding;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.player.MoveTransition;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//counts the leaf positions of the legal move tree, the standard check for move generation
+public final class Perft {
+
+    private Perft() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    //walks the tree through Player.makeMove, exactly like a game played in the gui
+    public static long perft(final Board board, final int depth) {
+        if(depth == 0){
+            return 1L;
+        }
+        //the players only hand out legal moves, so the last ply is just counted
+        if(depth == 1){
+            return board.currentPlayer().getLegalMoves().size();
+        }
+        long nodes = 0L;
+        for(final Move move : board.currentPlayer().getLegalMoves()){
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if(transition.getMoveStatus().isDone()){
+                nodes += perft(transition.getTransitionBoard(), depth - 1);
+            }
+        }
+        return nodes;
+    }
+
+    //the node count below every legal root move, to find the move a wrong count comes from
+    public static Map<String, Long> perftDivide(final Board board, final int depth) {
+        final Map<String, Long> divide = new LinkedHashMap<>();
+        for(final Move move : board.currentPlayer().getLegalMoves()){
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if(transition.getMoveStatus().isDone()){
+                divide.put(moveNotation(move), perft(transition.getTransitionBoard(), depth - 1));
+            }
+        }
+        return divide;
+    }
+
+    //the same walk on a SearchBoard with make/unmake, the board is back in its start position afterwards
+    public static long perft(final SearchBoard board, final int depth) {
+        return perft(board, depth, createMoveLists(depth));
+    }
+
+    private static long perft(final SearchBoard board, final int depth, final IntMoveList[] moveLists) {
+        if(depth == 0){
+            return 1L;
+        }
+        final IntMoveList moves = moveLists[depth];
+        moves.clear();
+        board.generatePseudoLegalMoves(moves);
+        long nodes = 0L;
+        for(int i = 0; i < moves.size(); i++){
+            if(board.makeMove(moves.get(i))){
+                nodes += perft(board, depth - 1, moveLists);
+                board.unmakeMove();
+            }
+        }
+        return nodes;
+    }
+
+    public static Map<String, Long> perftDivide(final SearchBoard board, final int depth) {
+        final Map<String, Long> divide = new LinkedHashMap<>();
+        final IntMoveList[] moveLists = createMoveLists(depth);
+        final IntMoveList moves = new IntMoveList();
+        board.generatePseudoLegalMoves(moves);
+        for(int i = 0; i < moves.size(); i++){
+            if(board.makeMove(moves.get(i))){
+                divide.put(MoveEncoding.toString(moves.get(i)), perft(board, depth - 1, moveLists));
+                board.unmakeMove();
+            }
+        }
+        return divide;
+    }
+
+    //coordinate notation as used by perft tools, e.g. e2e4 or e7e8q
+    public static String moveNotation(final Move move) {
+        final String notation = BoardUtils.getPositionAtCoordinate(move.getCurrentCoordinate()) +
+                                BoardUtils.getPositionAtCoordinate(move.getDestinationCoordinate());
+        if(move instanceof PawnPromotion){
+            return notation + ((PawnPromotion) move).getPromotionPiece().toString().toLowerCase();
+        }
+        return notation;
+    }
+
+    private static IntMoveList[] createMoveLists(final int depth) {
+        final IntMoveList[] moveLists = new IntMoveList[depth + 1];
+        for(int i = 0; i <= depth; i++){
+            moveLists[i] = new IntMoveList();
+        }
+        return moveLists;
+    }
+}
@@ -0,0 +1,112 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.SearchBoard;
+import com.chess.pgn.FenUtilities;
+
+import java.util.Map;
+
+//runs perft on the standard test positions and compares the node counts with the published ones
+//usage: PerftRunner [--depth N] [--search-board] [--divide]
+public final class PerftRunner {
+
+    private PerftRunner() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    //expected node counts from depth 1 upwards
+    public enum PerftPosition {
+        INITIAL("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                20L, 400L, 8902L, 197281L, 4865609L, 119060324L),
+        KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                48L, 2039L, 97862L, 4085603L, 193690690L),
+        POSITION_3("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                14L, 191L, 2812L, 43238L, 674624L, 11030083L),
+        POSITION_4("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                6L, 264L, 9467L, 422333L, 15833292L),
+        POSITION_5("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                44L, 1486L, 62379L, 2103487L, 89941194L),
+        POSITION_6("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                46L, 2079L, 89890L, 3894594L, 164075551L);
+
+        private final String fen;
+        private final long[] expectedNodes;
+
+        PerftPosition(final String fen, final long... expectedNodes) {
+            this.fen = fen;
+            this.expectedNodes = expectedNodes;
+        }
+
+        public String getFen() {
+            return this.fen;
+        }
+
+        public int getMaxDepth() {
+            return this.expectedNodes.length;
+        }
+
+        public long getExpectedNodes(final int depth) {
+            return this.expectedNodes[depth - 1];
+        }
+    }
+
+    public static void main(final String[] args) {
+        int depth = 3;
+        boolean useSearchBoard = false;
+        boolean divide = false;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--depth") && i + 1 < args.length){
+                depth = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("--search-board")){
+                useSearchBoard = true;
+            } else if(args[i].equals("--divide")){
+                divide = true;
+            } else {
+                throw new RuntimeException("Unknown argument: " + args[i]);
+            }
+        }
+        if(depth < 1){
+            throw new RuntimeException("Depth has to be at least 1, got " + depth);
+        }
+        System.out.println("perft over " + (useSearchBoard ? "SearchBoard" : "Board") + ", depth " + depth);
+        boolean passed = true;
+        long totalNodes = 0L;
+        long totalNanos = 0L;
+        for(final PerftPosition position : PerftPosition.values()){
+            final int positionDepth = Math.min(depth, position.getMaxDepth());
+            final Board board = FenUtilities.createGameFromFEN(position.getFen());
+            if(divide){
+                printDivide(board, positionDepth, useSearchBoard);
+            }
+            final long start = System.nanoTime();
+            final long nodes = useSearchBoard ? Perft.perft(new SearchBoard(board), positionDepth) :
+                                                Perft.perft(board, positionDepth);
+            final long nanos = System.nanoTime() - start;
+            final long expected = position.getExpectedNodes(positionDepth);
+            final boolean ok = nodes == expected;
+            passed &= ok;
+            totalNodes += nodes;
+            totalNanos += nanos;
+            System.out.println(String.format("%-10s depth %d %12d nodes %s %8d ms %12d nps",
+                    position, positionDepth, nodes, ok ? "OK  " : "FAIL (expected " + expected + ")",
+                    nanos / 1_000_000, nodesPerSecond(nodes, nanos)));
+        }
+        System.out.println(String.format("total %d nodes in %d ms, %d nps",
+                totalNodes, totalNanos / 1_000_000, nodesPerSecond(totalNodes, totalNanos)));
+        if(!passed){
+            System.exit(1);
+        }
+    }
+
+    private static void printDivide(final Board board, final int depth, final boolean useSearchBoard) {
+        final Map<String, Long> divide = useSearchBoard ? Perft.perftDivide(new SearchBoard(board), depth) :
+                                                          Perft.perftDivide(board, depth);
+        for(final Map.Entry<String, Long> entry : divide.entrySet()){
+            System.out.println("  " + entry.getKey() + ": " + entry.getValue());
+        }
+    }
+
+    private static long nodesPerSecond(final long nodes, final long nanos) {
+        return nanos == 0 ? 0L : nodes * 1_000_000_000L / nanos;
+    }
+}
@@ -0,0 +1,283 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+//a pgn file of any size, read through memory mapped windows of the file and never as a whole
+//load() splits the games at their tag sections and hands them in batches to a pool of threads that replay them,
+//the games are readable by number as soon as they are indexed. the index only keeps where each game starts,
+//in blocks of offsets relative to the block's first game, so it costs four bytes a game
+//memory stays bounded: a window is 64 megabytes of mapping and only a few batches per thread wait at a time
+public final class PgnDatabase implements Closeable {
+
+    private static final int BATCH_SIZE = 256;
+    private static final int BLOCK_SHIFT = 12;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int windowSize;
+    //guarded by this
+    private long[] blockBases = new long[16];
+    private int[][] blocks = new int[16][];
+    private int gameCount;
+    private long indexedEnd;
+    private boolean isLoading;
+
+    private PgnDatabase(final Path path, final FileChannel channel, final int windowSize) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    public static PgnDatabase open(final Path path) throws IOException {
+        return open(path, MappedBatchReader.WINDOW_SIZE);
+    }
+
+    //small windows let a test go through many of them with a small file
+    static PgnDatabase open(final Path path, final int windowSize) throws IOException {
+        return new PgnDatabase(path, FileChannel.open(path, StandardOpenOption.READ), windowSize);
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    public synchronized int getGameCount() {
+        return this.gameCount;
+    }
+
+    //reads the game's bytes from the file, for games that are looked at one by one
+    public PgnGame getGame(final int gameNumber) throws IOException {
+        final long start;
+        final long end;
+        synchronized(this){
+            if(gameNumber < 0 || gameNumber >= this.gameCount){
+                throw new IndexOutOfBoundsException("Game " + gameNumber + " of " + this.gameCount);
+            }
+            start = gameOffset(gameNumber);
+            end = gameNumber + 1 < this.gameCount ? gameOffset(gameNumber + 1) : this.indexedEnd;
+        }
+        final ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        while(bytes.hasRemaining()){
+            if(this.channel.read(bytes, start + bytes.position()) < 0){
+                throw new IOException("Unexpected end of " + this.path);
+            }
+        }
+        return new PgnGame(gameNumber, bytes, 0, bytes.capacity());
+    }
+
+    //blocks until every game is indexed and replayed, progress goes to the listener
+    public void load(final int threads, final PgnLoadListener listener) {
+        load(threads, listener, null);
+    }
+
+    //the same, and every game that replays without an illegal move is handed to the handler, which may be null
+    public void load(final int threads, final PgnLoadListener listener, final PgnGameHandler handler) {
+        if(threads < 1){
+            throw new IllegalArgumentException("Loading needs at least 1 thread, got " + threads);
+        }
+        synchronized(this){
+            if(this.isLoading || this.gameCount > 0){
+                throw new IllegalStateException(this.path + " is already loaded");
+            }
+            this.isLoading = true;
+        }
+        final long startTime = System.nanoTime();
+        final AtomicInteger replayed = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        //the first exception a handler throws, it fails the load once the running batches are done
+        final AtomicReference<RuntimeException> handlerFailure = new AtomicReference<>();
+        try {
+            new MappedBatchReader(this.channel, this.windowSize, BATCH_SIZE).read(threads, "pgn-replay",
+                    new MappedBatchReader.UnitFinder() {
+                @Override
+                public int[] findUnits(final MappedByteBuffer window, final int length, final boolean isLastWindow,
+                                       final int[] units) {
+                    return findGames(window, length, isLastWindow, units);
+                }
+            }, new MappedBatchReader.BatchFactory() {
+                @Override
+                public Runnable createBatch(final MappedByteBuffer window, final long windowStart, final int[] bounds) {
+                    final int firstGameNumber = addGames(windowStart, bounds);
+                    listener.gamesIndexed(firstGameNumber + bounds.length - 1);
+                    //a handler failure stops the indexing at the next batch
+                    if(handlerFailure.get() != null){
+                        return null;
+                    }
+                    return new Runnable() {
+                        @Override
+                        public void run() {
+                            if(handlerFailure.get() != null){
+                                return;
+                            }
+                            int batchRejected = 0;
+                            final List<Board> boards = handler == null ? null : new ArrayList<Board>();
+                            final List<Move> moves = handler == null ? null : new ArrayList<Move>();
+                            for(int i = 0; i + 1 < bounds.length && handlerFailure.get() == null; i++){
+                                final PgnGame game = new PgnGame(firstGameNumber + i, window, bounds[i], bounds[i + 1]);
+                                try {
+                                    if(handler != null){
+                                        boards.clear();
+                                        moves.clear();
+                                    }
+                                    game.replay(boards, moves);
+                                } catch(final RuntimeException e) {
+                                    batchRejected++;
+                                    continue;
+                                }
+                                if(handler != null){
+                                    try {
+                                        handler.gameReplayed(game, boards, moves);
+                                    } catch(final RuntimeException e) {
+                                        handlerFailure.compareAndSet(null, e);
+                                    }
+                                }
+                            }
+                            listener.gamesReplayed(replayed.addAndGet(bounds.length - 1),
+                                                   rejected.addAndGet(batchRejected));
+                        }
+                    };
+                }
+            });
+            if(handlerFailure.get() != null){
+                listener.loadFailed(handlerFailure.get());
+                return;
+            }
+            listener.loadFinished(getGameCount(), rejected.get(), (System.nanoTime() - startTime) / 1_000_000);
+        } catch(final IOException e) {
+            listener.loadFailed(e);
+        } catch(final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            listener.loadFailed(e);
+        } finally {
+            synchronized(this){
+                this.isLoading = false;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    //the games of a window for the reader: the last one ends in a later window unless this is the end of the file,
+    //a window without a whole game is skipped up to its first game, or grows when that game starts it
+    private static int[] findGames(final ByteBuffer window, final int length, final boolean isLastWindow, int[] units) {
+        units = findGameStarts(window, length, units);
+        final int startCount = units[0];
+        if(startCount == 0){
+            //no game here at all
+            units[1] = length;
+            return units;
+        }
+        if(isLastWindow){
+            if(startCount + 1 == units.length){
+                units = Arrays.copyOf(units, units.length * 2);
+            }
+            units[startCount + 1] = length;
+        } else {
+            //the start of the last game is the end of the one before, and where the next window starts
+            units[0] = startCount - 1;
+        }
+        return units;
+    }
+
+    //the tags of a game start with a [ at the start of a line, the first one after the moves of the game before
+    //begins the next game. comments can hold a [ at the start of a line, so they are skipped
+    //the count goes in gameStarts[0] and the offsets follow it, the array grows as needed
+    private static int[] findGameStarts(final ByteBuffer window, final int length, int[] gameStarts) {
+        int count = 0;
+        boolean isLineStart = true;
+        boolean hasMoves = true;
+        int position = 0;
+        while(position < length){
+            final byte b = window.get(position);
+            if(b == '\n'){
+                isLineStart = true;
+                position++;
+                continue;
+            }
+            if(isLineStart && (b == '[' || b == '%')){
+                if(b == '[' && hasMoves){
+                    if(++count == gameStarts.length){
+                        gameStarts = Arrays.copyOf(gameStarts, gameStarts.length * 2);
+                    }
+                    gameStarts[count] = position;
+                    hasMoves = false;
+                }
+                position = skipLine(window, position, length);
+                continue;
+            }
+            isLineStart = false;
+            if(b == '{'){
+                while(position < length && window.get(position) != '}'){
+                    position++;
+                }
+            } else if(b == ';'){
+                position = skipLine(window, position, length);
+                continue;
+            } else if(!PgnTokenizer.isWhitespace(b) && count > 0){
+                hasMoves = true;
+            }
+            position++;
+        }
+        gameStarts[0] = count;
+        return gameStarts;
+    }
+
+    //to the line break, which is left for the caller
+    private static int skipLine(final ByteBuffer window, int position, final int length) {
+        while(position < length && window.get(position) != '\n'){
+            position++;
+        }
+        return position;
+    }
+
+    //bounds holds the games' starts in the window and the end of the last one, returns the first game's number
+    private synchronized int addGames(final long windowStart, final int[] bounds) {
+        final int firstGameNumber = this.gameCount;
+        for(int i = 0; i + 1 < bounds.length; i++){
+            final long offset = windowStart + bounds[i];
+            final int block = this.gameCount >>> BLOCK_SHIFT;
+            if(block == this.blocks.length){
+                this.blocks = Arrays.copyOf(this.blocks, block * 2);
+                this.blockBases = Arrays.copyOf(this.blockBases, block * 2);
+            }
+            if(this.blocks[block] == null){
+                this.blocks[block] = new int[BLOCK_SIZE];
+                this.blockBases[block] = offset;
+            }
+            final long relative = offset - this.blockBases[block];
+            if(relative > Integer.MAX_VALUE){
+                throw new RuntimeException("Games too long to index in " + this.path);
+            }
+            this.blocks[block][this.gameCount & BLOCK_MASK] = (int) relative;
+            this.gameCount++;
+        }
+        this.indexedEnd = windowStart + bounds[bounds.length - 1];
+        return firstGameNumber;
+    }
+
+    private long gameOffset(final int gameNumber) {
+        final int block = gameNumber >>> BLOCK_SHIFT;
+        return this.blockBases[block] + this.blocks[block][gameNumber & BLOCK_MASK];
+    }
+}
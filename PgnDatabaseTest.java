@@ -0,0 +1,99 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+//checks that a handler that throws fails a load instead of leaving the indexing waiting for replay threads
+//the file spans many small windows, far more than the batches that may wait, with one replay thread
+//usage: PgnDatabaseTest, exits with 1 if a check fails
+public final class PgnDatabaseTest {
+
+    private static final int GAMES = 2000;
+    private static final int WINDOW_SIZE = 4096;
+    private static final long TIMEOUT_MILLIS = 30_000L;
+
+    private PgnDatabaseTest() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        final Path file = Files.createTempFile("pgn-database-test", ".pgn");
+        try {
+            try(final Writer writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)){
+                for(int i = 0; i < GAMES; i++){
+                    writer.write("[Event \"Test " + i + "\"]\n[Result \"1-0\"]\n\n1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 1-0\n\n");
+                }
+            }
+            final String failure = loadWithFailingHandler(file);
+            if(failure != null){
+                System.out.println("FAILED: " + failure);
+                System.exit(1);
+            }
+            System.out.println("PgnDatabaseTest passed");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    //null if the load ends in loadFailed with the handler's exception
+    private static String loadWithFailingHandler(final Path file) throws IOException, InterruptedException {
+        final RuntimeException handlerException = new RuntimeException("handler failed");
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final AtomicReference<String> finished = new AtomicReference<>();
+        try(final PgnDatabase database = PgnDatabase.open(file, WINDOW_SIZE)){
+            final Thread loader = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    database.load(1, new PgnLoadListener() {
+                        @Override
+                        public void gamesIndexed(final int gameCount) {
+                        }
+
+                        @Override
+                        public void gamesReplayed(final int replayed, final int rejected) {
+                        }
+
+                        @Override
+                        public void loadFinished(final int gameCount, final int rejected, final long millis) {
+                            finished.set("loadFinished with " + gameCount + " games");
+                        }
+
+                        @Override
+                        public void loadFailed(final Exception exception) {
+                            failure.set(exception);
+                        }
+                    }, new PgnGameHandler() {
+                        @Override
+                        public void gameReplayed(final PgnGame game, final List<Board> boards, final List<Move> moves) {
+                            throw handlerException;
+                        }
+                    });
+                }
+            }, "pgn-database-test");
+            loader.setDaemon(true);
+            loader.start();
+            loader.join(TIMEOUT_MILLIS);
+            if(loader.isAlive()){
+                return "load did not return within " + TIMEOUT_MILLIS + " ms";
+            }
+            if(finished.get() != null){
+                return finished.get() + " although the handler threw";
+            }
+            if(failure.get() != handlerException){
+                return "loadFailed got " + failure.get() + " instead of the handler's exception";
+            }
+            if(database.getGameCount() >= GAMES){
+                return "all " + GAMES + " games were indexed after the handler failed";
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,117 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.player.MoveTransition;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//one game of a pgn file, a view of its bytes: nothing is read until a tag is asked for or the game is replayed
+public final class PgnGame {
+
+    private final int gameNumber;
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int end;
+
+    PgnGame(final int gameNumber, final ByteBuffer buffer, final int start, final int end) {
+        this.gameNumber = gameNumber;
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+    }
+
+    //from 0 in the order of the file
+    public int getGameNumber() {
+        return this.gameNumber;
+    }
+
+    //null if the game has no such tag
+    public String getTag(final String tagName) {
+        final PgnTokenizer tokenizer = new PgnTokenizer(this.buffer, this.start, this.end);
+        while(tokenizer.next() == PgnTokenizer.TAG){
+            if(tokenizer.tokenEquals(tagName)){
+                return tokenizer.getValue();
+            }
+        }
+        return null;
+    }
+
+    //every tag in the order of the file
+    public Map<String, String> getTags() {
+        final Map<String, String> tags = new LinkedHashMap<>();
+        final PgnTokenizer tokenizer = new PgnTokenizer(this.buffer, this.start, this.end);
+        while(tokenizer.next() == PgnTokenizer.TAG){
+            tags.put(tokenizer.getToken(), tokenizer.getValue());
+        }
+        return tags;
+    }
+
+    //the board after the last move
+    public Board replay() {
+        return replay(null, null);
+    }
+
+    //the start board and the board after every move
+    public List<Board> replayAll() {
+        final List<Board> boards = new ArrayList<>();
+        replay(boards, null);
+        return boards;
+    }
+
+    //plays every move through the move factory and the player, the first one that is not legal ends it with an exception
+    //a game with a FEN tag starts from that position
+    //boards gets the start board and the board after every move, moves every move, either may be null
+    public Board replay(final List<Board> boards, final List<Move> moves) {
+        final PgnTokenizer tokenizer = new PgnTokenizer(this.buffer, this.start, this.end);
+        String fen = null;
+        int token = tokenizer.next();
+        while(token == PgnTokenizer.TAG){
+            if(tokenizer.tokenEquals("FEN")){
+                fen = tokenizer.getValue();
+            }
+            token = tokenizer.next();
+        }
+        Board board = fen == null ? Board.createStandardBoard() : FenUtilities.createGameFromFEN(fen);
+        if(boards != null){
+            boards.add(board);
+        }
+        int ply = 0;
+        while(token == PgnTokenizer.MOVE){
+            final Move move = SanParser.createMove(board, this.buffer, tokenizer.getTokenStart(), tokenizer.getTokenEnd());
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if(!transition.getMoveStatus().isDone()){
+                throw new RuntimeException("Game " + (this.gameNumber + 1) + ": illegal move " +
+                                           tokenizer.getToken() + " at ply " + (ply + 1));
+            }
+            board = transition.getTransitionBoard();
+            if(boards != null){
+                boards.add(board);
+            }
+            if(moves != null){
+                moves.add(move);
+            }
+            ply++;
+            token = tokenizer.next();
+        }
+        //a tag after the moves means the next game was not split off
+        if(token == PgnTokenizer.TAG){
+            throw new RuntimeException("Game " + (this.gameNumber + 1) + ": tag after the moves");
+        }
+        return board;
+    }
+
+    @Override
+    public String toString() {
+        return (this.gameNumber + 1) + ". " + tagOrUnknown(getTag("White")) + " - " +
+               tagOrUnknown(getTag("Black")) + "  " + tagOrUnknown(getTag("Result"));
+    }
+
+    private static String tagOrUnknown(final String tag) {
+        return tag == null || tag.isEmpty() ? "?" : tag;
+    }
+}
@@ -0,0 +1,14 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+
+import java.util.List;
+
+//gets every game a PgnDatabase load replays without an illegal move, on the replay threads
+public interface PgnGameHandler {
+
+    //boards holds the start board and the board after every move, moves every move
+    //both lists are reused for the next game, so they must not be kept
+    void gameReplayed(PgnGame game, List<Board> boards, List<Move> moves);
+}
@@ -0,0 +1,15 @@
+package com.chess.pgn;
+
+//told how far a PgnDatabase load has got, called from the loading threads and not from the gui's
+public interface PgnLoadListener {
+
+    //the first gameCount games can be read from the database
+    void gamesIndexed(int gameCount);
+
+    //running totals over all replay threads
+    void gamesReplayed(int replayed, int rejected);
+
+    void loadFinished(int gameCount, int rejected, long millis);
+
+    void loadFailed(Exception exception);
+}
@@ -0,0 +1,54 @@
+package com.chess.pgn;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+//loads a pgn file, replaying every game, and reports how fast that went
+//usage: PgnRunner file.pgn [--threads N]
+public final class PgnRunner {
+
+    private PgnRunner() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static void main(final String[] args) throws IOException {
+        String fileName = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--threads") && i + 1 < args.length){
+                threads = Integer.parseInt(args[++i]);
+            } else if(fileName == null && !args[i].startsWith("--")){
+                fileName = args[i];
+            } else {
+                throw new RuntimeException("Unknown argument: " + args[i]);
+            }
+        }
+        if(fileName == null){
+            throw new RuntimeException("Usage: PgnRunner file.pgn [--threads N]");
+        }
+        final String pgnFile = fileName;
+        final int loadThreads = threads;
+        try(final PgnDatabase database = PgnDatabase.open(Paths.get(pgnFile))){
+            database.load(loadThreads, new PgnLoadListener() {
+                @Override
+                public void gamesIndexed(final int gameCount) {
+                }
+
+                @Override
+                public void gamesReplayed(final int replayed, final int rejected) {
+                }
+
+                @Override
+                public void loadFinished(final int gameCount, final int rejected, final long millis) {
+                    System.out.println(String.format("%d games, %d rejected, %d ms, %d games/s on %d threads",
+                            gameCount, rejected, millis, gameCount * 1000L / Math.max(1, millis), loadThreads));
+                }
+
+                @Override
+                public void loadFailed(final Exception exception) {
+                    throw new RuntimeException("Loading " + pgnFile + " failed", exception);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.chess.pgn;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+//splits one game of a pgn file into tags, moves and the result without copying it:
+//a token is a range of the buffer, only the tags someone asks for become strings
+//move numbers, annotations, comments, variations and escape lines are skipped
+//only absolute gets are used, so threads can tokenize games of the same buffer at the same time
+public final class PgnTokenizer {
+
+    public static final int END = 0;
+    public static final int TAG = 1;
+    public static final int MOVE = 2;
+    public static final int RESULT = 3;
+
+    private final ByteBuffer buffer;
+    private final int end;
+    private int position;
+    private int tokenStart;
+    private int tokenEnd;
+    private int valueStart;
+    private int valueEnd;
+
+    public PgnTokenizer(final ByteBuffer buffer, final int start, final int end) {
+        this.buffer = buffer;
+        this.position = start;
+        this.end = end;
+    }
+
+    public int next() {
+        while(this.position < this.end){
+            final byte b = this.buffer.get(this.position);
+            if(isWhitespace(b) || b == '.'){
+                this.position++;
+            } else if(b == '['){
+                return readTag();
+            } else if(b == '{'){
+                skipPast('}');
+            } else if(b == ';'){
+                skipPast('\n');
+            } else if(b == '%' && isLineStart(this.position)){
+                skipPast('\n');
+            } else if(b == '('){
+                skipVariation();
+            } else if(b == '$' || b == '!' || b == '?'){
+                //numeric and suffix annotations
+                this.position++;
+                skipWord();
+            } else if(b == ')' || b == '}' || b == ']'){
+                //unbalanced, there is nothing to close
+                this.position++;
+            } else if(isDigit(b) && isMoveNumber()){
+                //the dots go with the whitespace, so 1.e4 is a move number and a move
+                while(this.position < this.end && isDigit(this.buffer.get(this.position))){
+                    this.position++;
+                }
+            } else {
+                this.tokenStart = this.position;
+                skipWord();
+                this.tokenEnd = this.position;
+                //a move's own annotations stay out of it: e4!? is e4
+                while(this.tokenEnd > this.tokenStart && isSuffix(this.buffer.get(this.tokenEnd - 1))){
+                    this.tokenEnd--;
+                }
+                return isResult() ? RESULT : MOVE;
+            }
+        }
+        return END;
+    }
+
+    //for a tag the tag name, for a move or result the move or result
+    public int getTokenStart() {
+        return this.tokenStart;
+    }
+
+    public int getTokenEnd() {
+        return this.tokenEnd;
+    }
+
+    //a tag's value without its quotes, still escaped
+    public int getValueStart() {
+        return this.valueStart;
+    }
+
+    public int getValueEnd() {
+        return this.valueEnd;
+    }
+
+    public ByteBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    public boolean tokenEquals(final String text) {
+        if(this.tokenEnd - this.tokenStart != text.length()){
+            return false;
+        }
+        for(int i = 0; i < text.length(); i++){
+            if(this.buffer.get(this.tokenStart + i) != text.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getToken() {
+        return decode(this.tokenStart, this.tokenEnd);
+    }
+
+    public String getValue() {
+        final String value = decode(this.valueStart, this.valueEnd);
+        return value.indexOf('\\') < 0 ? value : value.replace("\\\"", "\"").replace("\\\\", "\\");
+    }
+
+    //[Name "value"], a tag that is cut off ends at the end of its line
+    private int readTag() {
+        this.position++;
+        while(this.position < this.end && isWhitespace(this.buffer.get(this.position))){
+            this.position++;
+        }
+        this.tokenStart = this.position;
+        while(this.position < this.end && !isWhitespace(this.buffer.get(this.position)) &&
+              this.buffer.get(this.position) != '"' && this.buffer.get(this.position) != ']'){
+            this.position++;
+        }
+        this.tokenEnd = this.position;
+        while(this.position < this.end && this.buffer.get(this.position) != '"' &&
+              this.buffer.get(this.position) != ']' && this.buffer.get(this.position) != '\n'){
+            this.position++;
+        }
+        this.valueStart = this.position;
+        this.valueEnd = this.position;
+        if(this.position < this.end && this.buffer.get(this.position) == '"'){
+            this.position++;
+            this.valueStart = this.position;
+            while(this.position < this.end && this.buffer.get(this.position) != '"' && this.buffer.get(this.position) != '\n'){
+                if(this.buffer.get(this.position) == '\\'){
+                    this.position++;
+                }
+                this.position++;
+            }
+            this.valueEnd = Math.min(this.position, this.end);
+        }
+        while(this.position < this.end && this.buffer.get(this.position) != ']' && this.buffer.get(this.position) != '\n'){
+            this.position++;
+        }
+        this.position = Math.min(this.position + 1, this.end);
+        return TAG;
+    }
+
+    private void skipPast(final char last) {
+        while(this.position < this.end && this.buffer.get(this.position) != last){
+            this.position++;
+        }
+        this.position = Math.min(this.position + 1, this.end);
+    }
+
+    //variations nest and may hold comments with brackets in them
+    private void skipVariation() {
+        int depth = 0;
+        while(this.position < this.end){
+            final byte b = this.buffer.get(this.position);
+            if(b == '{'){
+                skipPast('}');
+                continue;
+            }
+            if(b == '('){
+                depth++;
+            } else if(b == ')' && --depth == 0){
+                this.position++;
+                return;
+            }
+            this.position++;
+        }
+    }
+
+    private void skipWord() {
+        while(this.position < this.end && !isDelimiter(this.buffer.get(this.position))){
+            this.position++;
+        }
+    }
+
+    //12. and 12... are move numbers, 1-0 and 1/2-1/2 are results, 0-0 is a castle
+    private boolean isMoveNumber() {
+        int i = this.position;
+        while(i < this.end && isDigit(this.buffer.get(i))){
+            i++;
+        }
+        return i == this.end || this.buffer.get(i) == '.' || isWhitespace(this.buffer.get(i));
+    }
+
+    private boolean isResult() {
+        return tokenEquals("1-0") || tokenEquals("0-1") || tokenEquals("1/2-1/2") || tokenEquals("*");
+    }
+
+    private boolean isLineStart(final int index) {
+        return index == 0 || this.buffer.get(index - 1) == '\n';
+    }
+
+    private String decode(final int start, final int end) {
+        final byte[] bytes = new byte[end - start];
+        for(int i = 0; i < bytes.length; i++){
+            bytes[i] = this.buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static boolean isDelimiter(final byte b) {
+        return isWhitespace(b) || b == '{' || b == '(' || b == ')' || b == '[' || b == ';' || b == '$';
+    }
+
+    private static boolean isSuffix(final byte b) {
+        return b == '!' || b == '?' || b == '+' || b == '#';
+    }
+
+    private static boolean isDigit(final byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
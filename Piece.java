@@ -1,9 +1,15 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoard;
 import com.chess.engine.board.Board;
+import com.chess.engine.board.IntMoveList;
 import com.chess.engine.board.Move;
+import com.chess.engine.board.Move.MoveFactory;
+import com.chess.engine.board.MoveEncoding;
+import com.google.common.collect.ImmutableList;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -17,12 +23,13 @@ public abstract class Piece {
 
     Piece(final PieceType pieceType,
           final int piecePosition,
-          final Alliance pieceAlliance) {
+          final Alliance pieceAlliance,
+          final boolean isFirstMove) {
         this.pieceType=pieceType;
         this.pieceAlliance=pieceAlliance;
         this.piecePosition=piecePosition;
-        //More work to do hither!!!
-        this.isFirstMove=false;
+        //a piece that has already moved loses its castling and pawn jump rights
+        this.isFirstMove=isFirstMove;
         this.cachedHashCode=computeHashCode();
     }
 
@@ -34,17 +41,10 @@ public abstract class Piece {
         return result;
     }
 
+    //pieces only come from the PieceUtils table, so equal pieces are the same instance
     @Override
     public boolean equals(final Object other){
-        if(this == other){
-            return true;
-        }
-        if(!(other instanceof Piece)){
-            return false;
-        }
-        final Piece otherPiece=(Piece) other;
-        return piecePosition==otherPiece.getPiecePosition()&&pieceType==otherPiece.getPieceType()&&
-               pieceAlliance==otherPiece.getPieceAlliance() && isFirstMove==otherPiece.isFirstMove();
+        return this == other;
     }
     @Override
     public int hashCode(){
@@ -65,12 +65,40 @@ public abstract class Piece {
         return this.pieceType;
     }
 
-    public abstract Collection<Move> calculateLegalMoves(final Board board);
+    //the moves of this piece as MoveEncoding ints, they may still leave the own king in check
+    public abstract void generateMoves(final Board board, final IntMoveList moves);
+
+    //the object view of generateMoves, for the gui and the players
+    public Collection<Move> calculateLegalMoves(final Board board) {
+        final IntMoveList moves=new IntMoveList();
+        generateMoves(board, moves);
+        final List<Move> legalMoves=new ArrayList<>(moves.size());
+        for(int i=0;i<moves.size();i++){
+            legalMoves.add(MoveFactory.createMove(board, this, moves.get(i)));
+        }
+        return ImmutableList.copyOf(legalMoves);
+    }
+
+    //turns an attack set from the attack tables into moves, skipping tiles held by our own pieces
+    protected void addMoves(final Board board, final long attacks, final IntMoveList moves) {
+        final BitBoard bitBoard=board.getBitBoard();
+        long destinations=attacks & ~bitBoard.getOccupancy(this.pieceAlliance);
+        while(destinations != 0){
+            final int destinationCoordinate=Long.numberOfTrailingZeros(destinations);
+            destinations&=destinations-1;
+            if(bitBoard.isOccupied(destinationCoordinate)){
+                moves.add(MoveEncoding.encode(this.piecePosition, destinationCoordinate, MoveEncoding.CAPTURE,
+                                              bitBoard.getPieceType(destinationCoordinate)));
+            } else{
+                moves.add(MoveEncoding.encode(this.piecePosition, destinationCoordinate, MoveEncoding.QUIET_MOVE));
+            }
+        }
+    }
     // returns a new piece with the updated position(the moved piece)
     public abstract Piece movePiece(Move move);
 
     public enum PieceType{
-        PAWN("P"){
+        PAWN("P", 100){
             @Override
             public boolean isKing(){
                 return false;
@@ -81,7 +109,7 @@ public abstract class Piece {
                 return false;
             }
         },
-        KNIGHT("N") {
+        KNIGHT("N", 300) {
             @Override
             public boolean isKing() {
                 return false;
@@ -91,7 +119,7 @@ public abstract class Piece {
                 return false;
             }
         },
-        BISHOP("B"){
+        BISHOP("B", 300){
             @Override
             public boolean isKing() {
                 return false;
@@ -101,7 +129,7 @@ public abstract class Piece {
                 return false;
             }
         },
-        ROOK("R"){
+        ROOK("R", 500){
             @Override
             public boolean isKing() {
                 return false;
@@ -111,7 +139,7 @@ public abstract class Piece {
                 return true;
             }
         },
-        QUEEN("Q"){
+        QUEEN("Q", 900){
             @Override
             public boolean isKing() {
                 return false;
@@ -121,7 +149,7 @@ public abstract class Piece {
                 return false;
             }
         },
-        KING("K"){
+        KING("K", 10000){
             @Override
             public boolean isKing() {
                 return true;
@@ -133,8 +161,14 @@ public abstract class Piece {
         };
 
         private String pieceName;
-        PieceType(final String pieceName){
+        //in centipawns
+        private final int pieceValue;
+        PieceType(final String pieceName, final int pieceValue){
             this.pieceName=pieceName;
+            this.pieceValue=pieceValue;
+        }
+        public int getPieceValue(){
+            return this.pieceValue;
         }
         @Override
         public String toString() {
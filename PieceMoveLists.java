@@ -0,0 +1,127 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
+import java.util.Arrays;
+
+//the MoveEncoding moves of every piece of one side, per tile, for one board
+//a board made by a move inherits these lists from an earlier board together with the tiles changed since,
+//and only pieces whose moves can see a changed tile are generated again
+//run with -Dchess.movegen.crosscheck=true to compare every reused list with a full regeneration
+public final class PieceMoveLists {
+
+    private static final boolean CROSS_CHECK = Boolean.getBoolean("chess.movegen.crosscheck");
+    private static final int[] NO_MOVES = new int[0];
+
+    private final Piece[] pieces;
+    private final int[][] moves;
+    private final long occupancy;
+    private final int enPassantSquare;
+    private final long changedSquares;
+
+    private PieceMoveLists(final Piece[] pieces,
+                           final int[][] moves,
+                           final long occupancy,
+                           final int enPassantSquare,
+                           final long changedSquares) {
+        this.pieces = pieces;
+        this.moves = moves;
+        this.occupancy = occupancy;
+        this.enPassantSquare = enPassantSquare;
+        this.changedSquares = changedSquares;
+    }
+
+    //the moves of the piece on the tile, empty if the side has no piece there
+    public int[] getMoves(final int tileCoordinate) {
+        final int[] pieceMoves = this.moves[tileCoordinate];
+        return pieceMoves == null ? NO_MOVES : pieceMoves;
+    }
+
+    //the same lists, seen from a board further on where more tiles have changed
+    PieceMoveLists since(final long changedSquares) {
+        return new PieceMoveLists(this.pieces, this.moves, this.occupancy, this.enPassantSquare,
+                                  this.changedSquares | changedSquares);
+    }
+
+    //source may be null, then every piece is generated
+    static PieceMoveLists generate(final Board board, final Alliance alliance, final PieceMoveLists source) {
+        final Piece[] boardPieces = board.getBoardPieces();
+        final int[][] moves = new int[BoardUtils.NUM_TILES][];
+        final IntMoveList moveList = new IntMoveList();
+        for(final Piece piece : alliance.isWhite() ? board.getWhitePieces() : board.getBlackPieces()){
+            final int tileCoordinate = piece.getPiecePosition();
+            if(source != null && source.isReusable(piece, board)){
+                moves[tileCoordinate] = source.moves[tileCoordinate];
+                if(CROSS_CHECK){
+                    crossCheck(piece, board, moves[tileCoordinate]);
+                }
+            } else {
+                moveList.clear();
+                piece.generateMoves(board, moveList);
+                moves[tileCoordinate] = moveList.toArray();
+            }
+        }
+        return new PieceMoveLists(boardPieces, moves, board.getBitBoard().getOccupancy(), board.getEnPassantSquare(), 0L);
+    }
+
+    //a piece keeps its moves while it is the same piece on the same tile and no tile it can see has changed
+    private boolean isReusable(final Piece piece, final Board board) {
+        final int tileCoordinate = piece.getPiecePosition();
+        if(this.pieces[tileCoordinate] != piece || this.moves[tileCoordinate] == null){
+            return false;
+        }
+        final long visibleSquares;
+        switch(piece.getPieceType()){
+            case PAWN:
+                final long attacks = AttackTables.pawnAttacks(piece.getPieceAlliance(), tileCoordinate);
+                //en passant depends on the last move, not on any tile
+                if((attacks & (enPassantBit(this.enPassantSquare) | enPassantBit(board.getEnPassantSquare()))) != 0){
+                    return false;
+                }
+                visibleSquares = attacks | pawnPushSquares(piece);
+                break;
+            case KNIGHT:
+                visibleSquares = AttackTables.knightAttacks(tileCoordinate);
+                break;
+            case BISHOP:
+                visibleSquares = AttackTables.bishopAttacks(tileCoordinate, this.occupancy);
+                break;
+            case ROOK:
+                visibleSquares = AttackTables.rookAttacks(tileCoordinate, this.occupancy);
+                break;
+            case QUEEN:
+                visibleSquares = AttackTables.queenAttacks(tileCoordinate, this.occupancy);
+                break;
+            default:
+                //castles are not in these lists, the players work them out on every board
+                visibleSquares = AttackTables.kingAttacks(tileCoordinate);
+                break;
+        }
+        return ((visibleSquares | BitBoard.squareBit(tileCoordinate)) & this.changedSquares) == 0;
+    }
+
+    private static long pawnPushSquares(final Piece pawn) {
+        final int forwardOffset = pawn.getPieceAlliance().getDirection() * BoardUtils.NUM_TILES_PER_ROW;
+        final int pushCoordinate = pawn.getPiecePosition() + forwardOffset;
+        if(!BoardUtils.isValidTileCoordinate(pushCoordinate)){
+            return 0L;
+        }
+        final int jumpCoordinate = pushCoordinate + forwardOffset;
+        return BitBoard.squareBit(pushCoordinate) |
+               (BoardUtils.isValidTileCoordinate(jumpCoordinate) ? BitBoard.squareBit(jumpCoordinate) : 0L);
+    }
+
+    private static long enPassantBit(final int enPassantSquare) {
+        return enPassantSquare < 0 ? 0L : BitBoard.squareBit(enPassantSquare);
+    }
+
+    private static void crossCheck(final Piece piece, final Board board, final int[] reusedMoves) {
+        final IntMoveList moveList = new IntMoveList();
+        piece.generateMoves(board, moveList);
+        if(!Arrays.equals(moveList.toArray(), reusedMoves)){
+            throw new RuntimeException("Reused moves of " + piece + " on " + piece.getPiecePosition() +
+                                       " differ from a full generation: " + moveList + "\n" + board);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece.PieceType;
+
+//read access to where the pieces stand, so code that only looks at piece sets works on a BitBoard and a SearchBoard alike
+public interface PiecePlacement {
+
+    long getPieces(PieceType pieceType, Alliance alliance);
+
+    long getOccupancy(Alliance alliance);
+
+    long getOccupancy();
+
+    //the pieces of the alliance attacking the square, sliders are blocked by the given occupancy
+    long getAttackers(int square, Alliance byAlliance, long occupancy);
+}
@@ -0,0 +1,191 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+//material plus a bonus for the tile, for every piece on every tile, once for the middlegame and once for the endgame
+//both halves are packed in one int so a position's running sum is kept with one add per piece that comes or goes:
+//middlegame in the high 16 bits, endgame in the low 16 bits, white pieces count up and black pieces down
+public final class PieceSquareTables {
+
+    //game phase: 24 with all minor and major pieces on the board, 0 with only kings and pawns
+    public static final int MAX_PHASE = 24;
+
+    private static final int[] MIDDLEGAME_VALUES = {100, 320, 330, 500, 900, 0};
+    private static final int[] ENDGAME_VALUES = {120, 300, 320, 530, 950, 0};
+    private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+
+    //from white's view, a8 first like the board's tile numbers, black looks them up mirrored
+    private static final int[] PAWN_MIDDLEGAME = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             10,  10,  20,  30,  30,  20,  10,  10,
+              5,   5,  10,  25,  25,  10,   5,   5,
+              0,   0,   0,  20,  20,   0,   0,   0,
+              5,  -5, -10,   0,   0, -10,  -5,   5,
+              5,  10,  10, -20, -20,  10,  10,   5,
+              0,   0,   0,   0,   0,   0,   0,   0
+    };
+    //in the endgame a pawn is worth more the closer it is to promoting
+    private static final int[] PAWN_ENDGAME = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             80,  80,  80,  80,  80,  80,  80,  80,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             30,  30,  30,  30,  30,  30,  30,  30,
+             15,  15,  15,  15,  15,  15,  15,  15,
+              5,   5,   5,   5,   5,   5,   5,   5,
+              0,   0,   0,   0,   0,   0,   0,   0,
+              0,   0,   0,   0,   0,   0,   0,   0
+    };
+    private static final int[] KNIGHT_TABLE = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20,   0,   0,   0,   0, -20, -40,
+            -30,   0,  10,  15,  15,  10,   0, -30,
+            -30,   5,  15,  20,  20,  15,   5, -30,
+            -30,   0,  15,  20,  20,  15,   0, -30,
+            -30,   5,  10,  15,  15,  10,   5, -30,
+            -40, -20,   0,   5,   5,   0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP_TABLE = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,  10,  10,   5,   0, -10,
+            -10,   5,   5,  10,  10,   5,   5, -10,
+            -10,   0,  10,  10,  10,  10,   0, -10,
+            -10,  10,  10,  10,  10,  10,  10, -10,
+            -10,   5,   0,   0,   0,   0,   5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK_MIDDLEGAME = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+              5,  10,  10,  10,  10,  10,  10,   5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+              0,   0,   0,   5,   5,   0,   0,   0
+    };
+    private static final int[] ROOK_ENDGAME = new int[BoardUtils.NUM_TILES];
+    private static final int[] QUEEN_TABLE = {
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,   5,   5,   5,   0, -10,
+             -5,   0,   5,   5,   5,   5,   0,  -5,
+              0,   0,   5,   5,   5,   5,   0,  -5,
+            -10,   5,   5,   5,   5,   5,   0, -10,
+            -10,   0,   5,   0,   0,   0,   0, -10,
+            -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+    //behind its pawns while the queens are on, in the centre once they are gone
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+             20,  20,   0,   0,   0,   0,  20,  20,
+             20,  30,  10,   0,   0,  10,  30,  20
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10,   0,   0, -10, -20, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -30,   0,   0,   0,   0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+    private static final int[][] MIDDLEGAME_TABLES = {
+            PAWN_MIDDLEGAME, KNIGHT_TABLE, BISHOP_TABLE, ROOK_MIDDLEGAME, QUEEN_TABLE, KING_MIDDLEGAME
+    };
+    private static final int[][] ENDGAME_TABLES = {
+            PAWN_ENDGAME, KNIGHT_TABLE, BISHOP_TABLE, ROOK_ENDGAME, QUEEN_TABLE, KING_ENDGAME
+    };
+
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    private static final Alliance[] ALLIANCES = Alliance.values();
+
+    //indexed like BitBoard: piece type * 2 + alliance, then the tile
+    private static final int[][] SCORES = new int[12][BoardUtils.NUM_TILES];
+
+    static {
+        for(int type = 0; type < MIDDLEGAME_TABLES.length; type++){
+            for(int square = 0; square < BoardUtils.NUM_TILES; square++){
+                //flipping the rank turns a black piece's tile into the tile white's table describes
+                final int mirrored = square ^ 56;
+                SCORES[type * 2][square] = pack(MIDDLEGAME_VALUES[type] + MIDDLEGAME_TABLES[type][square],
+                                                ENDGAME_VALUES[type] + ENDGAME_TABLES[type][square]);
+                SCORES[type * 2 + 1][square] = -pack(MIDDLEGAME_VALUES[type] + MIDDLEGAME_TABLES[type][mirrored],
+                                                     ENDGAME_VALUES[type] + ENDGAME_TABLES[type][mirrored]);
+            }
+        }
+    }
+
+    private PieceSquareTables() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static int pack(final int middlegame, final int endgame) {
+        return (middlegame << 16) + endgame;
+    }
+
+    //the endgame half is signed, a negative one borrowed from the middlegame half when packing
+    public static int middlegame(final int score) {
+        return (score + 0x8000) >> 16;
+    }
+
+    public static int endgame(final int score) {
+        return (short) score;
+    }
+
+    public static int score(final PieceType pieceType, final Alliance alliance, final int square) {
+        return SCORES[pieceType.ordinal() * 2 + alliance.ordinal()][square];
+    }
+
+    public static int score(final Piece piece) {
+        return score(piece.getPieceType(), piece.getPieceAlliance(), piece.getPiecePosition());
+    }
+
+    //piece codes as used by the SearchBoard
+    static int score(final int pieceCode, final int square) {
+        return SCORES[pieceCode][square];
+    }
+
+    //the full sum, only needed once per position that is not reached by a move
+    public static int calculateScore(final PiecePlacement placement) {
+        int score = 0;
+        for(final PieceType pieceType : PIECE_TYPES){
+            for(final Alliance alliance : ALLIANCES){
+                long pieces = placement.getPieces(pieceType, alliance);
+                while(pieces != 0){
+                    score += score(pieceType, alliance, Long.numberOfTrailingZeros(pieces));
+                    pieces &= pieces - 1;
+                }
+            }
+        }
+        return score;
+    }
+
+    //counted from the pieces left, capped so promoted pieces cannot push it past the start
+    public static int phase(final PiecePlacement placement) {
+        int phase = 0;
+        for(final PieceType pieceType : PIECE_TYPES){
+            final int weight = PHASE_WEIGHTS[pieceType.ordinal()];
+            if(weight != 0){
+                phase += weight * Long.bitCount(placement.getPieces(pieceType, Alliance.WHITE) |
+                                                placement.getPieces(pieceType, Alliance.BLACK));
+            }
+        }
+        return Math.min(phase, MAX_PHASE);
+    }
+
+    //blends the two halves by the game phase, in centipawns from white's view
+    public static int taper(final int score, final int phase) {
+        return (middlegame(score) * phase + endgame(score) * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+}
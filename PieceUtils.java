@@ -0,0 +1,80 @@
+package com.chess.engine.pieces;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.pieces.Piece.PieceType;
+
+//every piece that can exist: type x alliance x tile x first move flag, created once at startup
+//pieces are immutable, so boards share these instances instead of allocating a piece for every move
+//with a single instance per piece, two pieces are equal exactly when they are the same object
+public final class PieceUtils {
+
+    public static final int NUM_PIECES = PieceType.values().length * Alliance.values().length * BoardUtils.NUM_TILES * 2;
+
+    private static final Piece[] PIECES = createAllPossiblePieces();
+
+    private PieceUtils() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    //a piece that has not moved yet
+    public static Piece getPiece(final PieceType pieceType, final Alliance alliance, final int piecePosition) {
+        return getPiece(pieceType, alliance, piecePosition, true);
+    }
+
+    public static Piece getPiece(final PieceType pieceType,
+                                 final Alliance alliance,
+                                 final int piecePosition,
+                                 final boolean isFirstMove) {
+        return PIECES[index(pieceType, alliance, piecePosition, isFirstMove)];
+    }
+
+    //the slot of a piece in the flyweight table, for caches of things that belong to one piece
+    public static int index(final PieceType pieceType,
+                            final Alliance alliance,
+                            final int piecePosition,
+                            final boolean isFirstMove) {
+        return ((pieceType.ordinal() * 2 + alliance.ordinal()) * BoardUtils.NUM_TILES + piecePosition) * 2 + (isFirstMove ? 1 : 0);
+    }
+
+    public static int index(final Piece piece) {
+        return index(piece.getPieceType(), piece.getPieceAlliance(), piece.getPiecePosition(), piece.isFirstMove());
+    }
+
+    private static Piece[] createAllPossiblePieces() {
+        final Piece[] pieces = new Piece[NUM_PIECES];
+        for(final PieceType pieceType : PieceType.values()){
+            for(final Alliance alliance : Alliance.values()){
+                for(int position = 0; position < BoardUtils.NUM_TILES; position++){
+                    for(final boolean isFirstMove : new boolean[]{false, true}){
+                        pieces[index(pieceType, alliance, position, isFirstMove)] =
+                                createPiece(pieceType, alliance, position, isFirstMove);
+                    }
+                }
+            }
+        }
+        return pieces;
+    }
+
+    private static Piece createPiece(final PieceType pieceType,
+                                     final Alliance alliance,
+                                     final int position,
+                                     final boolean isFirstMove) {
+        switch(pieceType){
+            case PAWN:
+                return new Pawn(alliance, position, isFirstMove);
+            case KNIGHT:
+                return new Knight(alliance, position, isFirstMove);
+            case BISHOP:
+                return new Bishop(alliance, position, isFirstMove);
+            case ROOK:
+                return new Rook(alliance, position, isFirstMove);
+            case QUEEN:
+                return new Queen(alliance, position, isFirstMove);
+            case KING:
+                return new King(alliance, position, isFirstMove);
+            default:
+                throw new RuntimeException("Unknown piece type " + pieceType);
+        }
+    }
+}
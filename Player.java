@@ -1,10 +1,19 @@
 package com.chess.engine.player;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
+import com.chess.engine.board.BitBoard;
 import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.GameState;
 import com.chess.engine.board.Move;
+import com.chess.engine.board.Move.MoveFactory;
+import com.chess.engine.board.MoveEncoding;
+import com.chess.engine.board.MoveIndex;
+import com.chess.engine.board.PieceMoveLists;
 import com.chess.engine.pieces.King;
 import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
@@ -17,35 +26,73 @@ public abstract class Player {
 
     protected final Board board;
     protected final King playerKing;
-    protected final Collection<Move> legalMoves;
-    private final boolean isInCheck;
-    Player(final Board board,
-           final Collection<Move> legalMoves,
-           final Collection<Move> opponentMoves){
+    //worked out on first use, boards are shared between threads so both are published through volatile fields
+    private volatile Collection<Move> legalMoves;
+    private volatile Boolean isInCheck;
+    private volatile GameState gameState;
+    //pieces giving check, our pieces pinned to the king and the move lookup, written before legalMoves is published
+    private long checkers;
+    private long pinnedPieces;
+    private MoveIndex moveIndex;
+    private PieceMoveLists pieceMoveLists;
+    Player(final Board board){
         this.board = board;
         this.playerKing=establishKing();
-        this.legalMoves=ImmutableList.copyOf(Iterables.concat(legalMoves, calculateKingCastles(legalMoves, opponentMoves)));
-        this.isInCheck=!Player.calculateAttacksOnTile(this.playerKing.getPiecePosition(), opponentMoves).isEmpty();
-
     }
     public King getPlayerKing(){
         return this.playerKing;
     }
     public Collection<Move> getLegalMoves(){
-        return this.legalMoves;
-    }
-    //if the opponent player makes a move, then these codes are gonna check if the piece's next move can overlap with the king's tile
-    //if it does overlap, then it's a check
-    protected static Collection<Move> calculateAttacksOnTile(int piecePosition, Collection<Move> moves) {
-        final List<Move> attackMoves=new ArrayList<>();
-        for(final Move move : moves){
-            if(piecePosition == move.getDestinationCoordinate()){
-                attackMoves.add(move);
+        Collection<Move> result=this.legalMoves;
+        if(result == null){
+            synchronized(this){
+                result=this.legalMoves;
+                if(result == null){
+                    final BitBoard bitBoard=this.board.getBitBoard();
+                    this.checkers=bitBoard.getAttackers(this.playerKing.getPiecePosition(),
+                                                        getOpponent().getAlliance(),
+                                                        bitBoard.getOccupancy());
+                    this.pinnedPieces=bitBoard.getPinnedPieces(getAlliance());
+                    final Collection<Move> standardMoves=calculateStandardMoves();
+                    result=ImmutableList.copyOf(Iterables.concat(standardMoves, calculateKingCastles(standardMoves)));
+                    this.moveIndex=new MoveIndex(result);
+                    this.legalMoves=result;
+                }
             }
         }
-        return ImmutableList.copyOf(attackMoves);
+        return result;
+    }
+    //pieces whose moves cannot have changed since an earlier board keep that board's lists
+    //the lists hold every pseudo legal move, only the ones that keep the king safe become moves:
+    //in check that is king moves, captures of the checker and blocks, a pinned piece stays on its pin
+    private Collection<Move> calculateStandardMoves(){
+        this.pieceMoveLists=this.board.calculatePieceMoveLists(getAlliance());
+        final boolean isDoubleCheck=Long.bitCount(this.checkers) > 1;
+        final boolean hasEnPassant=this.board.getEnPassantPawn() != null;
+        final List<Move> standardMoves=new ArrayList<>();
+        for(final Piece piece: getActivePieces()){
+            final PieceType pieceType=piece.getPieceType();
+            final boolean isKing=pieceType.isKing();
+            if(isDoubleCheck && !isKing){
+                continue;
+            }
+            final int piecePosition=piece.getPiecePosition();
+            //most pieces out of check can play every move they have
+            final boolean needsTest=isKing || this.checkers != 0 ||
+                                    (this.pinnedPieces & BitBoard.squareBit(piecePosition)) != 0 ||
+                                    (hasEnPassant && pieceType == PieceType.PAWN);
+            for(final int move : this.pieceMoveLists.getMoves(piecePosition)){
+                if(!needsTest || !leavesKingInCheck(move, isKing)){
+                    standardMoves.add(MoveFactory.createMove(this.board, piece, move));
+                }
+            }
+        }
+        return standardMoves;
+    }
+    //null until the legal moves have been asked for, boards made by a move start from these
+    public PieceMoveLists getPieceMoveLists(){
+        return this.legalMoves == null ? null : this.pieceMoveLists;
     }
-
     private King establishKing() {
         for(final Piece piece : getActivePieces()){
             if(piece.getPieceType().isKing()){
@@ -55,28 +102,103 @@ public abstract class Player {
         throw new RuntimeException("Should not reach here! Not a valid board!!");
     }
     public boolean isMoveLegal(final Move move){
-        return this.legalMoves.contains(move);
+        return getMoveIndex().contains(move);
+    }
+    //null if the player has no such move, a move to the last rank without a promotion piece promotes to a queen
+    public Move findMove(final int currentCoordinate, final int destinationCoordinate){
+        return getMoveIndex().getMove(currentCoordinate, destinationCoordinate);
+    }
+    public Move findMove(final int currentCoordinate, final int destinationCoordinate, final PieceType promotionType){
+        return getMoveIndex().getMove(currentCoordinate, destinationCoordinate, promotionType);
+    }
+    private MoveIndex getMoveIndex(){
+        //reading legalMoves first makes the index written before it visible
+        getLegalMoves();
+        return this.moveIndex;
     }
 
+    //a look from the king outwards on the bitboard, the opponent's moves are not needed for it
+    //no lock: racing threads compute the same answer
     public boolean isInCheck(){
-        return this.isInCheck;
+        Boolean result=this.isInCheck;
+        if(result == null){
+            result=this.board.getBitBoard().isSquareAttacked(this.playerKing.getPiecePosition(), getOpponent().getAlliance());
+            this.isInCheck=result;
+        }
+        return result;
     }
     //if the king is in check and has no escape routes, then it's a check mate
     public boolean isInCheckMate(){
-        return this.isInCheck && !hasEscapeMoves();
+        return getGameState() == GameState.CHECKMATE;
     }
     public boolean isInStaleMate(){
-        return !this.isInCheck && !hasEscapeMoves();
+        return getGameState() == GameState.STALEMATE;
+    }
+    //asked after every move, so it is classified once and kept, racing threads compute the same answer
+    public GameState getGameState(){
+        GameState result=this.gameState;
+        if(result == null){
+            result=calculateGameState();
+            this.gameState=result;
+        }
+        return result;
+    }
+    private GameState calculateGameState(){
+        if(!hasEscapeMoves()){
+            return isInCheck() ? GameState.CHECKMATE : GameState.STALEMATE;
+        }
+        if(this.board.hasInsufficientMaterial()){
+            return GameState.INSUFFICIENT_MATERIAL;
+        }
+        return isInCheck() ? GameState.CHECK : GameState.ONGOING;
     }
-//In order to calculate if the king can escape, the computer will go through every player's legal moves and make them in an imaginary board
     protected boolean hasEscapeMoves() {
-        for(final Move move: this.legalMoves){
-            final MoveTransition transition=makeMove(move);
-            if(transition.getMoveStatus().isDone()){
+        return !getLegalMoves().isEmpty();
+    }
+    //only needs the pieces giving check and the pins, never the board after the move
+    private boolean leavesKingInCheck(final int move, final boolean isKingMove){
+        final BitBoard bitBoard=this.board.getBitBoard();
+        final Alliance opponentAlliance=getOpponent().getAlliance();
+        final int kingCoordinate=this.playerKing.getPiecePosition();
+        final int currentCoordinate=MoveEncoding.getCurrentCoordinate(move);
+        final int destinationCoordinate=MoveEncoding.getDestinationCoordinate(move);
+        final long destinationBit=BitBoard.squareBit(destinationCoordinate);
+        if(isKingMove){
+            //the king must not stay on the ray of the slider checking it, so it is taken off the board for the test
+            return bitBoard.getAttackers(destinationCoordinate, opponentAlliance,
+                                         bitBoard.getOccupancy() & ~BitBoard.squareBit(currentCoordinate)) != 0;
+        }
+        if(MoveEncoding.getFlags(move) == MoveEncoding.EN_PASSANT_CAPTURE){
+            //two pawns leave the rank at once, which can uncover a rook or queen, so test the position after the capture
+            final long capturedBit=BitBoard.squareBit(destinationCoordinate - getAlliance().getDirection() * BoardUtils.NUM_TILES_PER_ROW);
+            final long occupancy=(bitBoard.getOccupancy() & ~BitBoard.squareBit(currentCoordinate) & ~capturedBit) | destinationBit;
+            return (bitBoard.getAttackers(kingCoordinate, opponentAlliance, occupancy) & ~capturedBit) != 0;
+        }
+        if(Long.bitCount(this.checkers) > 1){
+            //in double check only the king can move
+            return true;
+        }
+        if(this.checkers != 0){
+            //a single check has to be captured or blocked
+            final int checkerCoordinate=Long.numberOfTrailingZeros(this.checkers);
+            if(destinationCoordinate != checkerCoordinate &&
+               (AttackTables.between(kingCoordinate, checkerCoordinate) & destinationBit) == 0){
                 return true;
             }
         }
-        return false;
+        //a pinned piece may only move along the line of its pin
+        return (this.pinnedPieces & BitBoard.squareBit(currentCoordinate)) != 0 &&
+               (AttackTables.line(kingCoordinate, currentCoordinate) & destinationBit) == 0;
+    }
+    //a move of one of our pieces that is not among the legal moves can only be one that exposes the king
+    private boolean leavesKingInCheck(final Move move){
+        final Piece movedPiece=move.getMovedPiece();
+        if(movedPiece == null || movedPiece.getPieceAlliance() != getAlliance() ||
+           this.board.getPiece(move.getCurrentCoordinate()) != movedPiece){
+            return false;
+        }
+        getLegalMoves();
+        return leavesKingInCheck(move.getEncodedMove(), movedPiece.getPieceType().isKing());
     }
 
 
@@ -87,20 +209,15 @@ public abstract class Player {
     //if the player's move is legal, then it will execute the move and create a new board
     public MoveTransition makeMove(final Move move){
         if(!isMoveLegal(move)){
-           return new MoveTransition(this.board, move, MoveStatus.ILLEGAL_MOVE);
-        }
-        final Board transitionBoard=move.execute();
-        //You can't make a move with your king into a check position. This is going to check this scenario and make sure that it doesn't happen
-        //by returning the same board if the opponent can attack your king after you make a king move
-        final Collection<Move> kingAttacks= Player.calculateAttacksOnTile(transitionBoard.currentPlayer().getOpponent().getPlayerKing().getPiecePosition(),
-                transitionBoard.currentPlayer().getLegalMoves());
-        if(!kingAttacks.isEmpty()){
-            return new MoveTransition(this.board, move, MoveStatus.LEAVES_PLAYER_IN_CHECK);
+            //You can't make a move with your king into a check position. The legal moves already leave those out,
+            //so a move that fails never builds a new board
+            return new MoveTransition(this.board, move,
+                    leavesKingInCheck(move) ? MoveStatus.LEAVES_PLAYER_IN_CHECK : MoveStatus.ILLEGAL_MOVE);
         }
-        return new MoveTransition(transitionBoard, move, MoveStatus.DONE);
+        return new MoveTransition(move.execute(), move, MoveStatus.DONE);
     }
     public abstract Collection<Piece> getActivePieces();
     public abstract Alliance getAlliance();
     public abstract Player getOpponent();
-    protected abstract Collection<Move> calculateKingCastles(Collection<Move> playerLegals, Collection<Move> opponentLegals);
+    protected abstract Collection<Move> calculateKingCastles(Collection<Move> playerLegals);
 }
@@ -0,0 +1,77 @@
+package com.chess.engine.book;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.player.MoveTransition;
+
+//checks the built in Random64 table against the keys the Polyglot book format publishes for its test positions,
+//which between them touch every piece kind, castling, en passant and the side to move
+//usage: PolyglotKeysTest, exits with 1 if a key differs
+public final class PolyglotKeysTest {
+
+    //moves from the start position and the key after them
+    private static final String[] MOVES = {
+            "",
+            "e2e4",
+            "e2e4 d7d5",
+            "e2e4 d7d5 e4e5",
+            "e2e4 d7d5 e4e5 f7f5",
+            "e2e4 d7d5 e4e5 f7f5 e1e2",
+            "e2e4 d7d5 e4e5 f7f5 e1e2 e8f7",
+            "a2a4 b7b5 h2h4 b5b4 c2c4",
+            "a2a4 b7b5 h2h4 b5b4 c2c4 b4c3 a1a3"
+    };
+    private static final long[] KEYS = {
+            0x463B96181691FC9CL,
+            0x823C9B50FD114196L,
+            0x0756B94461C50FB0L,
+            0x662FAFB965DB29D4L,
+            0x22A48B5A8E47FF78L,
+            0x652A607CA3F242C1L,
+            0x00FDD303C946BDD9L,
+            0x3C8123EA7B067637L,
+            0x5C3F9B829B279560L
+    };
+
+    private PolyglotKeysTest() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static void main(final String[] args) {
+        final PolyglotKeys keys = PolyglotKeys.getDefault();
+        int failures = 0;
+        for(int i = 0; i < MOVES.length; i++){
+            final long key = keys.getKey(play(MOVES[i]));
+            if(key != KEYS[i]){
+                System.out.println(String.format("FAILED: after \"%s\" the key is %016x, expected %016x", MOVES[i], key, KEYS[i]));
+                failures++;
+            }
+        }
+        if(failures > 0){
+            System.exit(1);
+        }
+        System.out.println("PolyglotKeysTest passed");
+    }
+
+    private static Board play(final String moves) {
+        Board board = Board.createStandardBoard();
+        for(final String text : moves.split(" ")){
+            if(text.isEmpty()){
+                continue;
+            }
+            final Move move = board.currentPlayer().findMove(coordinate(text, 0), coordinate(text, 2));
+            final MoveTransition transition = move == null ? null : board.currentPlayer().makeMove(move);
+            if(transition == null || !transition.getMoveStatus().isDone()){
+                throw new RuntimeException("Illegal move " + text + " in " + moves);
+            }
+            board = transition.getTransitionBoard();
+        }
+        return board;
+    }
+
+    //the tile of a square like e2 at the index
+    private static int coordinate(final String text, final int index) {
+        return (BoardUtils.NUM_TILES_PER_ROW - (text.charAt(index + 1) - '0')) * BoardUtils.NUM_TILES_PER_ROW + text.charAt(index) - 'a';
+    }
+}
@@ -1,64 +1,29 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.IntMoveList;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Tile;
-import com.google.common.collect.ImmutableList;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
 
 public class Queen extends Piece{
-    private final static int[] CANDIDATE_MOVE_VECTOR_COORDINATES={ -9, -8, -7, -1, 1, 7, 8, 9 };
-    public Queen(final Alliance pieceAlliance,
-                 final int piecePosition) {
-        super(PieceType.QUEEN, piecePosition, pieceAlliance);
+
+    Queen(final Alliance pieceAlliance,
+          final int piecePosition,
+          final boolean isFirstMove) {
+        super(PieceType.QUEEN, piecePosition, pieceAlliance, isFirstMove);
     }
 
     @Override
-    public Collection<Move> calculateLegalMoves(final Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for(final int candidateCoordinateOffset: CANDIDATE_MOVE_VECTOR_COORDINATES){
-            int candidateDestinationCoordinate=this.piecePosition;
-            while(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-                if(isFirstColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset)||
-                        isEightColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset)){
-                    break;
-                }
-                candidateDestinationCoordinate+=candidateCoordinateOffset;
-                if(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-                    final Tile candidateDestinationTile=board.getTile(candidateDestinationCoordinate);
-                    if(!candidateDestinationTile.isTileOccupied()){
-                        legalMoves.add(new Move.MajorMove(board, this, candidateDestinationCoordinate));
-                    } else{
-                        final Piece pieceAtDestination= candidateDestinationTile.getPiece();
-                        final Alliance pieceAlliance= pieceAtDestination.getPieceAlliance();
-                        if(this.pieceAlliance != pieceAlliance) {
-                            legalMoves.add(new Move.AttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
-                        }
-                        break;
-                    }
-
-                }
-            }
-        }
-        return ImmutableList.copyOf(legalMoves);
+    public void generateMoves(final Board board, final IntMoveList moves) {
+        addMoves(board, AttackTables.queenAttacks(this.piecePosition, board.getBitBoard().getOccupancy()), moves);
     }
     @Override
     public Queen movePiece(final Move move) {
-        return new Queen(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate());
+        return (Queen) PieceUtils.getPiece(PieceType.QUEEN, move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(), false);
     }
     @Override
     public String toString(){
         return PieceType.QUEEN.toString();
     }
-    private static boolean isFirstColumnExclusion(final int currentPosition, final int candidateOffset){
-        return BoardUtils.FIRST_COLUMN[currentPosition]&&(candidateOffset == -1 || candidateOffset==-9 ||candidateOffset==7);
-    }
-    private static boolean isEightColumnExclusion(final int currentPosition, final int candidateOffset){
-        return BoardUtils.EIGHTH_COLUMN[currentPosition]&&(candidateOffset == 1 || candidateOffset==-7 ||candidateOffset==9);
-    }
 }
@@ -0,0 +1,464 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+//works out one table from the tables of the endings its captures and promotions lead to
+//the positions are squares in slot order, and moves are made on them with the attack tables, no Board is built
+//first every position gets its code if it is mate, stalemate or no legal position, and the best result of its
+//captures and promotions, the exits, is kept aside. then pass n finds every position that is decided in n plies:
+//  odd n, wins: the positions a move leads from into a loss in n - 1 plies, found by taking moves back,
+//    and the positions whose best exit wins in n plies
+//  even n, losses: the positions a move leads from into a win in n - 1 plies whose every move now loses,
+//    checked by playing them all, and the same for positions whose worst exit loses in n plies
+//a pass only writes codes that none of its own reads can mistake for others, so the fork join tasks over index
+//ranges need no locks. whatever is still undecided when the passes stop is a draw
+final class RetrogradeAnalysis {
+
+    //positions per task
+    private static final int TASK_SIZE = 1 << 13;
+    //room for the moves of five pieces
+    private static final int MAX_MOVES = 256;
+    private static final int INITIALIZE = 0;
+    private static final int PROPAGATE = 1;
+    private static final int EXITS = 2;
+    private static final PieceType[] PROMOTION_TYPES = {null, PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+
+    private final MaterialSignature signature;
+    private final TablebaseIndex index;
+    private final Tablebases subTables;
+    private final int pieceCount;
+    private final PieceType[] pieceTypes;
+    private final boolean[] isWhite;
+    private final byte[] codes;
+    //the best code of a position's captures and promotions for the side to move, INVALID if it has none
+    private final byte[] exits;
+    private int passes;
+
+    RetrogradeAnalysis(final MaterialSignature signature, final Tablebases subTables) {
+        this.signature = signature;
+        this.index = new TablebaseIndex(signature);
+        this.subTables = subTables;
+        this.pieceCount = signature.getPieceCount();
+        this.pieceTypes = new PieceType[this.pieceCount];
+        this.isWhite = new boolean[this.pieceCount];
+        for(int slot = 0; slot < this.pieceCount; slot++){
+            this.pieceTypes[slot] = signature.getPieceType(slot);
+            this.isWhite[slot] = signature.isWhite(slot);
+        }
+        this.codes = new byte[this.index.getPositionCount()];
+        this.exits = new byte[this.index.getPositionCount()];
+    }
+
+    //the codes of every position, as the table file holds them
+    byte[] run(final ForkJoinPool pool) {
+        pool.invoke(new PassTask(INITIALIZE, 0, 0, this.codes.length));
+        int maxExitPlies = 0;
+        for(final byte exit : this.exits){
+            final int code = exit & 0xFF;
+            if(code != Tablebase.INVALID && code != Tablebase.DRAW){
+                maxExitPlies = Math.max(maxExitPlies, Tablebase.plies(code));
+            }
+        }
+        int plies = 1;
+        while(true){
+            final long decided = pool.invoke(new PassTask(PROPAGATE, plies, 0, this.codes.length)) +
+                                 pool.invoke(new PassTask(EXITS, plies, 0, this.codes.length));
+            if(decided == 0 && plies >= maxExitPlies){
+                break;
+            }
+            plies++;
+        }
+        this.passes = plies;
+        for(int i = 0; i < this.codes.length; i++){
+            if((this.codes[i] & 0xFF) == Tablebase.UNKNOWN){
+                this.codes[i] = Tablebase.DRAW;
+            }
+        }
+        return this.codes;
+    }
+
+    int getPasses() {
+        return this.passes;
+    }
+
+    private final class PassTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int phase;
+        private final int plies;
+        private final int from;
+        private final int to;
+
+        PassTask(final int phase, final int plies, final int from, final int to) {
+            this.phase = phase;
+            this.plies = plies;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if(this.to - this.from <= TASK_SIZE){
+                final Worker worker = new Worker();
+                long decided = 0L;
+                for(int position = this.from; position < this.to; position++){
+                    switch(this.phase){
+                        case INITIALIZE:
+                            worker.initialize(position);
+                            break;
+                        case PROPAGATE:
+                            decided += worker.propagate(position, this.plies);
+                            break;
+                        default:
+                            decided += worker.exit(position, this.plies);
+                            break;
+                    }
+                }
+                return decided;
+            }
+            final int middle = (this.from + this.to) >>> 1;
+            final PassTask left = new PassTask(this.phase, this.plies, this.from, middle);
+            left.fork();
+            final long right = new PassTask(this.phase, this.plies, middle, this.to).compute();
+            return right + left.join();
+        }
+    }
+
+    //the scratch space of one task: squares and move lists for a position and, apart, for the one being checked
+    private final class Worker {
+
+        private final int[] squares = new int[RetrogradeAnalysis.this.pieceCount];
+        private final int[] moveSlots = new int[MAX_MOVES];
+        private final int[] moveTargets = new int[MAX_MOVES];
+        private final int[] checkSquares = new int[RetrogradeAnalysis.this.pieceCount];
+        private final int[] checkSlots = new int[MAX_MOVES];
+        private final int[] checkTargets = new int[MAX_MOVES];
+        private final PieceType[] exitTypes = new PieceType[RetrogradeAnalysis.this.pieceCount];
+        private final boolean[] exitIsWhite = new boolean[RetrogradeAnalysis.this.pieceCount];
+        private final int[] exitSquares = new int[RetrogradeAnalysis.this.pieceCount];
+
+        void initialize(final int position) {
+            final int sideToMove = index.decode(position, this.squares);
+            if(!isLegal(this.squares, sideToMove) || index.encode(this.squares, sideToMove) != position){
+                codes[position] = (byte) Tablebase.INVALID;
+                exits[position] = (byte) Tablebase.INVALID;
+                return;
+            }
+            final boolean whiteMoves = sideToMove == 0;
+            final int moveCount = generateMoves(this.squares, whiteMoves, this.moveSlots, this.moveTargets);
+            int legalMoves = 0;
+            int bestExit = Tablebase.INVALID;
+            for(int i = 0; i < moveCount; i++){
+                final int slot = this.moveSlots[i];
+                final int target = this.moveTargets[i];
+                final int from = this.squares[slot];
+                final int captured = makeMove(this.squares, slot, target);
+                if(!isKingAttacked(this.squares, whiteMoves)){
+                    legalMoves++;
+                    if(captured >= 0 || promotionOf(target) != 0){
+                        final int exit = exitCode(slot, target, captured, whiteMoves);
+                        if(bestExit == Tablebase.INVALID || Tablebase.isBetter(exit, bestExit)){
+                            bestExit = exit;
+                        }
+                    }
+                }
+                unmakeMove(this.squares, slot, from, captured, target);
+            }
+            if(legalMoves == 0){
+                codes[position] = (byte) (isKingAttacked(this.squares, whiteMoves) ? Tablebase.lossCode(0) : Tablebase.DRAW);
+            } else {
+                codes[position] = (byte) Tablebase.UNKNOWN;
+            }
+            exits[position] = (byte) bestExit;
+        }
+
+        //takes back the moves into a position decided in plies - 1
+        int propagate(final int position, final int plies) {
+            final boolean isWinPass = (plies & 1) != 0;
+            final int frontierCode = isWinPass ? Tablebase.lossCode(plies - 1) : Tablebase.winCode(plies - 1);
+            if((codes[position] & 0xFF) != frontierCode){
+                return 0;
+            }
+            final int sideToMove = index.decode(position, this.squares);
+            //the side that moved into the position
+            final boolean whiteMoved = sideToMove != 0;
+            final int moverSide = 1 - sideToMove;
+            final int moveCount = generateUnmoves(this.squares, whiteMoved, this.moveSlots, this.moveTargets);
+            int decided = 0;
+            for(int i = 0; i < moveCount; i++){
+                final int slot = this.moveSlots[i];
+                final int from = this.squares[slot];
+                this.squares[slot] = this.moveTargets[i];
+                //the side to move now must not be in check before the move
+                if(!isKingAttacked(this.squares, !whiteMoved)){
+                    final int predecessor = index.encode(this.squares, moverSide);
+                    if((codes[predecessor] & 0xFF) == Tablebase.UNKNOWN){
+                        if(isWinPass){
+                            codes[predecessor] = (byte) Tablebase.winCode(plies);
+                            decided++;
+                        } else if(isLost(predecessor, plies)){
+                            codes[predecessor] = (byte) Tablebase.lossCode(plies);
+                            decided++;
+                        }
+                    }
+                }
+                this.squares[slot] = from;
+            }
+            return decided;
+        }
+
+        //positions decided by an exit in plies
+        int exit(final int position, final int plies) {
+            if((codes[position] & 0xFF) != Tablebase.UNKNOWN){
+                return 0;
+            }
+            final int exit = exits[position] & 0xFF;
+            if(exit == Tablebase.INVALID || exit == Tablebase.DRAW || Tablebase.plies(exit) != plies){
+                return 0;
+            }
+            if(Tablebase.isWin(exit)){
+                codes[position] = (byte) Tablebase.winCode(plies);
+                return 1;
+            }
+            if(isLost(position, plies)){
+                codes[position] = (byte) Tablebase.lossCode(plies);
+                return 1;
+            }
+            return 0;
+        }
+
+        //every move of the position loses within plies: its exits and the positions its other moves lead to
+        private boolean isLost(final int position, final int plies) {
+            final int exit = exits[position] & 0xFF;
+            if(exit != Tablebase.INVALID && !(Tablebase.isLoss(exit) && Tablebase.plies(exit) <= plies)){
+                return false;
+            }
+            final int sideToMove = index.decode(position, this.checkSquares);
+            final boolean whiteMoves = sideToMove == 0;
+            final int moveCount = generateMoves(this.checkSquares, whiteMoves, this.checkSlots, this.checkTargets);
+            for(int i = 0; i < moveCount; i++){
+                final int slot = this.checkSlots[i];
+                final int target = this.checkTargets[i];
+                final int from = this.checkSquares[slot];
+                final int captured = makeMove(this.checkSquares, slot, target);
+                final boolean isOpponentWin = captured >= 0 || promotionOf(target) != 0 ||
+                                              isKingAttacked(this.checkSquares, whiteMoves) ||
+                                              Tablebase.isWin(codes[index.encode(this.checkSquares, 1 - sideToMove)] & 0xFF);
+                unmakeMove(this.checkSquares, slot, from, captured, target);
+                if(!isOpponentWin){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        //the code of the position a capture or a promotion leads to, for the side that made it
+        private int exitCode(final int movedSlot, final int target, final int captured, final boolean whiteMoved) {
+            int count = 0;
+            for(int slot = 0; slot < pieceCount; slot++){
+                if(slot == captured){
+                    continue;
+                }
+                this.exitTypes[count] = slot == movedSlot && promotionOf(target) != 0 ? PROMOTION_TYPES[promotionOf(target)] : pieceTypes[slot];
+                this.exitIsWhite[count] = isWhite[slot];
+                this.exitSquares[count] = this.squares[slot];
+                count++;
+            }
+            final int code = subTables.probeCode(this.exitTypes, this.exitIsWhite, this.exitSquares, count, whiteMoved ? 1 : 0);
+            if(code < 0 || code == Tablebase.INVALID || code == Tablebase.UNKNOWN){
+                throw new RuntimeException("No table for a position " + signature + " leads to");
+            }
+            return Tablebase.previousPlyCode(code);
+        }
+    }
+
+    //distinct squares, no pawn on the first or last rank, and the side that just moved is not in check
+    private boolean isLegal(final int[] squares, final int sideToMove) {
+        long occupancy = 0L;
+        for(int slot = 0; slot < this.pieceCount; slot++){
+            final long bit = 1L << squares[slot];
+            if((occupancy & bit) != 0){
+                return false;
+            }
+            occupancy |= bit;
+            if(this.pieceTypes[slot] == PieceType.PAWN && (BoardUtils.FIRST_RANK[squares[slot]] || BoardUtils.EIGHTH_RANK[squares[slot]])){
+                return false;
+            }
+        }
+        return !isKingAttacked(squares, sideToMove != 0);
+    }
+
+    //the slot of a captured piece, -1 if none, its square is set to -1
+    private int makeMove(final int[] squares, final int slot, final int target) {
+        final int to = target & 0x3F;
+        int captured = -1;
+        for(int other = 0; other < this.pieceCount; other++){
+            if(squares[other] == to){
+                captured = other;
+                squares[other] = -1;
+                break;
+            }
+        }
+        squares[slot] = to;
+        return captured;
+    }
+
+    private static void unmakeMove(final int[] squares, final int slot, final int from, final int captured, final int target) {
+        squares[slot] = from;
+        if(captured >= 0){
+            squares[captured] = target & 0x3F;
+        }
+    }
+
+    //0 for no promotion, else an index into PROMOTION_TYPES
+    private static int promotionOf(final int target) {
+        return target >>> 6;
+    }
+
+    //pseudo legal moves of a side, the target holds the promotion above the destination tile
+    private int generateMoves(final int[] squares, final boolean white, final int[] slots, final int[] targets) {
+        final long occupancy = occupancy(squares);
+        final long own = occupancy(squares, white);
+        final long enemy = occupancy & ~own;
+        int count = 0;
+        for(int slot = 0; slot < this.pieceCount; slot++){
+            if(this.isWhite[slot] != white || squares[slot] < 0){
+                continue;
+            }
+            final int from = squares[slot];
+            if(this.pieceTypes[slot] == PieceType.PAWN){
+                final int direction = white ? -BoardUtils.NUM_TILES_PER_ROW : BoardUtils.NUM_TILES_PER_ROW;
+                final int push = from + direction;
+                if((occupancy & (1L << push)) == 0){
+                    count = addPawnMoves(slots, targets, count, slot, push, white);
+                    final boolean isOnStartRank = white ? BoardUtils.SECOND_RANK[from] : BoardUtils.SEVENTH_RANK[from];
+                    if(isOnStartRank && (occupancy & (1L << (push + direction))) == 0){
+                        slots[count] = slot;
+                        targets[count++] = push + direction;
+                    }
+                }
+                long captures = AttackTables.pawnAttacks(white ? Alliance.WHITE : Alliance.BLACK, from) & enemy;
+                while(captures != 0){
+                    count = addPawnMoves(slots, targets, count, slot, Long.numberOfTrailingZeros(captures), white);
+                    captures &= captures - 1;
+                }
+            } else {
+                long destinations = attacks(this.pieceTypes[slot], white, from, occupancy) & ~own;
+                while(destinations != 0){
+                    slots[count] = slot;
+                    targets[count++] = Long.numberOfTrailingZeros(destinations);
+                    destinations &= destinations - 1;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int addPawnMoves(final int[] slots, final int[] targets, int count, final int slot, final int to, final boolean white) {
+        if(white ? BoardUtils.EIGHTH_RANK[to] : BoardUtils.FIRST_RANK[to]){
+            for(int promotion = 1; promotion < PROMOTION_TYPES.length; promotion++){
+                slots[count] = slot;
+                targets[count++] = to | promotion << 6;
+            }
+        } else {
+            slots[count] = slot;
+            targets[count++] = to;
+        }
+        return count;
+    }
+
+    //the tiles the side's pieces could have come from with a move that captured and promoted nothing
+    private int generateUnmoves(final int[] squares, final boolean white, final int[] slots, final int[] targets) {
+        final long occupancy = occupancy(squares);
+        int count = 0;
+        for(int slot = 0; slot < this.pieceCount; slot++){
+            if(this.isWhite[slot] != white){
+                continue;
+            }
+            final int to = squares[slot];
+            if(this.pieceTypes[slot] == PieceType.PAWN){
+                final int direction = white ? -BoardUtils.NUM_TILES_PER_ROW : BoardUtils.NUM_TILES_PER_ROW;
+                final int from = to - direction;
+                //a pawn on its start rank has not moved, and none stands on the rank behind it
+                final boolean isOnStartRank = white ? BoardUtils.SECOND_RANK[to] : BoardUtils.SEVENTH_RANK[to];
+                if(isOnStartRank || (occupancy & (1L << from)) != 0){
+                    continue;
+                }
+                slots[count] = slot;
+                targets[count++] = from;
+                final boolean isOnJumpRank = white ? BoardUtils.FOURTH_RANK[to] : BoardUtils.FIFTH_RANK[to];
+                if(isOnJumpRank && (occupancy & (1L << (from - direction))) == 0){
+                    slots[count] = slot;
+                    targets[count++] = from - direction;
+                }
+            } else {
+                long origins = attacks(this.pieceTypes[slot], white, to, occupancy) & ~occupancy;
+                while(origins != 0){
+                    slots[count] = slot;
+                    targets[count++] = Long.numberOfTrailingZeros(origins);
+                    origins &= origins - 1;
+                }
+            }
+        }
+        return count;
+    }
+
+    //true if the side's king is attacked by the other side's pieces
+    private boolean isKingAttacked(final int[] squares, final boolean whiteKing) {
+        final int kingSquare = squares[whiteKing ? 0 : this.signature.getWhiteCount()];
+        final long occupancy = occupancy(squares);
+        for(int slot = 0; slot < this.pieceCount; slot++){
+            if(this.isWhite[slot] == whiteKing || squares[slot] < 0){
+                continue;
+            }
+            if((attacks(this.pieceTypes[slot], this.isWhite[slot], squares[slot], occupancy) & (1L << kingSquare)) != 0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long occupancy(final int[] squares) {
+        long occupancy = 0L;
+        for(int slot = 0; slot < this.pieceCount; slot++){
+            if(squares[slot] >= 0){
+                occupancy |= 1L << squares[slot];
+            }
+        }
+        return occupancy;
+    }
+
+    private long occupancy(final int[] squares, final boolean white) {
+        long occupancy = 0L;
+        for(int slot = 0; slot < this.pieceCount; slot++){
+            if(this.isWhite[slot] == white && squares[slot] >= 0){
+                occupancy |= 1L << squares[slot];
+            }
+        }
+        return occupancy;
+    }
+
+    private static long attacks(final PieceType pieceType, final boolean white, final int square, final long occupancy) {
+        switch(pieceType){
+            case PAWN:
+                return AttackTables.pawnAttacks(white ? Alliance.WHITE : Alliance.BLACK, square);
+            case KNIGHT:
+                return AttackTables.knightAttacks(square);
+            case BISHOP:
+                return AttackTables.bishopAttacks(square, occupancy);
+            case ROOK:
+                return AttackTables.rookAttacks(square, occupancy);
+            case QUEEN:
+                return AttackTables.queenAttacks(square, occupancy);
+            default:
+                return AttackTables.kingAttacks(square);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.chess.pgn;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.Move.MoveFactory;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+//turns a move in standard algebraic notation into the board's Move, Move.NULL_MOVE if there is no such move
+//the notation is read straight from the bytes: the destination, the piece type and the disambiguation pick the
+//pieces that could move, and the side to move's move index tells which of them has that move
+//long algebraic moves like e2e4 are read too, they are disambiguated by file and rank
+public final class SanParser {
+
+    private SanParser() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static Move createMove(final Board board, final String san) {
+        final byte[] bytes = san.trim().getBytes(StandardCharsets.US_ASCII);
+        return createMove(board, ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    public static Move createMove(final Board board, final ByteBuffer buffer, final int start, int end) {
+        //check marks and annotations are no part of the move
+        while(end > start && isSuffix(buffer.get(end - 1))){
+            end--;
+        }
+        if(end - start < 2){
+            return Move.NULL_MOVE;
+        }
+        final Alliance alliance = board.currentPlayer().getAlliance();
+        final byte first = buffer.get(start);
+        if(first == 'O' || first == '0'){
+            final int kingCoordinate = Long.numberOfTrailingZeros(board.getBitBoard().getPieces(PieceType.KING, alliance));
+            //O-O and O-O-O
+            final boolean isQueenSide = end - start >= 5;
+            return MoveFactory.createMove(board, kingCoordinate, isQueenSide ? kingCoordinate - 2 : kingCoordinate + 2);
+        }
+        final PieceType pieceType = pieceType(first);
+        int index = pieceType == PieceType.PAWN ? start : start + 1;
+        PieceType promotionType = null;
+        if(pieceType == PieceType.PAWN && isPromotionPiece(buffer.get(end - 1))){
+            promotionType = pieceType(buffer.get(end - 1));
+            end--;
+            if(buffer.get(end - 1) == '='){
+                end--;
+            }
+        }
+        if(end - index < 2){
+            return Move.NULL_MOVE;
+        }
+        final int destinationCoordinate = coordinate(buffer.get(end - 2), buffer.get(end - 1));
+        if(destinationCoordinate < 0){
+            return Move.NULL_MOVE;
+        }
+        int fromColumn = -1;
+        int fromRow = -1;
+        for(; index < end - 2; index++){
+            final byte b = buffer.get(index);
+            if(b >= 'a' && b <= 'h'){
+                fromColumn = b - 'a';
+            } else if(b >= '1' && b <= '8'){
+                fromRow = BoardUtils.NUM_TILES_PER_ROW - (b - '0');
+            } else if(b != 'x' && b != '-' && b != ':'){
+                return Move.NULL_MOVE;
+            }
+        }
+        long candidates = board.getBitBoard().getPieces(pieceType, alliance);
+        int currentCoordinate = -1;
+        while(candidates != 0){
+            final int candidate = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            if((fromColumn >= 0 && candidate % BoardUtils.NUM_TILES_PER_ROW != fromColumn) ||
+               (fromRow >= 0 && candidate / BoardUtils.NUM_TILES_PER_ROW != fromRow)){
+                continue;
+            }
+            final Move move = promotionType == null ?
+                    board.currentPlayer().findMove(candidate, destinationCoordinate) :
+                    board.currentPlayer().findMove(candidate, destinationCoordinate, promotionType);
+            if(move != null){
+                //two pieces have the move and nothing tells them apart
+                if(currentCoordinate >= 0){
+                    return Move.NULL_MOVE;
+                }
+                currentCoordinate = candidate;
+            }
+        }
+        if(currentCoordinate < 0){
+            return Move.NULL_MOVE;
+        }
+        return promotionType == null ?
+                MoveFactory.createMove(board, currentCoordinate, destinationCoordinate) :
+                MoveFactory.createMove(board, currentCoordinate, destinationCoordinate, promotionType);
+    }
+
+    //-1 if the two bytes are not a tile like e4
+    private static int coordinate(final byte file, final byte rank) {
+        if(file < 'a' || file > 'h' || rank < '1' || rank > '8'){
+            return -1;
+        }
+        return (BoardUtils.NUM_TILES_PER_ROW - (rank - '0')) * BoardUtils.NUM_TILES_PER_ROW + (file - 'a');
+    }
+
+    private static PieceType pieceType(final byte b) {
+        switch(b){
+            case 'N':
+                return PieceType.KNIGHT;
+            case 'B':
+                return PieceType.BISHOP;
+            case 'R':
+                return PieceType.ROOK;
+            case 'Q':
+                return PieceType.QUEEN;
+            case 'K':
+                return PieceType.KING;
+            default:
+                return PieceType.PAWN;
+        }
+    }
+
+    private static boolean isPromotionPiece(final byte b) {
+        return b == 'N' || b == 'B' || b == 'R' || b == 'Q';
+    }
+
+    private static boolean isSuffix(final byte b) {
+        return b == '+' || b == '#' || b == '!' || b == '?';
+    }
+}
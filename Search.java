@@ -0,0 +1,383 @@
+package com.chess.engine.ai;
+
+import com.chess.engine.ai.TranspositionTable.Bound;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.chess.engine.board.MoveEncoding.*;
+
+//one thread's iterative deepening negamax with alpha-beta and principal variation search over a SearchBoard
+//moves are tried in the order: transposition table move, captures that do not lose material by most valuable
+//victim and least valuable attacker, killer moves, losing captures, then the other quiet moves by their history
+//at the horizon a quiescence search plays captures on until the position is quiet
+final class Search {
+
+    static final int INFINITY = 32000;
+    static final int MATE = 31000;
+    static final int MAX_SEARCH_PLY = 128;
+    //scores beyond this are mates, counted in plies from the root
+    static final int MATE_BOUND = MATE - MAX_SEARCH_PLY;
+    static final int DRAW = 0;
+
+    //the clock is read and the node count shared once every this many nodes
+    private static final int CHECK_INTERVAL = 2048;
+    private static final int TABLE_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int KILLER_SCORE = 1 << 27;
+    private static final int LOSING_CAPTURE_SCORE = 1 << 26;
+    //a capture that cannot lift the score to alpha even with this much to spare is not searched
+    private static final int DELTA_MARGIN = 200;
+    private static final int HISTORY_LIMIT = 1 << 20;
+    private static final int MAX_TABLE_DEPTH = Byte.MAX_VALUE;
+
+    private final SearchBoard board;
+    private final TranspositionTable transpositionTable;
+    private final TimeManager timeManager;
+    private final AtomicBoolean stopFlag;
+    //nodes of all threads searching the position
+    private final AtomicLong sharedNodes;
+    //helper threads of a parallel search run ahead of the main thread by this many plies
+    private final int depthOffset;
+
+    //one move buffer per ply so nothing is allocated while searching
+    private final int[][] moves = new int[MAX_SEARCH_PLY][SearchBoard.MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_SEARCH_PLY][SearchBoard.MAX_MOVES];
+    //triangular table: row ply holds the best line from that ply on
+    private final int[][] principalVariation = new int[MAX_SEARCH_PLY][MAX_SEARCH_PLY];
+    private final int[] principalVariationLength = new int[MAX_SEARCH_PLY];
+    //two quiet moves per ply that caused a cutoff in a sibling node
+    private final int[][] killers = new int[MAX_SEARCH_PLY][2];
+    //per side, indexed by from * 64 + to: how often a quiet move caused a cutoff, weighted by depth
+    private final int[][] history = new int[2][64 * 64];
+    private long nodes;
+    //own nodes already added to sharedNodes
+    private long reportedNodes;
+    private long nextCheck = CHECK_INTERVAL;
+    private int selectiveDepth;
+
+    Search(final SearchBoard board,
+           final TranspositionTable transpositionTable,
+           final TimeManager timeManager,
+           final AtomicBoolean stopFlag,
+           final AtomicLong sharedNodes,
+           final int depthOffset) {
+        this.board = board;
+        this.transpositionTable = transpositionTable;
+        this.timeManager = timeManager;
+        this.stopFlag = stopFlag;
+        this.sharedNodes = sharedNodes;
+        this.depthOffset = depthOffset;
+    }
+
+    //searches one ply deeper each iteration until a limit is hit, an unfinished iteration is thrown away
+    SearchResult iterate(final int maxDepth, final SearchListener listener) {
+        SearchResult result = null;
+        for(int iteration = 1; iteration <= maxDepth; iteration++){
+            final int depth = Math.min(iteration + this.depthOffset, maxDepth);
+            final int score = negamax(depth, -INFINITY, INFINITY, 0);
+            if(this.stopFlag.get() && result != null){
+                break;
+            }
+            result = createResult(depth, score);
+            if(listener != null){
+                listener.iterationFinished(result);
+            }
+            //a mate found within the depth will not get any shorter
+            if(Math.abs(score) >= MATE_BOUND && MATE - Math.abs(score) <= depth){
+                break;
+            }
+            if(this.stopFlag.get() || !this.timeManager.canStartIteration(shareNodes())){
+                break;
+            }
+        }
+        shareNodes();
+        return result;
+    }
+
+    //adds the nodes searched since the last call to the shared count and returns the total
+    private long shareNodes() {
+        final long totalNodes = this.sharedNodes.addAndGet(this.nodes - this.reportedNodes);
+        this.reportedNodes = this.nodes;
+        return totalNodes;
+    }
+
+    private SearchResult createResult(final int depth, final int score) {
+        int[] line = Arrays.copyOf(this.principalVariation[0], this.principalVariationLength[0]);
+        if(line.length == 0){
+            //only when the first iteration was cut short before any root move finished
+            final int move = firstLegalMove();
+            line = move == NO_MOVE ? line : new int[]{move};
+        }
+        return new SearchResult(line.length == 0 ? NO_MOVE : line[0], score, depth, this.selectiveDepth,
+                                shareNodes(), this.timeManager.elapsedMillis(), line);
+    }
+
+    private int firstLegalMove() {
+        final int[] moveList = this.moves[0];
+        final int count = this.board.generatePseudoLegalMoves(moveList, 0);
+        for(int i = 0; i < count; i++){
+            if(this.board.makeMove(moveList[i])){
+                this.board.unmakeMove();
+                return moveList[i];
+            }
+        }
+        return NO_MOVE;
+    }
+
+    private int negamax(int depth, int alpha, final int beta, final int ply) {
+        this.principalVariationLength[ply] = 0;
+        if(ply > 0 && (this.board.isRepetition() || this.board.getHalfMoveClock() >= 100 || this.board.hasInsufficientMaterial())){
+            return DRAW;
+        }
+        if(ply >= MAX_SEARCH_PLY - 1){
+            return Evaluator.evaluate(this.board);
+        }
+        final boolean inCheck = this.board.isInCheck();
+        if(inCheck){
+            depth++;
+        }
+        if(depth <= 0){
+            return quiescence(alpha, beta, ply);
+        }
+        if(countNode(ply)){
+            return 0;
+        }
+
+        final boolean isPrincipalVariationNode = beta - alpha > 1;
+        final long key = this.board.getZobristHash();
+        final long entry = this.transpositionTable.probe(key);
+        int tableMove = NO_MOVE;
+        if(entry != TranspositionTable.NO_ENTRY){
+            tableMove = TranspositionTable.getMove(entry);
+            if(!isPrincipalVariationNode && TranspositionTable.getDepth(entry) >= depth){
+                final int tableScore = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                final Bound bound = TranspositionTable.getBound(entry);
+                if(bound == Bound.EXACT ||
+                   (bound == Bound.LOWER_BOUND && tableScore >= beta) ||
+                   (bound == Bound.UPPER_BOUND && tableScore <= alpha)){
+                    return tableScore;
+                }
+            }
+        }
+
+        final int[] moveList = this.moves[ply];
+        final int[] scores = this.moveScores[ply];
+        final int count = this.board.generatePseudoLegalMoves(moveList, 0);
+        scoreMoves(moveList, scores, count, tableMove, ply);
+        final int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = NO_MOVE;
+        int legalMoves = 0;
+        for(int i = 0; i < count; i++){
+            final int move = pickMove(moveList, scores, i, count);
+            if(!this.board.makeMove(move)){
+                continue;
+            }
+            legalMoves++;
+            int score;
+            if(legalMoves == 1){
+                score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                //every later move is expected to be worse, which a null window proves cheaply
+                score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if(score > alpha && score < beta){
+                    score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            this.board.unmakeMove();
+            if(this.stopFlag.get()){
+                return 0;
+            }
+            if(score > bestScore){
+                bestScore = score;
+                bestMove = move;
+                if(score > alpha){
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if(score >= beta){
+                        if(!isCapture(move) && !isPromotion(move)){
+                            updateQuietHeuristics(move, depth, ply);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        if(legalMoves == 0){
+            return inCheck ? -MATE + ply : DRAW;
+        }
+        final Bound bound = bestScore >= beta ? Bound.LOWER_BOUND :
+                            bestScore > originalAlpha ? Bound.EXACT : Bound.UPPER_BOUND;
+        this.transpositionTable.store(key, bestMove, scoreToTable(bestScore, ply), Math.min(depth, MAX_TABLE_DEPTH), bound);
+        return bestScore;
+    }
+
+    //counts the node and tells whether the search has to stop
+    private boolean countNode(final int ply) {
+        this.selectiveDepth = Math.max(this.selectiveDepth, ply);
+        if(++this.nodes >= this.nextCheck){
+            this.nextCheck = this.nodes + CHECK_INTERVAL;
+            if(this.timeManager.isHardLimitReached(shareNodes())){
+                this.stopFlag.set(true);
+            }
+        }
+        return this.stopFlag.get();
+    }
+
+    //only captures and queen promotions, the side to move may also stand pat on the static evaluation
+    //captures that lose material by static exchange, or that cannot reach alpha, are skipped
+    //in check every move is searched, since standing pat is not an option there
+    private int quiescence(int alpha, final int beta, final int ply) {
+        this.principalVariationLength[ply] = 0;
+        if(countNode(ply)){
+            return 0;
+        }
+        if(ply >= MAX_SEARCH_PLY - 1){
+            return Evaluator.evaluate(this.board);
+        }
+        final boolean inCheck = this.board.isInCheck();
+        final int standPat = inCheck ? -INFINITY : Evaluator.evaluate(this.board);
+        if(standPat >= beta){
+            return standPat;
+        }
+        if(standPat > alpha){
+            alpha = standPat;
+        }
+        final int[] moveList = this.moves[ply];
+        final int[] scores = this.moveScores[ply];
+        final int count = inCheck ? this.board.generatePseudoLegalMoves(moveList, 0) :
+                                    this.board.generateCaptures(moveList, 0);
+        scoreMoves(moveList, scores, count, NO_MOVE, ply);
+        int bestScore = standPat;
+        int legalMoves = 0;
+        for(int i = 0; i < count; i++){
+            final int move = pickMove(moveList, scores, i, count);
+            if(!inCheck){
+                final PieceType capturedType = getCapturedType(move);
+                final int capturedValue = capturedType == null ? 0 : capturedType.getPieceValue();
+                if(!isPromotion(move) && standPat + capturedValue + DELTA_MARGIN <= alpha){
+                    continue;
+                }
+                if(scores[i] < CAPTURE_SCORE){
+                    //scoreMoves found it loses material
+                    continue;
+                }
+            }
+            if(!this.board.makeMove(move)){
+                continue;
+            }
+            legalMoves++;
+            final int score = -quiescence(-beta, -alpha, ply + 1);
+            this.board.unmakeMove();
+            if(this.stopFlag.get()){
+                return 0;
+            }
+            if(score > bestScore){
+                bestScore = score;
+                if(score > alpha){
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if(score >= beta){
+                        break;
+                    }
+                }
+            }
+        }
+        if(inCheck && legalMoves == 0){
+            return -MATE + ply;
+        }
+        return bestScore;
+    }
+
+    private void updatePrincipalVariation(final int ply, final int move) {
+        final int[] line = this.principalVariation[ply];
+        line[0] = move;
+        final int childLength = this.principalVariationLength[ply + 1];
+        System.arraycopy(this.principalVariation[ply + 1], 0, line, 1, childLength);
+        this.principalVariationLength[ply] = childLength + 1;
+    }
+
+    private void updateQuietHeuristics(final int move, final int depth, final int ply) {
+        final int[] plyKillers = this.killers[ply];
+        if(plyKillers[0] != move){
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        final int[] sideHistory = this.history[this.board.getSideToMove().ordinal()];
+        final int index = historyIndex(move);
+        sideHistory[index] += depth * depth;
+        if(sideHistory[index] >= HISTORY_LIMIT){
+            //halving keeps the order but lets newer cutoffs count
+            for(int i = 0; i < sideHistory.length; i++){
+                sideHistory[i] /= 2;
+            }
+        }
+    }
+
+    private static int historyIndex(final int move) {
+        return getCurrentCoordinate(move) * 64 + getDestinationCoordinate(move);
+    }
+
+    private void scoreMoves(final int[] moveList, final int[] scores, final int count, final int tableMove, final int ply) {
+        final int[] plyKillers = this.killers[ply];
+        final int[] sideHistory = this.history[this.board.getSideToMove().ordinal()];
+        for(int i = 0; i < count; i++){
+            final int move = moveList[i];
+            if(move == tableMove){
+                scores[i] = TABLE_MOVE_SCORE;
+            } else if(isCapture(move)){
+                final PieceType attacker = this.board.getPieceType(getCurrentCoordinate(move));
+                final PieceType victim = getCapturedType(move);
+                final int victimOrder = victim.ordinal() * 8 + PieceType.KING.ordinal() - attacker.ordinal();
+                //taking a piece at least as valuable as the attacker never loses material
+                final boolean isLosing = victim.getPieceValue() < attacker.getPieceValue() &&
+                                         StaticExchange.staticExchangeEvaluation(this.board, move) < 0;
+                scores[i] = (isLosing ? LOSING_CAPTURE_SCORE : CAPTURE_SCORE) + victimOrder;
+            } else if(getFlags(move) == QUEEN_PROMOTION){
+                scores[i] = CAPTURE_SCORE + PieceType.QUEEN.ordinal() * 8;
+            } else if(move == plyKillers[0]){
+                scores[i] = KILLER_SCORE;
+            } else if(move == plyKillers[1]){
+                scores[i] = KILLER_SCORE - 1;
+            } else {
+                scores[i] = sideHistory[historyIndex(move)];
+            }
+        }
+    }
+
+    //selection sort one step at a time: after a cutoff the rest of the list never needs sorting
+    private static int pickMove(final int[] moveList, final int[] scores, final int index, final int count) {
+        int best = index;
+        for(int i = index + 1; i < count; i++){
+            if(scores[i] > scores[best]){
+                best = i;
+            }
+        }
+        final int move = moveList[best];
+        moveList[best] = moveList[index];
+        moveList[index] = move;
+        final int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    //mate scores are stored relative to the node, not the root, so they stay right wherever the position comes up
+    private static int scoreToTable(final int score, final int ply) {
+        if(score >= MATE_BOUND){
+            return score + ply;
+        }
+        return score <= -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int scoreFromTable(final int score, final int ply) {
+        if(score >= MATE_BOUND){
+            return score - ply;
+        }
+        return score <= -MATE_BOUND ? score + ply : score;
+    }
+}
@@ -0,0 +1,479 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Pawn;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+import com.chess.engine.pieces.PieceUtils;
+
+import java.util.Arrays;
+
+import static com.chess.engine.board.MoveEncoding.*;
+
+//a mutable position for tree search: makeMove/unmakeMove only touch the tiles of the move and
+//restore the rest from an undo stack, so walking the tree allocates nothing
+//moves are MoveEncoding ints
+public final class SearchBoard implements PiecePlacement {
+
+    public static final int MAX_MOVES = 256;
+    public static final int MAX_PLY = 1024;
+
+    static final int WHITE = 0;
+    static final int BLACK = 1;
+    static final int EMPTY = -1;
+    static final int PAWN = PieceType.PAWN.ordinal();
+    static final int KNIGHT = PieceType.KNIGHT.ordinal();
+    static final int BISHOP = PieceType.BISHOP.ordinal();
+    static final int ROOK = PieceType.ROOK.ordinal();
+    static final int QUEEN = PieceType.QUEEN.ordinal();
+    static final int KING = PieceType.KING.ordinal();
+
+    private static final Alliance[] ALLIANCES = Alliance.values();
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    private static final int[] PROMOTION_PIECES = {KNIGHT, BISHOP, ROOK, QUEEN};
+
+    //indexed like BitBoard: piece type * 2 + alliance
+    private final long[] pieceBoards = new long[12];
+    private final long[] occupancy = new long[2];
+    private final int[] mailbox = new int[BoardUtils.NUM_TILES];
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfMoveClock;
+    private long zobristHash;
+    //kept up to date by every piece that is added or removed, so unmaking a move restores it too
+    private int pieceSquareScore;
+
+    private final int[] moveStack = new int[MAX_PLY];
+    private final int[] capturedStack = new int[MAX_PLY];
+    private final int[] castlingStack = new int[MAX_PLY];
+    private final int[] enPassantStack = new int[MAX_PLY];
+    private final int[] halfMoveStack = new int[MAX_PLY];
+    private final long[] hashStack = new long[MAX_PLY];
+    private int ply;
+    //of the board the search board was made from, the full move number follows from them and the ply
+    private final int rootFullMoveNumber;
+    private final int rootSideToMove;
+
+    public SearchBoard(final Board board) {
+        Arrays.fill(this.mailbox, EMPTY);
+        for(final Piece piece : board.getWhitePieces()){
+            addPiece(pieceCode(piece.getPieceType().ordinal(), WHITE), piece.getPiecePosition());
+        }
+        for(final Piece piece : board.getBlackPieces()){
+            addPiece(pieceCode(piece.getPieceType().ordinal(), BLACK), piece.getPiecePosition());
+        }
+        this.sideToMove = board.currentPlayer().getAlliance().ordinal();
+        this.castlingRights = board.getCastlingRights();
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        this.enPassantSquare = enPassantPawn == null ? EMPTY :
+                enPassantPawn.getPiecePosition() - enPassantPawn.getPieceAlliance().getDirection() * BoardUtils.NUM_TILES_PER_ROW;
+        this.halfMoveClock = board.getHalfMoveClock();
+        this.zobristHash = board.getZobristHash();
+        this.pieceSquareScore = board.getPieceSquareScore();
+        this.ply = 0;
+        this.rootFullMoveNumber = board.getFullMoveNumber();
+        this.rootSideToMove = this.sideToMove;
+    }
+
+    static int pieceCode(final int pieceType, final int alliance) {
+        return pieceType * 2 + alliance;
+    }
+
+    public Alliance getSideToMove() {
+        return ALLIANCES[this.sideToMove];
+    }
+
+    public int getPly() {
+        return this.ply;
+    }
+
+    public int getEnPassantSquare() {
+        return this.enPassantSquare;
+    }
+
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    public int getHalfMoveClock() {
+        return this.halfMoveClock;
+    }
+
+    //counted up after every black move
+    public int getFullMoveNumber() {
+        return this.rootFullMoveNumber + (this.ply + this.rootSideToMove) / 2;
+    }
+
+    //material and piece square bonuses of both sides, packed as PieceSquareTables describes
+    public int getPieceSquareScore() {
+        return this.pieceSquareScore;
+    }
+
+    //the position already came up since the last capture or pawn move, with the same side to move
+    //only positions reached on this board count, the game before it is not known here
+    public boolean isRepetition() {
+        final int first = Math.max(0, this.ply - this.halfMoveClock);
+        for(int i = this.ply - 2; i >= first; i -= 2){
+            if(this.hashStack[i] == this.zobristHash){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //the same key the immutable Board has for this position
+    public long getZobristHash() {
+        return this.zobristHash;
+    }
+
+    @Override
+    public long getPieces(final PieceType pieceType, final Alliance alliance) {
+        return this.pieceBoards[pieceCode(pieceType.ordinal(), alliance.ordinal())];
+    }
+
+    //no side can force mate, as Board.hasInsufficientMaterial()
+    public boolean hasInsufficientMaterial() {
+        return Board.isInsufficientMaterial(pieces(PAWN) | pieces(ROOK) | pieces(QUEEN), pieces(KNIGHT), pieces(BISHOP));
+    }
+
+    //both sides' pieces of a type
+    private long pieces(final int pieceType) {
+        return this.pieceBoards[pieceCode(pieceType, WHITE)] | this.pieceBoards[pieceCode(pieceType, BLACK)];
+    }
+
+    @Override
+    public long getOccupancy(final Alliance alliance) {
+        return this.occupancy[alliance.ordinal()];
+    }
+
+    @Override
+    public long getOccupancy() {
+        return this.occupancy[WHITE] | this.occupancy[BLACK];
+    }
+
+    //returns null for an empty tile
+    public PieceType getPieceType(final int square) {
+        return this.mailbox[square] == EMPTY ? null : PIECE_TYPES[this.mailbox[square] / 2];
+    }
+
+    //returns null for an empty tile
+    public Alliance getAlliance(final int square) {
+        return this.mailbox[square] == EMPTY ? null : ALLIANCES[this.mailbox[square] % 2];
+    }
+
+    public boolean isInCheck() {
+        return isSquareAttacked(kingSquare(this.sideToMove), this.sideToMove ^ 1);
+    }
+
+    public boolean isSquareAttacked(final int square, final Alliance byAlliance) {
+        return isSquareAttacked(square, byAlliance.ordinal());
+    }
+
+    @Override
+    public long getAttackers(final int square, final Alliance byAlliance, final long occupancy) {
+        final int attacker = byAlliance.ordinal();
+        final long queens = this.pieceBoards[pieceCode(QUEEN, attacker)];
+        return (AttackTables.pawnAttacks(ALLIANCES[attacker ^ 1], square) & this.pieceBoards[pieceCode(PAWN, attacker)]) |
+               (AttackTables.knightAttacks(square) & this.pieceBoards[pieceCode(KNIGHT, attacker)]) |
+               (AttackTables.kingAttacks(square) & this.pieceBoards[pieceCode(KING, attacker)]) |
+               (AttackTables.bishopAttacks(square, occupancy) & (this.pieceBoards[pieceCode(BISHOP, attacker)] | queens)) |
+               (AttackTables.rookAttacks(square, occupancy) & (this.pieceBoards[pieceCode(ROOK, attacker)] | queens));
+    }
+
+    //looks from the square outwards with every piece's attack set, a hit on a matching enemy piece is an attack
+    boolean isSquareAttacked(final int square, final int byAlliance) {
+        final long allOccupancy = getOccupancy();
+        final long queens = this.pieceBoards[pieceCode(QUEEN, byAlliance)];
+        return (AttackTables.pawnAttacks(ALLIANCES[byAlliance ^ 1], square) & this.pieceBoards[pieceCode(PAWN, byAlliance)]) != 0 ||
+               (AttackTables.knightAttacks(square) & this.pieceBoards[pieceCode(KNIGHT, byAlliance)]) != 0 ||
+               (AttackTables.kingAttacks(square) & this.pieceBoards[pieceCode(KING, byAlliance)]) != 0 ||
+               (AttackTables.bishopAttacks(square, allOccupancy) & (this.pieceBoards[pieceCode(BISHOP, byAlliance)] | queens)) != 0 ||
+               (AttackTables.rookAttacks(square, allOccupancy) & (this.pieceBoards[pieceCode(ROOK, byAlliance)] | queens)) != 0;
+    }
+
+    int kingSquare(final int alliance) {
+        return Long.numberOfTrailingZeros(this.pieceBoards[pieceCode(KING, alliance)]);
+    }
+
+    //fills moves from index count onwards and returns the new count, moves may still leave the king in check
+    public int generatePseudoLegalMoves(final int[] moves, final int count) {
+        return generateMoves(moves, count, false);
+    }
+
+    //like generatePseudoLegalMoves, but only captures and promotions to a queen, for quiescence search
+    public int generateCaptures(final int[] moves, final int count) {
+        return generateMoves(moves, count, true);
+    }
+
+    private int generateMoves(final int[] moves, int count, final boolean capturesOnly) {
+        final int us = this.sideToMove;
+        final int them = us ^ 1;
+        final long own = this.occupancy[us];
+        final long enemy = this.occupancy[them];
+        final long allOccupancy = own | enemy;
+        final long targets = capturesOnly ? enemy : ~own;
+        count = generatePawnMoves(moves, count, us, enemy, allOccupancy, capturesOnly);
+        long knights = this.pieceBoards[pieceCode(KNIGHT, us)];
+        while(knights != 0){
+            final int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            count = addMoves(moves, count, from, AttackTables.knightAttacks(from) & targets, enemy);
+        }
+        long bishops = this.pieceBoards[pieceCode(BISHOP, us)] | this.pieceBoards[pieceCode(QUEEN, us)];
+        while(bishops != 0){
+            final int from = Long.numberOfTrailingZeros(bishops);
+            bishops &= bishops - 1;
+            count = addMoves(moves, count, from, AttackTables.bishopAttacks(from, allOccupancy) & targets, enemy);
+        }
+        long rooks = this.pieceBoards[pieceCode(ROOK, us)] | this.pieceBoards[pieceCode(QUEEN, us)];
+        while(rooks != 0){
+            final int from = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            count = addMoves(moves, count, from, AttackTables.rookAttacks(from, allOccupancy) & targets, enemy);
+        }
+        final int kingSquare = kingSquare(us);
+        count = addMoves(moves, count, kingSquare, AttackTables.kingAttacks(kingSquare) & targets, enemy);
+        return capturesOnly ? count : generateCastles(moves, count, us, allOccupancy);
+    }
+
+    public void generatePseudoLegalMoves(final IntMoveList moves) {
+        moves.setSize(generatePseudoLegalMoves(moves.elements(MAX_MOVES), moves.size()));
+    }
+
+    private int addMoves(final int[] moves, int count, final int from, long destinations, final long enemy) {
+        while(destinations != 0){
+            final int to = Long.numberOfTrailingZeros(destinations);
+            destinations &= destinations - 1;
+            moves[count++] = (enemy & BitBoard.squareBit(to)) != 0 ? encode(from, to, CAPTURE, this.mailbox[to] / 2) :
+                                                                   encode(from, to, QUIET_MOVE);
+        }
+        return count;
+    }
+
+    private int generatePawnMoves(final int[] moves,
+                                  int count,
+                                  final int us,
+                                  final long enemy,
+                                  final long allOccupancy,
+                                  final boolean capturesOnly) {
+        final int forward = us == WHITE ? -BoardUtils.NUM_TILES_PER_ROW : BoardUtils.NUM_TILES_PER_ROW;
+        long pawns = this.pieceBoards[pieceCode(PAWN, us)];
+        while(pawns != 0){
+            final int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            final int push = from + forward;
+            if((allOccupancy & BitBoard.squareBit(push)) == 0){
+                if(isPromotionSquare(push)){
+                    if(capturesOnly){
+                        moves[count++] = encode(from, push, QUEEN_PROMOTION);
+                    } else {
+                        count = addPromotions(moves, count, from, push, QUIET_MOVE, EMPTY);
+                    }
+                } else if(!capturesOnly){
+                    moves[count++] = encode(from, push, QUIET_MOVE);
+                    if(isPawnStartSquare(from, us) && (allOccupancy & BitBoard.squareBit(push + forward)) == 0){
+                        moves[count++] = encode(from, push + forward, PAWN_JUMP);
+                    }
+                }
+            }
+            final long attacks = AttackTables.pawnAttacks(ALLIANCES[us], from);
+            long captures = attacks & enemy;
+            while(captures != 0){
+                final int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                if(isPromotionSquare(to)){
+                    count = addPromotions(moves, count, from, to, CAPTURE, this.mailbox[to] / 2);
+                } else {
+                    moves[count++] = encode(from, to, CAPTURE, this.mailbox[to] / 2);
+                }
+            }
+            if(this.enPassantSquare != EMPTY && (attacks & BitBoard.squareBit(this.enPassantSquare)) != 0){
+                moves[count++] = encode(from, this.enPassantSquare, EN_PASSANT_CAPTURE, PAWN);
+            }
+        }
+        return count;
+    }
+
+    private static int addPromotions(final int[] moves,
+                                     int count,
+                                     final int from,
+                                     final int to,
+                                     final int captureFlag,
+                                     final int capturedType) {
+        for(int promotion = QUEEN_PROMOTION; promotion >= KNIGHT_PROMOTION; promotion--){
+            moves[count++] = encode(from, to, promotion | captureFlag, capturedType);
+        }
+        return count;
+    }
+
+    private static boolean isPromotionSquare(final int square) {
+        return BoardUtils.EIGHTH_RANK[square] || BoardUtils.FIRST_RANK[square];
+    }
+
+    private static boolean isPawnStartSquare(final int square, final int alliance) {
+        return alliance == WHITE ? BoardUtils.SECOND_RANK[square] : BoardUtils.SEVENTH_RANK[square];
+    }
+
+    //the king may not castle out of, through or into check
+    private int generateCastles(final int[] moves, int count, final int us, final long allOccupancy) {
+        final int them = us ^ 1;
+        final int kingSideRight = us == WHITE ? BoardUtils.WHITE_KING_SIDE_CASTLE : BoardUtils.BLACK_KING_SIDE_CASTLE;
+        final int queenSideRight = us == WHITE ? BoardUtils.WHITE_QUEEN_SIDE_CASTLE : BoardUtils.BLACK_QUEEN_SIDE_CASTLE;
+        if((this.castlingRights & (kingSideRight | queenSideRight)) == 0){
+            return count;
+        }
+        final int kingSquare = us == WHITE ? 60 : 4;
+        if(isSquareAttacked(kingSquare, them)){
+            return count;
+        }
+        if((this.castlingRights & kingSideRight) != 0 &&
+           (allOccupancy & (BitBoard.squareBit(kingSquare + 1) | BitBoard.squareBit(kingSquare + 2))) == 0 &&
+           !isSquareAttacked(kingSquare + 1, them) && !isSquareAttacked(kingSquare + 2, them)){
+            moves[count++] = encode(kingSquare, kingSquare + 2, KING_SIDE_CASTLE);
+        }
+        if((this.castlingRights & queenSideRight) != 0 &&
+           (allOccupancy & (BitBoard.squareBit(kingSquare - 1) | BitBoard.squareBit(kingSquare - 2) |
+                            BitBoard.squareBit(kingSquare - 3))) == 0 &&
+           !isSquareAttacked(kingSquare - 1, them) && !isSquareAttacked(kingSquare - 2, them)){
+            moves[count++] = encode(kingSquare, kingSquare - 2, QUEEN_SIDE_CASTLE);
+        }
+        return count;
+    }
+
+    //plays the move and returns true, or returns false with the position untouched if it leaves our king in check
+    public boolean makeMove(final int move) {
+        final int from = getCurrentCoordinate(move);
+        final int to = getDestinationCoordinate(move);
+        final int flags = getFlags(move);
+        final int us = this.sideToMove;
+        final int movedPiece = this.mailbox[from];
+        final int capturedSquare = flags == EN_PASSANT_CAPTURE ? to - forwardOffset(us) : to;
+        final int capturedPiece = this.mailbox[capturedSquare];
+
+        this.moveStack[this.ply] = move;
+        this.capturedStack[this.ply] = capturedPiece;
+        this.castlingStack[this.ply] = this.castlingRights;
+        this.enPassantStack[this.ply] = this.enPassantSquare;
+        this.halfMoveStack[this.ply] = this.halfMoveClock;
+        this.hashStack[this.ply] = this.zobristHash;
+        this.ply++;
+
+        if(capturedPiece != EMPTY){
+            removePiece(capturedPiece, capturedSquare);
+        }
+        removePiece(movedPiece, from);
+        addPiece((flags & KNIGHT_PROMOTION) != 0 ? pieceCode(PROMOTION_PIECES[flags & 3], us) : movedPiece, to);
+        if(flags == KING_SIDE_CASTLE){
+            movePiece(pieceCode(ROOK, us), to + 1, to - 1);
+        } else if(flags == QUEEN_SIDE_CASTLE){
+            movePiece(pieceCode(ROOK, us), to - 2, to + 1);
+        }
+
+        final int castlingRights = BoardUtils.updateCastlingRights(this.castlingRights, from, to);
+        final int enPassantSquare = flags == PAWN_JUMP ? (from + to) / 2 : EMPTY;
+        this.zobristHash ^= Zobrist.castlingKey(this.castlingRights) ^ Zobrist.castlingKey(castlingRights) ^
+                            Zobrist.enPassantKey(this.enPassantSquare) ^ Zobrist.enPassantKey(enPassantSquare) ^
+                            Zobrist.sideToMoveKey(Alliance.BLACK);
+        this.enPassantSquare = enPassantSquare;
+        this.castlingRights = castlingRights;
+        this.halfMoveClock = (capturedPiece != EMPTY || movedPiece / 2 == PAWN) ? 0 : this.halfMoveClock + 1;
+        this.sideToMove = us ^ 1;
+
+        if(isSquareAttacked(kingSquare(us), us ^ 1)){
+            unmakeMove();
+            return false;
+        }
+        return true;
+    }
+
+    public void unmakeMove() {
+        this.ply--;
+        final int move = this.moveStack[this.ply];
+        final int from = getCurrentCoordinate(move);
+        final int to = getDestinationCoordinate(move);
+        final int flags = getFlags(move);
+        final int us = this.sideToMove ^ 1;
+        this.sideToMove = us;
+
+        final int pieceOnDestination = this.mailbox[to];
+        removePiece(pieceOnDestination, to);
+        addPiece((flags & KNIGHT_PROMOTION) != 0 ? pieceCode(PAWN, us) : pieceOnDestination, from);
+        if(flags == KING_SIDE_CASTLE){
+            movePiece(pieceCode(ROOK, us), to - 1, to + 1);
+        } else if(flags == QUEEN_SIDE_CASTLE){
+            movePiece(pieceCode(ROOK, us), to + 1, to - 2);
+        }
+        final int capturedPiece = this.capturedStack[this.ply];
+        if(capturedPiece != EMPTY){
+            addPiece(capturedPiece, flags == EN_PASSANT_CAPTURE ? to - forwardOffset(us) : to);
+        }
+
+        this.castlingRights = this.castlingStack[this.ply];
+        this.enPassantSquare = this.enPassantStack[this.ply];
+        this.halfMoveClock = this.halfMoveStack[this.ply];
+        this.zobristHash = this.hashStack[this.ply];
+    }
+
+    private static int forwardOffset(final int alliance) {
+        return alliance == WHITE ? -BoardUtils.NUM_TILES_PER_ROW : BoardUtils.NUM_TILES_PER_ROW;
+    }
+
+    private void addPiece(final int piece, final int square) {
+        final long bit = BitBoard.squareBit(square);
+        this.pieceBoards[piece] |= bit;
+        this.occupancy[piece & 1] |= bit;
+        this.mailbox[square] = piece;
+        this.zobristHash ^= Zobrist.pieceKey(piece, square);
+        this.pieceSquareScore += PieceSquareTables.score(piece, square);
+    }
+
+    private void removePiece(final int piece, final int square) {
+        final long bit = BitBoard.squareBit(square);
+        this.pieceBoards[piece] &= ~bit;
+        this.occupancy[piece & 1] &= ~bit;
+        this.mailbox[square] = EMPTY;
+        this.zobristHash ^= Zobrist.pieceKey(piece, square);
+        this.pieceSquareScore -= PieceSquareTables.score(piece, square);
+    }
+
+    private void movePiece(final int piece, final int from, final int to) {
+        removePiece(piece, from);
+        addPiece(piece, to);
+    }
+
+    //builds the immutable board for the current position, e.g. to show a search result in the gui
+    public Board toBoard() {
+        final Board.Builder builder = new Board.Builder();
+        for(int square = 0; square < BoardUtils.NUM_TILES; square++){
+            if(this.mailbox[square] != EMPTY){
+                builder.setPiece(createPiece(this.mailbox[square], square));
+            }
+        }
+        builder.setMoveMaker(getSideToMove());
+        if(this.enPassantSquare != EMPTY){
+            final int pawnSquare = this.enPassantSquare - forwardOffset(this.sideToMove);
+            builder.setEnPassantPawn((Pawn) createPiece(this.mailbox[pawnSquare], pawnSquare));
+        }
+        builder.setMoveClocks(this.halfMoveClock, getFullMoveNumber());
+        return builder.build();
+    }
+
+    private Piece createPiece(final int piece, final int square) {
+        final Alliance alliance = ALLIANCES[piece & 1];
+        final int type = piece / 2;
+        final boolean isFirstMove;
+        if(type == PAWN){
+            isFirstMove = isPawnStartSquare(square, alliance.ordinal());
+        } else if(type == ROOK){
+            isFirstMove = BoardUtils.updateCastlingRights(this.castlingRights, square, square) != this.castlingRights;
+        } else if(type == KING){
+            final int rights = alliance.isWhite() ? BoardUtils.WHITE_KING_SIDE_CASTLE | BoardUtils.WHITE_QUEEN_SIDE_CASTLE :
+                                                    BoardUtils.BLACK_KING_SIDE_CASTLE | BoardUtils.BLACK_QUEEN_SIDE_CASTLE;
+            isFirstMove = (this.castlingRights & rights) != 0;
+        } else {
+            isFirstMove = false;
+        }
+        return PieceUtils.getPiece(PIECE_TYPES[type], alliance, square, isFirstMove);
+    }
+}
@@ -0,0 +1,161 @@
+package com.chess.engine.ai;
+
+import com.chess.engine.DaemonThreadFactory;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.book.OpeningBook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+//picks a move for a Board by searching a SearchBoard copy of it
+//with more than one thread the search is lazy smp: every thread searches the same root on its own SearchBoard
+//and they only share the transposition table, where each finds what the others have already worked out
+//half of the helpers search one ply deeper than the main thread so the threads do not all walk the same tree
+//the transposition table is kept from one search to the next, newGame() empties it
+//with an opening book a position in it gets a book move and no search
+public final class SearchEngine {
+
+    public static final int DEFAULT_HASH_SIZE = 64;
+
+    private final TranspositionTable transpositionTable;
+    private final AtomicBoolean stopFlag = new AtomicBoolean();
+    private final int threads;
+    //runs the helper threads, null for a single threaded engine
+    private final ExecutorService helperPool;
+    private final Random bookRandom = new Random();
+    //null for none
+    private volatile OpeningBook openingBook;
+
+    public SearchEngine() {
+        this(DEFAULT_HASH_SIZE);
+    }
+
+    public SearchEngine(final int hashSizeInMegabytes) {
+        this(hashSizeInMegabytes, 1);
+    }
+
+    public SearchEngine(final int hashSizeInMegabytes, final int threads) {
+        if(threads < 1){
+            throw new IllegalArgumentException("A search needs at least 1 thread, got " + threads);
+        }
+        this.transpositionTable = new TranspositionTable(hashSizeInMegabytes);
+        this.threads = threads;
+        this.helperPool = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1,
+                new DaemonThreadFactory("search-helper"));
+    }
+
+    public SearchResult search(final Board board, final SearchLimits limits) {
+        return search(board, limits, null);
+    }
+
+    //blocks until a limit is hit or stop() is called, listener may be null
+    //the result is the main thread's, with the nodes of all threads
+    //the stop flag is cleared when a search ends and not when one starts, so a stop() that comes in before the
+    //search has got going still stops it
+    public SearchResult search(final Board board, final SearchLimits limits, final SearchListener listener) {
+        try {
+            final OpeningBook book = this.openingBook;
+            if(book != null){
+                final Move bookMove = book.pickMove(board, this.bookRandom);
+                if(bookMove != null){
+                    return SearchResult.forBookMove(bookMove.getEncodedMove());
+                }
+            }
+            this.transpositionTable.newSearch();
+            final TimeManager timeManager = new TimeManager(limits);
+            final AtomicLong nodes = new AtomicLong();
+            final List<Future<?>> helpers = new ArrayList<>();
+            for(int i = 1; i < this.threads; i++){
+                final Search helper = new Search(new SearchBoard(board), this.transpositionTable, timeManager,
+                                                 this.stopFlag, nodes, i & 1);
+                helpers.add(this.helperPool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        helper.iterate(limits.getDepth(), null);
+                    }
+                }));
+            }
+            final Search mainSearch = new Search(new SearchBoard(board), this.transpositionTable, timeManager,
+                                                 this.stopFlag, nodes, 0);
+            final SearchResult result = mainSearch.iterate(limits.getDepth(), listener);
+            if(helpers.isEmpty()){
+                return result;
+            }
+            //helpers that are ahead would go on forever, the main thread decides when the search is over
+            this.stopFlag.set(true);
+            awaitHelpers(helpers);
+            return result.withTotals(nodes.get(), timeManager.elapsedMillis());
+        } finally {
+            this.stopFlag.set(false);
+        }
+    }
+
+    //ends a running search from another thread, it returns its last finished iteration
+    public void stop() {
+        this.stopFlag.set(true);
+    }
+
+    public void newGame() {
+        this.transpositionTable.clear();
+    }
+
+    //the book is not closed by the engine, null turns it off
+    public void setOpeningBook(final OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public OpeningBook getOpeningBook() {
+        return this.openingBook;
+    }
+
+    public int getThreads() {
+        return this.threads;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return this.transpositionTable;
+    }
+
+    //waits for every helper before the stop flag is cleared, the first failure is thrown after that
+    private static void awaitHelpers(final List<Future<?>> helpers) {
+        RuntimeException failure = null;
+        boolean isInterrupted = false;
+        for(final Future<?> helper : helpers){
+            while(true){
+                try {
+                    helper.get();
+                    break;
+                } catch (final InterruptedException e) {
+                    isInterrupted = true;
+                } catch (final ExecutionException e) {
+                    if(failure == null){
+                        failure = new RuntimeException("A search thread failed", e.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+        if(isInterrupted){
+            Thread.currentThread().interrupt();
+        }
+        if(failure != null){
+            throw failure;
+        }
+    }
+
+    //stops the helper threads for good, the engine cannot search on more than one thread afterwards
+    public void shutdown() {
+        if(this.helperPool != null){
+            this.helperPool.shutdownNow();
+        }
+    }
+}
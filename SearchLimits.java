@@ -0,0 +1,116 @@
+package com.chess.engine.ai;
+
+//what ends a search: a depth, a node budget, a fixed time per move or a game clock with increment
+//limits left at 0 do not apply, a search without any limit runs until it is stopped or reaches MAX_DEPTH
+public final class SearchLimits {
+
+    public static final int MAX_DEPTH = 64;
+
+    private final int depth;
+    private final long nodes;
+    private final long moveTime;
+    private final long timeLeft;
+    private final long increment;
+    private final int movesToGo;
+
+    private SearchLimits(final Builder builder) {
+        this.depth = builder.depth;
+        this.nodes = builder.nodes;
+        this.moveTime = builder.moveTime;
+        this.timeLeft = builder.timeLeft;
+        this.increment = builder.increment;
+        this.movesToGo = builder.movesToGo;
+    }
+
+    public static SearchLimits depth(final int depth) {
+        return new Builder().setDepth(depth).build();
+    }
+
+    public static SearchLimits moveTime(final long moveTime) {
+        return new Builder().setMoveTime(moveTime).build();
+    }
+
+    public static SearchLimits nodes(final long nodes) {
+        return new Builder().setNodes(nodes).build();
+    }
+
+    public int getDepth() {
+        return this.depth == 0 ? MAX_DEPTH : this.depth;
+    }
+
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    //milliseconds
+    public long getMoveTime() {
+        return this.moveTime;
+    }
+
+    //milliseconds on the clock of the side to move
+    public long getTimeLeft() {
+        return this.timeLeft;
+    }
+
+    public long getIncrement() {
+        return this.increment;
+    }
+
+    //0 if the time control has no next time check
+    public int getMovesToGo() {
+        return this.movesToGo;
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + this.depth + " nodes " + this.nodes + " movetime " + this.moveTime +
+               " time " + this.timeLeft + " inc " + this.increment + " movestogo " + this.movesToGo;
+    }
+
+    public static class Builder {
+
+        private int depth;
+        private long nodes;
+        private long moveTime;
+        private long timeLeft;
+        private long increment;
+        private int movesToGo;
+
+        public Builder setDepth(final int depth) {
+            if(depth < 0 || depth > MAX_DEPTH){
+                throw new IllegalArgumentException("Search depth has to be between 0 and " + MAX_DEPTH + ", got " + depth);
+            }
+            this.depth = depth;
+            return this;
+        }
+
+        public Builder setNodes(final long nodes) {
+            this.nodes = nodes;
+            return this;
+        }
+
+        public Builder setMoveTime(final long moveTime) {
+            this.moveTime = moveTime;
+            return this;
+        }
+
+        public Builder setTimeLeft(final long timeLeft) {
+            this.timeLeft = timeLeft;
+            return this;
+        }
+
+        public Builder setIncrement(final long increment) {
+            this.increment = increment;
+            return this;
+        }
+
+        public Builder setMovesToGo(final int movesToGo) {
+            this.movesToGo = movesToGo;
+            return this;
+        }
+
+        public SearchLimits build() {
+            return new SearchLimits(this);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.chess.engine.ai;
+
+//told about every iteration the search finishes, e.g. to print its progress
+public interface SearchListener {
+
+    void iterationFinished(SearchResult result);
+}
@@ -0,0 +1,120 @@
+package com.chess.engine.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.Move.MoveFactory;
+import com.chess.engine.board.MoveEncoding;
+
+//the outcome of a finished iteration: the best move as a MoveEncoding int, its score from the side to move's view,
+//the principal variation and what it cost
+public final class SearchResult {
+
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final int selectiveDepth;
+    private final long nodes;
+    private final long timeMillis;
+    private final int[] principalVariation;
+
+    SearchResult(final int bestMove,
+                 final int score,
+                 final int depth,
+                 final int selectiveDepth,
+                 final long nodes,
+                 final long timeMillis,
+                 final int[] principalVariation) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.selectiveDepth = selectiveDepth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.principalVariation = principalVariation;
+    }
+
+    //a move from the opening book, nothing was searched for it
+    static SearchResult forBookMove(final int bookMove) {
+        return new SearchResult(bookMove, 0, 0, 0, 0L, 0L, new int[]{bookMove});
+    }
+
+    //the same result with the totals of a search that ran on several threads
+    SearchResult withTotals(final long totalNodes, final long totalTimeMillis) {
+        return new SearchResult(this.bestMove, this.score, this.depth, this.selectiveDepth,
+                                totalNodes, totalTimeMillis, this.principalVariation);
+    }
+
+    //MoveEncoding.NO_MOVE if the side to move has no legal move
+    public int getBestMove() {
+        return this.bestMove;
+    }
+
+    //the best move on the board that was searched
+    public Move getBestMove(final Board board) {
+        return MoveFactory.createMove(board, this.bestMove);
+    }
+
+    //centipawns, or a mate score: see isMateScore
+    public int getScore() {
+        return this.score;
+    }
+
+    public boolean isMateScore() {
+        return Math.abs(this.score) >= Search.MATE_BOUND;
+    }
+
+    //moves until mate, negative if the side to move gets mated, 0 for a score that is not a mate
+    public int getMateIn() {
+        if(!isMateScore()){
+            return 0;
+        }
+        final int plies = Search.MATE - Math.abs(this.score);
+        return this.score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+
+    //a book move has depth 0, a search finishes at least one ply
+    public boolean isBookMove() {
+        return this.depth == 0 && this.bestMove != MoveEncoding.NO_MOVE;
+    }
+
+    public int getDepth() {
+        return this.depth;
+    }
+
+    //the deepest ply reached, with extensions
+    public int getSelectiveDepth() {
+        return this.selectiveDepth;
+    }
+
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    public long getTimeMillis() {
+        return this.timeMillis;
+    }
+
+    public long getNodesPerSecond() {
+        return this.nodes * 1000 / Math.max(1, this.timeMillis);
+    }
+
+    public int[] getPrincipalVariation() {
+        return this.principalVariation.clone();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("depth ").append(this.depth)
+               .append(" seldepth ").append(this.selectiveDepth)
+               .append(isMateScore() ? " score mate " + getMateIn() : " score cp " + this.score)
+               .append(" nodes ").append(this.nodes)
+               .append(" nps ").append(getNodesPerSecond())
+               .append(" time ").append(this.timeMillis)
+               .append(" pv");
+        for(final int move : this.principalVariation){
+            builder.append(' ').append(MoveEncoding.toString(move));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package com.chess.engine.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.MoveEncoding;
+import com.chess.engine.book.OpeningBook;
+import com.chess.engine.book.PolyglotKeys;
+import com.chess.pgn.FenUtilities;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+//searches one position and prints every finished iteration
+//usage: SearchRunner [--fen FEN] [--depth N] [--movetime MS] [--nodes N] [--time MS --inc MS] [--hash MB] [--threads N]
+//                    [--book book.bin [--book-keys random64.txt]]
+public final class SearchRunner {
+
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private SearchRunner() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static void main(final String[] args) throws IOException {
+        String fen = START_FEN;
+        String bookFile = null;
+        String bookKeysFile = null;
+        int hashSize = SearchEngine.DEFAULT_HASH_SIZE;
+        int threads = 1;
+        final SearchLimits.Builder limits = new SearchLimits.Builder();
+        for(int i = 0; i < args.length; i++){
+            if(i + 1 >= args.length){
+                throw new RuntimeException("Missing value for " + args[i]);
+            }
+            switch(args[i]){
+                case "--fen":
+                    fen = args[++i];
+                    break;
+                case "--depth":
+                    limits.setDepth(Integer.parseInt(args[++i]));
+                    break;
+                case "--movetime":
+                    limits.setMoveTime(Long.parseLong(args[++i]));
+                    break;
+                case "--nodes":
+                    limits.setNodes(Long.parseLong(args[++i]));
+                    break;
+                case "--time":
+                    limits.setTimeLeft(Long.parseLong(args[++i]));
+                    break;
+                case "--inc":
+                    limits.setIncrement(Long.parseLong(args[++i]));
+                    break;
+                case "--hash":
+                    hashSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--book":
+                    bookFile = args[++i];
+                    break;
+                case "--book-keys":
+                    bookKeysFile = args[++i];
+                    break;
+                default:
+                    throw new RuntimeException("Unknown argument: " + args[i]);
+            }
+        }
+        final Board board = FenUtilities.createGameFromFEN(fen);
+        final SearchEngine engine = new SearchEngine(hashSize, threads);
+        final OpeningBook book = bookFile == null ? null :
+                OpeningBook.open(Paths.get(bookFile), bookKeysFile == null ? PolyglotKeys.getDefault() :
+                                                      PolyglotKeys.load(Paths.get(bookKeysFile)));
+        engine.setOpeningBook(book);
+        final SearchResult result;
+        try {
+            result = engine.search(board, limits.build(), new SearchListener() {
+                @Override
+                public void iterationFinished(final SearchResult iteration) {
+                    System.out.println("info " + iteration);
+                }
+            });
+        } finally {
+            engine.shutdown();
+            if(book != null){
+                book.close();
+            }
+        }
+        if(result.isBookMove()){
+            System.out.println("info book move");
+        }
+        System.out.println("bestmove " + (result.getBestMove() == MoveEncoding.NO_MOVE ? "(none)" :
+                                          MoveEncoding.toString(result.getBestMove())));
+    }
+}
@@ -0,0 +1,125 @@
+package com.chess.engine.ai;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoard;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveEncoding;
+import com.chess.engine.board.PiecePlacement;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+//static exchange evaluation: what a move wins or loses in centipawns if both sides keep capturing on its
+//destination tile with their least valuable attacker, and either side may stop when going on would lose
+//only the pieces attacking the tile are looked at, sliders behind a capturing piece join in as it leaves
+public final class StaticExchange {
+
+    //at most 32 pieces can take part in an exchange
+    private static final int MAX_EXCHANGE = 32;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    private StaticExchange() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    //castles and moves that capture nothing are exchanges too: 0 if the piece is safe on its new tile
+    public static int staticExchangeEvaluation(final Board board, final Move move) {
+        final Piece movedPiece = move.getMovedPiece();
+        if(movedPiece == null || MoveEncoding.isCastle(move.getEncodedMove())){
+            return 0;
+        }
+        final Piece attackedPiece = move.isAttack() ? move.getAttackedPiece() : null;
+        final long capturedBit = attackedPiece == null ? 0L : BitBoard.squareBit(attackedPiece.getPiecePosition());
+        return evaluate(board.getBitBoard(), move.getCurrentCoordinate(), move.getDestinationCoordinate(),
+                        movedPiece.getPieceType(), movedPiece.getPieceAlliance(),
+                        attackedPiece == null ? null : attackedPiece.getPieceType(), capturedBit,
+                        MoveEncoding.getPromotionType(move.getEncodedMove()));
+    }
+
+    //the same for a MoveEncoding move of the side to move on a search board
+    public static int staticExchangeEvaluation(final SearchBoard board, final int move) {
+        if(MoveEncoding.isCastle(move)){
+            return 0;
+        }
+        final int from = MoveEncoding.getCurrentCoordinate(move);
+        final int to = MoveEncoding.getDestinationCoordinate(move);
+        final Alliance alliance = board.getSideToMove();
+        final long capturedBit;
+        if(MoveEncoding.getFlags(move) == MoveEncoding.EN_PASSANT_CAPTURE){
+            capturedBit = BitBoard.squareBit(to - alliance.getDirection() * BoardUtils.NUM_TILES_PER_ROW);
+        } else {
+            capturedBit = MoveEncoding.isCapture(move) ? BitBoard.squareBit(to) : 0L;
+        }
+        return evaluate(board, from, to, board.getPieceType(from), alliance,
+                        MoveEncoding.getCapturedType(move), capturedBit, MoveEncoding.getPromotionType(move));
+    }
+
+    private static int evaluate(final PiecePlacement placement,
+                                final int from,
+                                final int to,
+                                final PieceType movedType,
+                                final Alliance moveMaker,
+                                final PieceType capturedType,
+                                final long capturedBit,
+                                final PieceType promotionType) {
+        final int[] gain = new int[MAX_EXCHANGE];
+        gain[0] = capturedType == null ? 0 : capturedType.getPieceValue();
+        //the value the next capture on the tile wins
+        int pieceOnTile = movedType.getPieceValue();
+        if(promotionType != null){
+            gain[0] += promotionType.getPieceValue() - PieceType.PAWN.getPieceValue();
+            pieceOnTile = promotionType.getPieceValue();
+        }
+        long occupancy = (placement.getOccupancy() & ~BitBoard.squareBit(from) & ~capturedBit) | BitBoard.squareBit(to);
+        Alliance side = opponent(moveMaker);
+        int depth = 0;
+        while(depth + 1 < MAX_EXCHANGE){
+            final long attackers = attackers(placement, to, side, occupancy);
+            if(attackers == 0){
+                break;
+            }
+            final PieceType attackerType = leastValuableAttacker(placement, attackers, side);
+            //a king can only take if nothing can take it back
+            if(attackerType.isKing() && attackers(placement, to, opponent(side), occupancy) != 0){
+                break;
+            }
+            depth++;
+            gain[depth] = pieceOnTile - gain[depth - 1];
+            //this capture cannot change the outcome, whoever is to move stops before it
+            if(Math.max(-gain[depth - 1], gain[depth]) < 0){
+                depth--;
+                break;
+            }
+            final long attackerBit = Long.lowestOneBit(attackers & placement.getPieces(attackerType, side));
+            occupancy &= ~attackerBit;
+            pieceOnTile = attackerType.getPieceValue();
+            side = opponent(side);
+        }
+        //every side stops capturing where that is better for it
+        while(depth > 0){
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    //pieces already taken off the occupancy have taken part in the exchange
+    private static long attackers(final PiecePlacement placement, final int square, final Alliance side, final long occupancy) {
+        return placement.getAttackers(square, side, occupancy) & occupancy;
+    }
+
+    private static PieceType leastValuableAttacker(final PiecePlacement placement, final long attackers, final Alliance side) {
+        for(final PieceType pieceType : PIECE_TYPES){
+            if((attackers & placement.getPieces(pieceType, side)) != 0){
+                return pieceType;
+            }
+        }
+        throw new RuntimeException("Should not reach here! No attacker among " + attackers);
+    }
+
+    private static Alliance opponent(final Alliance alliance) {
+        return alliance.isWhite() ? Alliance.BLACK : Alliance.WHITE;
+    }
+}
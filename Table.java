@@ -6,10 +6,15 @@ import com.chess.engine.board.Move;
 import com.chess.engine.board.Tile;
 import com.chess.engine.pieces.Piece;
 import com.chess.engine.player.MoveTransition;
+import com.chess.pgn.PgnDatabase;
+import com.chess.pgn.PgnLoadListener;
 import com.google.common.collect.Lists;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -22,6 +27,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static javax.swing.SwingUtilities.isLeftMouseButton;
 import static javax.swing.SwingUtilities.isRightMouseButton;
@@ -29,6 +36,7 @@ import static javax.swing.SwingUtilities.isRightMouseButton;
 public class Table {
     private final JFrame gameFrame;
     private final BoardPanel boardPanel;
+    private final GameListPanel gameListPanel;
     private Board chessBoard;
     private Tile sourceTile;
     private Tile destinationTile;
@@ -53,6 +61,9 @@ public class Table {
         this.boardDirection=BoardDirection.NORMAL;
         this.highlightLegalMoves=false;
         this.gameFrame.add(this.boardPanel, BorderLayout.CENTER);
+        this.gameListPanel=new GameListPanel();
+        this.gameListPanel.setVisible(false);
+        this.gameFrame.add(this.gameListPanel, BorderLayout.EAST);
         this.gameFrame.setVisible(true);
     }
 
@@ -69,7 +80,11 @@ public class Table {
         openPGN.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
-                System.out.println("Open up that PGN file!");
+                final JFileChooser chooser=new JFileChooser();
+                chooser.setFileFilter(new FileNameExtensionFilter("PGN files", "pgn"));
+                if(chooser.showOpenDialog(gameFrame)==JFileChooser.APPROVE_OPTION){
+                    gameListPanel.load(chooser.getSelectedFile());
+                }
             }
         });
         fileMenu.add(openPGN);
@@ -154,6 +169,170 @@ public class Table {
             repaint();
         }
     }
+    //the games of a loaded pgn file, listed as they are indexed while the file is still being read and replayed
+    //the list asks the database for the games it shows, so it holds no more than the visible rows
+    //selecting a game replays it and puts its last position on the board
+    private class GameListPanel extends JPanel{
+        private static final long serialVersionUID=1L;
+        private final GameListModel gameListModel;
+        private final JList<String> gameList;
+        private final JLabel statusLabel;
+        private PgnDatabase database;
+        GameListPanel(){
+            super(new BorderLayout());
+            this.gameListModel=new GameListModel();
+            this.gameList=new JList<>(this.gameListModel);
+            //a fixed cell size keeps the list from reading every game to measure it
+            this.gameList.setFixedCellWidth(260);
+            this.gameList.setFixedCellHeight(18);
+            this.gameList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+            this.gameList.addListSelectionListener(new ListSelectionListener() {
+                @Override
+                public void valueChanged(final ListSelectionEvent e) {
+                    if(!e.getValueIsAdjusting() && gameList.getSelectedIndex()>=0){
+                        showGame(gameList.getSelectedIndex());
+                    }
+                }
+            });
+            this.statusLabel=new JLabel(" ");
+            add(new JScrollPane(this.gameList), BorderLayout.CENTER);
+            add(this.statusLabel, BorderLayout.SOUTH);
+        }
+        void load(final File pgnFile){
+            final PgnDatabase pgnDatabase;
+            try {
+                closeDatabase();
+                pgnDatabase=PgnDatabase.open(pgnFile.toPath());
+            } catch (final IOException e) {
+                this.statusLabel.setText("Cannot open "+pgnFile.getName()+": "+e.getMessage());
+                return;
+            }
+            this.database=pgnDatabase;
+            this.gameListModel.setGameCount(0);
+            this.statusLabel.setText("Loading "+pgnFile.getName());
+            setVisible(true);
+            gameFrame.validate();
+            final Thread loader=new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    pgnDatabase.load(Runtime.getRuntime().availableProcessors(), new GuiLoadListener(pgnDatabase));
+                }
+            }, "pgn-loader");
+            loader.setDaemon(true);
+            loader.start();
+        }
+        private void closeDatabase() throws IOException {
+            if(this.database!=null){
+                this.database.close();
+                this.database=null;
+            }
+        }
+        private void showGame(final int gameNumber){
+            try {
+                chessBoard=this.database.getGame(gameNumber).replay();
+                boardPanel.drawBoard(chessBoard);
+            } catch (final IOException | RuntimeException e) {
+                this.statusLabel.setText(e.getMessage());
+            }
+        }
+        //games the list can show, counted up on the gui thread
+        private class GameListModel extends AbstractListModel<String>{
+            private static final long serialVersionUID=1L;
+            private int gameCount;
+            void setGameCount(final int gameCount){
+                final int oldCount=this.gameCount;
+                this.gameCount=gameCount;
+                if(gameCount>oldCount){
+                    fireIntervalAdded(this, oldCount, gameCount-1);
+                } else if(gameCount<oldCount){
+                    fireIntervalRemoved(this, gameCount, oldCount-1);
+                }
+            }
+            @Override
+            public int getSize(){
+                return this.gameCount;
+            }
+            @Override
+            public String getElementAt(final int index){
+                try {
+                    return database.getGame(index).toString();
+                } catch (final IOException e) {
+                    return (index+1)+". unreadable: "+e.getMessage();
+                }
+            }
+        }
+        //the loading threads report far more often than the list needs redrawing,
+        //so only the latest counts are kept and at most one update waits for the gui thread
+        private class GuiLoadListener implements PgnLoadListener{
+            private final PgnDatabase pgnDatabase;
+            private final AtomicInteger indexed=new AtomicInteger();
+            private final AtomicInteger replayed=new AtomicInteger();
+            private final AtomicInteger rejected=new AtomicInteger();
+            private final AtomicBoolean isUpdatePending=new AtomicBoolean();
+            private final AtomicBoolean isFinished=new AtomicBoolean();
+            GuiLoadListener(final PgnDatabase pgnDatabase){
+                this.pgnDatabase=pgnDatabase;
+            }
+            @Override
+            public void gamesIndexed(final int gameCount){
+                this.indexed.set(gameCount);
+                scheduleUpdate();
+            }
+            @Override
+            public void gamesReplayed(final int replayedGames, final int rejectedGames){
+                //totals from different threads can arrive out of order
+                raise(this.replayed, replayedGames);
+                raise(this.rejected, rejectedGames);
+                scheduleUpdate();
+            }
+            @Override
+            public void loadFinished(final int gameCount, final int rejectedGames, final long millis){
+                this.isFinished.set(true);
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if(database==pgnDatabase){
+                            gameListModel.setGameCount(gameCount);
+                            statusLabel.setText(gameCount+" games, "+rejectedGames+" with illegal moves, "+millis+" ms");
+                        }
+                    }
+                });
+            }
+            @Override
+            public void loadFailed(final Exception exception){
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if(database==pgnDatabase){
+                            statusLabel.setText("Loading failed: "+exception.getMessage());
+                        }
+                    }
+                });
+            }
+            private void raise(final AtomicInteger counter, final int value){
+                int current=counter.get();
+                while(current<value && !counter.compareAndSet(current, value)){
+                    current=counter.get();
+                }
+            }
+            private void scheduleUpdate(){
+                if(this.isUpdatePending.compareAndSet(false, true)){
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            isUpdatePending.set(false);
+                            //a newer file may have been opened since, the final counts may already be shown
+                            if(database==pgnDatabase && !isFinished.get()){
+                                gameListModel.setGameCount(Math.max(gameListModel.getSize(), indexed.get()));
+                                statusLabel.setText(indexed.get()+" games, "+replayed.get()+" replayed, "+
+                                                    rejected.get()+" with illegal moves");
+                            }
+                        }
+                    });
+                }
+            }
+        }
+    }
     private class TilePanel extends JPanel{
         private final int tileId;
         TilePanel(final BoardPanel boardPanel,
@@ -0,0 +1,151 @@
+package com.chess.engine.tablebase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//one ending's table, a file named after its signature like KBNK.ctb that is memory mapped
+//after a 16 byte header of a magic int, the version and the position count, every position of the index has a byte:
+//0 a draw, 1 to 127 a win for the side to move in 2 * code - 1 plies, 128 to 253 a loss in 2 * (code - 128) plies,
+//so 128 is mate on the board, and 255 a number that is no legal position
+public final class Tablebase implements Closeable {
+
+    public static final String FILE_EXTENSION = ".ctb";
+
+    static final int MAGIC = 0x4A435442;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    static final int DRAW = 0;
+    static final int LOSS = 128;
+    //only while a table is generated
+    static final int UNKNOWN = 254;
+    static final int INVALID = 255;
+    static final int MAX_WIN_PLIES = 2 * 127 - 1;
+    static final int MAX_LOSS_PLIES = 2 * (UNKNOWN - 1 - LOSS);
+
+    private final MaterialSignature signature;
+    private final TablebaseIndex index;
+    private final FileChannel channel;
+    private final MappedByteBuffer codes;
+
+    private Tablebase(final MaterialSignature signature, final FileChannel channel, final Path path) throws IOException {
+        this.signature = signature;
+        this.index = new TablebaseIndex(signature);
+        this.channel = channel;
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while(header.hasRemaining()){
+            if(channel.read(header, header.position()) < 0){
+                throw new IOException(path + " is too short for a tablebase");
+            }
+        }
+        header.flip();
+        if(header.getInt() != MAGIC || header.getInt() != VERSION){
+            throw new IOException(path + " is not a tablebase of version " + VERSION);
+        }
+        final long positionCount = header.getLong();
+        if(positionCount != this.index.getPositionCount() || channel.size() != HEADER_SIZE + positionCount){
+            throw new IOException(path + " does not hold the " + this.index.getPositionCount() + " positions of " + signature);
+        }
+        this.codes = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, positionCount);
+    }
+
+    //the signature is the file's name
+    public static Tablebase open(final Path path) throws IOException {
+        final String fileName = path.getFileName().toString();
+        if(!fileName.endsWith(FILE_EXTENSION)){
+            throw new IllegalArgumentException(path + " is not a " + FILE_EXTENSION + " file");
+        }
+        final MaterialSignature signature = MaterialSignature.parse(fileName.substring(0, fileName.length() - FILE_EXTENSION.length()));
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new Tablebase(signature, channel, path);
+        } catch(final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public MaterialSignature getSignature() {
+        return this.signature;
+    }
+
+    public int getPositionCount() {
+        return this.index.getPositionCount();
+    }
+
+    TablebaseIndex getIndex() {
+        return this.index;
+    }
+
+    //squares in the signature's slot order
+    int getCode(final int[] squares, final int sideToMove) {
+        return getCode(this.index.encode(squares, sideToMove));
+    }
+
+    int getCode(final int position) {
+        return this.codes.get(position) & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    static boolean isWin(final int code) {
+        return code > DRAW && code < LOSS;
+    }
+
+    static boolean isLoss(final int code) {
+        return code >= LOSS && code < UNKNOWN;
+    }
+
+    //plies to mate of a win or a loss
+    static int plies(final int code) {
+        return code < LOSS ? 2 * code - 1 : 2 * (code - LOSS);
+    }
+
+    static int winCode(final int plies) {
+        if(plies > MAX_WIN_PLIES){
+            throw new RuntimeException("A mate in " + plies + " plies does not fit in a tablebase");
+        }
+        return (plies + 1) / 2;
+    }
+
+    static int lossCode(final int plies) {
+        if(plies > MAX_LOSS_PLIES){
+            throw new RuntimeException("A mate in " + plies + " plies does not fit in a tablebase");
+        }
+        return LOSS + plies / 2;
+    }
+
+    //the code one ply earlier, for the side that moved into a position with this code
+    static int previousPlyCode(final int code) {
+        if(isWin(code)){
+            return lossCode(plies(code) + 1);
+        }
+        if(isLoss(code)){
+            return winCode(plies(code) + 1);
+        }
+        return code;
+    }
+
+    //true if the first code is better than the second for the side to move: faster wins, draws, then slower losses
+    static boolean isBetter(final int code, final int otherCode) {
+        return rank(code) > rank(otherCode);
+    }
+
+    private static int rank(final int code) {
+        if(isWin(code)){
+            return 1000 - plies(code);
+        }
+        if(isLoss(code)){
+            return -1000 + plies(code);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,259 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.pieces.Piece.PieceType;
+import com.chess.engine.pieces.PieceUtils;
+import com.chess.engine.player.MoveTransition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+//writes the tables of the given endings into a directory, and first the tables of every ending they lead to
+//tables already in the directory are used as they are, so a run only works out what is missing
+//with --verify N, N positions of each table are set up as boards and probed, and every one is checked against the
+//probes after each of its legal moves from the board's own move generation, which also times the probes
+//usage: TablebaseGenerator directory KQK KRK ... [--threads N] [--verify N]
+public final class TablebaseGenerator {
+
+    private static final int MAX_REPORTED_FAILURES = 10;
+    private static final long VERIFY_SEED = 20240601L;
+
+    private final Path directory;
+    private final ForkJoinPool pool;
+    private final Tablebases tablebases;
+
+    private TablebaseGenerator(final Path directory, final ForkJoinPool pool, final Tablebases tablebases) {
+        this.directory = directory;
+        this.pool = pool;
+        this.tablebases = tablebases;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        String directoryName = null;
+        final List<MaterialSignature> signatures = new ArrayList<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        int verifyPositions = 0;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--threads") && i + 1 < args.length){
+                threads = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("--verify") && i + 1 < args.length){
+                verifyPositions = Integer.parseInt(args[++i]);
+            } else if(directoryName == null && !args[i].startsWith("--")){
+                directoryName = args[i];
+            } else if(!args[i].startsWith("--")){
+                signatures.add(MaterialSignature.parse(args[i]));
+            } else {
+                throw new RuntimeException("Unknown argument: " + args[i]);
+            }
+        }
+        if(directoryName == null || signatures.isEmpty()){
+            throw new RuntimeException("Usage: TablebaseGenerator directory KQK KRK ... [--threads N] [--verify N]");
+        }
+        if(threads < 1){
+            throw new IllegalArgumentException("The generator needs at least 1 thread, got " + threads);
+        }
+        final Path directory = Paths.get(directoryName);
+        Files.createDirectories(directory);
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try(final Tablebases tablebases = Tablebases.open(directory)){
+            final TablebaseGenerator generator = new TablebaseGenerator(directory, pool, tablebases);
+            for(final MaterialSignature signature : signatures){
+                generator.generate(signature.canonical());
+            }
+            if(verifyPositions > 0){
+                for(final MaterialSignature signature : signatures){
+                    generator.verify(signature.canonical(), verifyPositions);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void generate(final MaterialSignature signature) throws IOException {
+        if(this.tablebases.contains(signature)){
+            return;
+        }
+        for(final MaterialSignature successor : signature.getSuccessors()){
+            if(successor.getPieceCount() > 2){
+                generate(successor);
+            }
+        }
+        final long startTime = System.nanoTime();
+        final RetrogradeAnalysis analysis = new RetrogradeAnalysis(signature, this.tablebases);
+        final byte[] codes = analysis.run(this.pool);
+        final long millis = (System.nanoTime() - startTime) / 1_000_000;
+        final Path path = write(signature, codes);
+        this.tablebases.add(Tablebase.open(path));
+        long wins = 0L;
+        long draws = 0L;
+        long losses = 0L;
+        int longestMate = 0;
+        for(final byte b : codes){
+            final int code = b & 0xFF;
+            if(Tablebase.isWin(code)){
+                wins++;
+                longestMate = Math.max(longestMate, Tablebase.plies(code));
+            } else if(Tablebase.isLoss(code)){
+                losses++;
+            } else if(code == Tablebase.DRAW){
+                draws++;
+            }
+        }
+        System.out.println(String.format("%s: %d positions, %d wins, %d draws, %d losses, longest mate %d plies, %d passes, %d ms",
+                signature, codes.length, wins, draws, losses, longestMate, analysis.getPasses(), millis));
+    }
+
+    //through a temporary file, so a table that is in the directory is always whole
+    private Path write(final MaterialSignature signature, final byte[] codes) throws IOException {
+        final Path path = this.directory.resolve(signature + Tablebase.FILE_EXTENSION);
+        final Path temporaryPath = this.directory.resolve(signature + Tablebase.FILE_EXTENSION + ".tmp");
+        try(final FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            final ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_SIZE);
+            header.putInt(Tablebase.MAGIC).putInt(Tablebase.VERSION).putLong(codes.length).flip();
+            while(header.hasRemaining()){
+                channel.write(header);
+            }
+            final ByteBuffer body = ByteBuffer.wrap(codes);
+            while(body.hasRemaining()){
+                channel.write(body);
+            }
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return path;
+    }
+
+    //random legal positions of the table as boards: each probe must be the best of the probes after its moves
+    private void verify(final MaterialSignature signature, final int positions) {
+        final TablebaseIndex index = new TablebaseIndex(signature);
+        final Random random = new Random(VERIFY_SEED);
+        final int[] squares = new int[signature.getPieceCount()];
+        final List<Board> boards = new ArrayList<>();
+        final int[] expectedCodes = new int[positions];
+        int failures = 0;
+        while(boards.size() < positions){
+            final int position = random.nextInt(index.getPositionCount());
+            final int code = this.tablebases.probeCode(slotTypes(signature), slotColors(signature), decode(index, position, squares),
+                                                        squares.length, position & 1);
+            if(code == Tablebase.INVALID){
+                continue;
+            }
+            final Board board = createBoard(signature, squares, (position & 1) == 0 ? Alliance.WHITE : Alliance.BLACK);
+            final TablebaseResult result = this.tablebases.probe(board);
+            if(result == null || codeOf(result) != code){
+                failures = fail(failures, signature + " probes " + result + " for position " + position + ", the table has " +
+                                          new TablebaseResult(code));
+            }
+            expectedCodes[boards.size()] = code;
+            boards.add(board);
+        }
+        for(int i = 0; i < boards.size(); i++){
+            final int bestCode = bestMoveCode(boards.get(i));
+            if(bestCode != Tablebase.UNKNOWN && bestCode != expectedCodes[i]){
+                failures = fail(failures, signature + ": " + new TablebaseResult(expectedCodes[i]) + " but its moves give " +
+                                          new TablebaseResult(bestCode) + " in\n" + boards.get(i));
+            }
+        }
+        //the boards' move lists are made now, so the timing is only the probes
+        final long startTime = System.nanoTime();
+        long wins = 0L;
+        for(final Board board : boards){
+            if(this.tablebases.probe(board).getWdl() == TablebaseResult.Wdl.WIN){
+                wins++;
+            }
+        }
+        final long nanos = System.nanoTime() - startTime;
+        System.out.println(String.format("%s: verified %d positions, %d wins, %d failed, %.2f us a probe",
+                signature, positions, wins, failures, nanos / 1000.0 / positions));
+    }
+
+    //what the side to move gets by its best move, or by having none, UNKNOWN if a move leads to a board no table has
+    private int bestMoveCode(final Board board) {
+        int bestCode = Tablebase.INVALID;
+        for(final Move move : board.currentPlayer().getLegalMoves()){
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if(!transition.getMoveStatus().isDone()){
+                continue;
+            }
+            final TablebaseResult result = this.tablebases.probe(transition.getTransitionBoard());
+            if(result == null){
+                return Tablebase.UNKNOWN;
+            }
+            final int code = Tablebase.previousPlyCode(codeOf(result));
+            if(bestCode == Tablebase.INVALID || Tablebase.isBetter(code, bestCode)){
+                bestCode = code;
+            }
+        }
+        if(bestCode == Tablebase.INVALID){
+            return board.currentPlayer().isInCheck() ? Tablebase.lossCode(0) : Tablebase.DRAW;
+        }
+        return bestCode;
+    }
+
+    private static int codeOf(final TablebaseResult result) {
+        switch(result.getWdl()){
+            case WIN:
+                return Tablebase.winCode(result.getPliesToMate());
+            case LOSS:
+                return Tablebase.lossCode(result.getPliesToMate());
+            default:
+                return Tablebase.DRAW;
+        }
+    }
+
+    private static int[] decode(final TablebaseIndex index, final int position, final int[] squares) {
+        index.decode(position, squares);
+        return squares;
+    }
+
+    private static PieceType[] slotTypes(final MaterialSignature signature) {
+        final PieceType[] pieceTypes = new PieceType[signature.getPieceCount()];
+        for(int slot = 0; slot < pieceTypes.length; slot++){
+            pieceTypes[slot] = signature.getPieceType(slot);
+        }
+        return pieceTypes;
+    }
+
+    private static boolean[] slotColors(final MaterialSignature signature) {
+        final boolean[] isWhite = new boolean[signature.getPieceCount()];
+        for(int slot = 0; slot < isWhite.length; slot++){
+            isWhite[slot] = signature.isWhite(slot);
+        }
+        return isWhite;
+    }
+
+    //kings and rooks as moved, so the board has no castling rights, pawns on their start rank as not moved
+    private static Board createBoard(final MaterialSignature signature, final int[] squares, final Alliance moveMaker) {
+        final Board.Builder builder = new Board.Builder();
+        for(int slot = 0; slot < squares.length; slot++){
+            final Alliance alliance = signature.isWhite(slot) ? Alliance.WHITE : Alliance.BLACK;
+            final PieceType pieceType = signature.getPieceType(slot);
+            final boolean isFirstMove = pieceType == PieceType.PAWN &&
+                                        (alliance.isWhite() ? BoardUtils.SECOND_RANK[squares[slot]] : BoardUtils.SEVENTH_RANK[squares[slot]]);
+            builder.setPiece(PieceUtils.getPiece(pieceType, alliance, squares[slot], isFirstMove));
+        }
+        builder.setMoveMaker(moveMaker);
+        return builder.build();
+    }
+
+    private static int fail(final int failures, final String message) {
+        if(failures < MAX_REPORTED_FAILURES){
+            System.out.println(message);
+        }
+        return failures + 1;
+    }
+}
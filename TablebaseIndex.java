@@ -0,0 +1,119 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.board.BoardUtils;
+
+import java.util.Arrays;
+
+//numbers the positions of a signature: the white king's square, the squares of the other pieces in slot order and
+//the side to move, 0 for white. the board's symmetry brings the white king into a small part of the board first:
+//without pawns the eight rotations and reflections bring it into the triangle a8-d8-d5, with pawns only the mirror
+//from one side of the board to the other keeps them moving the same way, so it goes on files a to d
+//a position that more than one symmetry brings there takes the smallest number, each position has exactly one
+final class TablebaseIndex {
+
+    static final int MAX_PIECES = 5;
+
+    //for each symmetry, the tile every tile goes to
+    private static final int[][] ALL_SYMMETRIES = initSymmetries(true);
+    private static final int[][] MIRROR_SYMMETRIES = initSymmetries(false);
+    private static final int[] TRIANGLE_SQUARES = initKingSquares(true);
+    private static final int[] HALF_BOARD_SQUARES = initKingSquares(false);
+
+    private final int pieceCount;
+    private final int[][] symmetries;
+    private final int[] kingSquares;
+    //the white king's number for a tile, -1 where it is never put
+    private final int[] kingIndexes = new int[BoardUtils.NUM_TILES];
+    private final int positionCount;
+
+    TablebaseIndex(final MaterialSignature signature) {
+        if(signature.getPieceCount() > MAX_PIECES){
+            throw new IllegalArgumentException("Tables go up to " + MAX_PIECES + " pieces, " + signature + " has " +
+                                               signature.getPieceCount());
+        }
+        this.pieceCount = signature.getPieceCount();
+        this.symmetries = signature.hasPawns() ? MIRROR_SYMMETRIES : ALL_SYMMETRIES;
+        this.kingSquares = signature.hasPawns() ? HALF_BOARD_SQUARES : TRIANGLE_SQUARES;
+        Arrays.fill(this.kingIndexes, -1);
+        for(int i = 0; i < this.kingSquares.length; i++){
+            this.kingIndexes[this.kingSquares[i]] = i;
+        }
+        long positionCount = this.kingSquares.length * 2L;
+        for(int slot = 1; slot < this.pieceCount; slot++){
+            positionCount *= BoardUtils.NUM_TILES;
+        }
+        this.positionCount = (int) positionCount;
+    }
+
+    int getPositionCount() {
+        return this.positionCount;
+    }
+
+    //squares in slot order, sideToMove 0 for white and 1 for black
+    int encode(final int[] squares, final int sideToMove) {
+        int best = -1;
+        for(final int[] symmetry : this.symmetries){
+            final int kingIndex = this.kingIndexes[symmetry[squares[0]]];
+            if(kingIndex < 0){
+                continue;
+            }
+            int index = kingIndex;
+            for(int slot = 1; slot < this.pieceCount; slot++){
+                index = index * BoardUtils.NUM_TILES + symmetry[squares[slot]];
+            }
+            index = index * 2 + sideToMove;
+            if(best < 0 || index < best){
+                best = index;
+            }
+        }
+        return best;
+    }
+
+    //fills squares and returns the side to move
+    int decode(int index, final int[] squares) {
+        final int sideToMove = index & 1;
+        index >>>= 1;
+        for(int slot = this.pieceCount - 1; slot > 0; slot--){
+            squares[slot] = index % BoardUtils.NUM_TILES;
+            index /= BoardUtils.NUM_TILES;
+        }
+        squares[0] = this.kingSquares[index];
+        return sideToMove;
+    }
+
+    //with reflections the first four are the mirror images of rows and files, the rest also swap rows and files
+    private static int[][] initSymmetries(final boolean withRotations) {
+        final int[][] symmetries = new int[withRotations ? 8 : 2][BoardUtils.NUM_TILES];
+        for(int symmetry = 0; symmetry < symmetries.length; symmetry++){
+            final boolean mirrorsFiles = (symmetry & 1) != 0;
+            final boolean mirrorsRows = (symmetry & 2) != 0;
+            final boolean swapsRowsAndFiles = (symmetry & 4) != 0;
+            for(int square = 0; square < BoardUtils.NUM_TILES; square++){
+                int row = square / BoardUtils.NUM_TILES_PER_ROW;
+                int column = square % BoardUtils.NUM_TILES_PER_ROW;
+                if(mirrorsFiles){
+                    column = BoardUtils.NUM_TILES_PER_ROW - 1 - column;
+                }
+                if(mirrorsRows){
+                    row = BoardUtils.NUM_TILES_PER_ROW - 1 - row;
+                }
+                symmetries[symmetry][square] = swapsRowsAndFiles ?
+                        column * BoardUtils.NUM_TILES_PER_ROW + row : row * BoardUtils.NUM_TILES_PER_ROW + column;
+            }
+        }
+        return symmetries;
+    }
+
+    private static int[] initKingSquares(final boolean isTriangle) {
+        final int[] squares = new int[isTriangle ? 10 : 32];
+        int count = 0;
+        for(int square = 0; square < BoardUtils.NUM_TILES; square++){
+            final int row = square / BoardUtils.NUM_TILES_PER_ROW;
+            final int column = square % BoardUtils.NUM_TILES_PER_ROW;
+            if(column < 4 && (!isTriangle || row <= column)){
+                squares[count++] = square;
+            }
+        }
+        return squares;
+    }
+}
@@ -0,0 +1,40 @@
+package com.chess.engine.tablebase;
+
+//what a table knows of a position: win, draw or loss for the side to move and the plies to mate
+public final class TablebaseResult {
+
+    public enum Wdl {
+        WIN,
+        DRAW,
+        LOSS
+    }
+
+    private final Wdl wdl;
+    private final int pliesToMate;
+
+    TablebaseResult(final int code) {
+        this.wdl = Tablebase.isWin(code) ? Wdl.WIN : Tablebase.isLoss(code) ? Wdl.LOSS : Wdl.DRAW;
+        this.pliesToMate = this.wdl == Wdl.DRAW ? 0 : Tablebase.plies(code);
+    }
+
+    public Wdl getWdl() {
+        return this.wdl;
+    }
+
+    //0 for a draw and for a side that is mated
+    public int getPliesToMate() {
+        return this.pliesToMate;
+    }
+
+    @Override
+    public String toString() {
+        switch(this.wdl){
+            case WIN:
+                return "win, mate in " + (this.pliesToMate + 1) / 2;
+            case LOSS:
+                return this.pliesToMate == 0 ? "loss, mated" : "loss, mated in " + this.pliesToMate / 2;
+            default:
+                return "draw";
+        }
+    }
+}
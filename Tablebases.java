@@ -0,0 +1,206 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
+import com.chess.engine.board.BitBoard;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.pieces.Pawn;
+import com.chess.engine.pieces.Piece.PieceType;
+import com.chess.engine.player.MoveTransition;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+//the tables of a directory, found for a board by the piece counts of both sides
+//a board with the weaker side as white is probed in the table of the colours swapped, mirrored top to bottom
+//two bare kings are a draw without a table. boards with castling rights or an en passant capture are not in any table
+public final class Tablebases implements Closeable {
+
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    //replaced as a whole when a table is added, so probes need no lock
+    private volatile Tablebase[] tables = new Tablebase[0];
+    private volatile int[] materialKeys = new int[0];
+
+    public Tablebases() {
+    }
+
+    //every table file of the directory
+    public static Tablebases open(final Path directory) throws IOException {
+        final Tablebases tablebases = new Tablebases();
+        try(final DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + Tablebase.FILE_EXTENSION)){
+            for(final Path file : files){
+                tablebases.add(Tablebase.open(file));
+            }
+        } catch(final IOException | RuntimeException e) {
+            tablebases.close();
+            throw e;
+        }
+        return tablebases;
+    }
+
+    public synchronized void add(final Tablebase table) {
+        final int count = this.tables.length;
+        final Tablebase[] tables = new Tablebase[count + 1];
+        final int[] materialKeys = new int[count + 1];
+        System.arraycopy(this.tables, 0, tables, 0, count);
+        System.arraycopy(this.materialKeys, 0, materialKeys, 0, count);
+        tables[count] = table;
+        materialKeys[count] = table.getSignature().getMaterialKey();
+        this.materialKeys = materialKeys;
+        this.tables = tables;
+    }
+
+    public List<MaterialSignature> getSignatures() {
+        final List<MaterialSignature> signatures = new ArrayList<>();
+        for(final Tablebase table : this.tables){
+            signatures.add(table.getSignature());
+        }
+        return signatures;
+    }
+
+    public boolean contains(final MaterialSignature signature) {
+        final MaterialSignature canonical = signature.canonical();
+        for(final Tablebase table : this.tables){
+            if(table.getSignature().equals(canonical)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //null if no table has the board
+    public TablebaseResult probe(final Board board) {
+        final int code = probeCode(board);
+        return code < 0 ? null : new TablebaseResult(code);
+    }
+
+    //the legal move that keeps the best result: the fastest win, a draw or the slowest loss, null if no table has the board
+    public Move getBestMove(final Board board) {
+        if(probeCode(board) < 0){
+            return null;
+        }
+        Move bestMove = null;
+        int bestCode = Tablebase.INVALID;
+        for(final Move move : board.currentPlayer().getLegalMoves()){
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if(!transition.getMoveStatus().isDone()){
+                continue;
+            }
+            final int code = probeCode(transition.getTransitionBoard());
+            if(code < 0){
+                continue;
+            }
+            final int moveCode = Tablebase.previousPlyCode(code);
+            if(bestMove == null || Tablebase.isBetter(moveCode, bestCode)){
+                bestMove = move;
+                bestCode = moveCode;
+            }
+        }
+        return bestMove;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for(final Tablebase table : this.tables){
+            try {
+                table.close();
+            } catch(final IOException e) {
+                failure = e;
+            }
+        }
+        if(failure != null){
+            throw failure;
+        }
+    }
+
+    //the code for the side to move, -1 if no table has the board
+    private int probeCode(final Board board) {
+        if(board.getCastlingRights() != 0 || hasEnPassantCapture(board)){
+            return -1;
+        }
+        final PieceType[] pieceTypes = new PieceType[TablebaseIndex.MAX_PIECES];
+        final boolean[] isWhite = new boolean[TablebaseIndex.MAX_PIECES];
+        final int[] squares = new int[TablebaseIndex.MAX_PIECES];
+        final BitBoard bitBoard = board.getBitBoard();
+        int count = 0;
+        for(final Alliance alliance : Alliance.values()){
+            for(final PieceType pieceType : PIECE_TYPES){
+                long pieces = bitBoard.getPieces(pieceType, alliance);
+                while(pieces != 0){
+                    if(count == TablebaseIndex.MAX_PIECES){
+                        return -1;
+                    }
+                    pieceTypes[count] = pieceType;
+                    isWhite[count] = alliance.isWhite();
+                    squares[count++] = Long.numberOfTrailingZeros(pieces);
+                    pieces &= pieces - 1;
+                }
+            }
+        }
+        final int code = probeCode(pieceTypes, isWhite, squares, count, board.currentPlayer().getAlliance().isWhite() ? 0 : 1);
+        return code == Tablebase.INVALID ? -1 : code;
+    }
+
+    //pieces in any order, -1 if no table has them
+    int probeCode(final PieceType[] pieceTypes, final boolean[] isWhite, final int[] squares, final int count, final int sideToMove) {
+        int materialKey = 0;
+        int swappedKey = 0;
+        for(int i = 0; i < count; i++){
+            materialKey += MaterialSignature.materialKey(pieceTypes[i], isWhite[i]);
+            swappedKey += MaterialSignature.materialKey(pieceTypes[i], !isWhite[i]);
+        }
+        if(materialKey == 0){
+            return Tablebase.DRAW;
+        }
+        final Tablebase[] tables = this.tables;
+        final int[] materialKeys = this.materialKeys;
+        for(int i = 0; i < tables.length; i++){
+            if(materialKeys[i] == materialKey){
+                return tables[i].getCode(slotSquares(tables[i].getSignature(), pieceTypes, isWhite, squares, count, false), sideToMove);
+            }
+            if(materialKeys[i] == swappedKey){
+                return tables[i].getCode(slotSquares(tables[i].getSignature(), pieceTypes, isWhite, squares, count, true), 1 - sideToMove);
+            }
+        }
+        return -1;
+    }
+
+    //the squares in the table's slot order, mirrored top to bottom when the colours are swapped
+    private static int[] slotSquares(final MaterialSignature signature, final PieceType[] pieceTypes, final boolean[] isWhite,
+                                     final int[] squares, final int count, final boolean isSwapped) {
+        final int[] slotSquares = new int[count];
+        int used = 0;
+        for(int slot = 0; slot < count; slot++){
+            for(int i = 0; i < count; i++){
+                if((used & (1 << i)) == 0 && pieceTypes[i] == signature.getPieceType(slot) &&
+                   isWhite[i] != isSwapped == signature.isWhite(slot)){
+                    used |= 1 << i;
+                    slotSquares[slot] = isSwapped ? squares[i] ^ 56 : squares[i];
+                    break;
+                }
+            }
+        }
+        return slotSquares;
+    }
+
+    //the side to move can take the pawn that just jumped
+    private static boolean hasEnPassantCapture(final Board board) {
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        if(enPassantPawn == null){
+            return false;
+        }
+        final Alliance pawnAlliance = enPassantPawn.getPieceAlliance();
+        final int jumpedSquare = enPassantPawn.getPiecePosition() - pawnAlliance.getDirection() * BoardUtils.NUM_TILES_PER_ROW;
+        return (AttackTables.pawnAttacks(pawnAlliance, jumpedSquare) &
+                board.getBitBoard().getPieces(PieceType.PAWN, board.currentPlayer().getAlliance())) != 0;
+    }
+}
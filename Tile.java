@@ -1,7 +1,9 @@
 package com.chess.engine.board;
 
 
+import com.chess.engine.Alliance;
 import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.PieceUtils;
 import com.google.common.collect.ImmutableMap;
 
 import java.util.HashMap;
@@ -13,13 +15,35 @@ public abstract class Tile {
     private static Map<Integer, EmptyTile> createAllPossibleEmptyTiles(){
         final Map<Integer, EmptyTile> emptyTileMap=new HashMap<>();
         for(int i=0;i<BoardUtils.NUM_TILES;i++){
-            emptyTileMap.put(i, new EmptyTile(1));
+            emptyTileMap.put(i, new EmptyTile(i));
         }
 
         return ImmutableMap.copyOf(emptyTileMap);
     }
+    //one occupied tile per flyweight piece, a piece always stands on the tile of its own position
+    private static final OccupiedTile[] OCCUPIED_TILES_CACHE=createAllPossibleOccupiedTiles();
+    private static OccupiedTile[] createAllPossibleOccupiedTiles(){
+        final OccupiedTile[] occupiedTiles=new OccupiedTile[PieceUtils.NUM_PIECES];
+        for(final Piece.PieceType pieceType : Piece.PieceType.values()){
+            for(final Alliance alliance : Alliance.values()){
+                for(int i=0;i<BoardUtils.NUM_TILES;i++){
+                    for(final boolean isFirstMove : new boolean[]{false, true}){
+                        final Piece piece=PieceUtils.getPiece(pieceType, alliance, i, isFirstMove);
+                        occupiedTiles[PieceUtils.index(piece)]=new OccupiedTile(i, piece);
+                    }
+                }
+            }
+        }
+        return occupiedTiles;
+    }
     public static Tile createTile(final int tileCoordinate, final Piece piece) {
-        return piece != null ? new OccupiedTile(tileCoordinate, piece) : EMPTY_TILES_CACHE.get(tileCoordinate);
+        if(piece == null){
+            return EMPTY_TILES_CACHE.get(tileCoordinate);
+        }
+        if(piece.getPiecePosition() != tileCoordinate){
+            throw new RuntimeException("Piece on " + piece.getPiecePosition() + " cannot stand on tile " + tileCoordinate);
+        }
+        return OCCUPIED_TILES_CACHE[PieceUtils.index(piece)];
     }
     private Tile(final int tileCoordinate) {
         this.tileCoordinate=tileCoordinate;
@@ -0,0 +1,48 @@
+package com.chess.engine.ai;
+
+//turns the search limits into two deadlines: after the soft one no new iteration is started,
+//at the hard one the running iteration is abandoned
+final class TimeManager {
+
+    //time lost between deciding on a move and the move arriving on the clock
+    private static final long MOVE_OVERHEAD = 30;
+    //how many more moves a clock without a next time control is spread over
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+
+    private final long startTime;
+    private final long softLimit;
+    private final long hardLimit;
+    private final long maxNodes;
+
+    TimeManager(final SearchLimits limits) {
+        this.startTime = System.nanoTime();
+        this.maxNodes = limits.getNodes() > 0 ? limits.getNodes() : Long.MAX_VALUE;
+        if(limits.getMoveTime() > 0){
+            this.softLimit = limits.getMoveTime();
+            this.hardLimit = limits.getMoveTime();
+        } else if(limits.getTimeLeft() > 0){
+            final long available = Math.max(1, limits.getTimeLeft() - MOVE_OVERHEAD);
+            final int movesToGo = limits.getMovesToGo() > 0 ? limits.getMovesToGo() : DEFAULT_MOVES_TO_GO;
+            final long optimum = available / movesToGo + limits.getIncrement() * 3 / 4;
+            //an iteration that started in time may run over, but never past a good part of what is left
+            this.hardLimit = Math.max(1, Math.min(optimum * 4, available / 2));
+            this.softLimit = Math.max(1, Math.min(optimum, this.hardLimit) / 2);
+        } else {
+            this.softLimit = Long.MAX_VALUE;
+            this.hardLimit = Long.MAX_VALUE;
+        }
+    }
+
+    long elapsedMillis() {
+        return (System.nanoTime() - this.startTime) / 1_000_000;
+    }
+
+    //a deeper iteration takes several times as long as the one before, so it is not worth starting late
+    boolean canStartIteration(final long nodes) {
+        return nodes < this.maxNodes && elapsedMillis() < this.softLimit;
+    }
+
+    boolean isHardLimitReached(final long nodes) {
+        return nodes >= this.maxNodes || (this.hardLimit != Long.MAX_VALUE && elapsedMillis() >= this.hardLimit);
+    }
+}
@@ -0,0 +1,235 @@
+package com.chess.engine.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+//a fixed size hash table of search results shared by all search threads without locks
+//every entry is two longs: the position key xor-ed with the data, and the data itself
+//a reader only trusts an entry if key ^ data gives back its own key, so a torn or racing write reads as a miss
+//entries are grouped in buckets of four, one 64 byte cache line
+//the data packs the best move (bits 0-31), score (32-47), depth (48-55), bound (56-57) and generation (58-63)
+public final class TranspositionTable {
+
+    public static final long NO_ENTRY = 0L;
+
+    private static final int BUCKET_SIZE = 4;
+    private static final int LONGS_PER_ENTRY = 2;
+    private static final int BYTES_PER_ENTRY = LONGS_PER_ENTRY * Long.BYTES;
+    private static final int GENERATION_MASK = 0x3F;
+    private static final int MAX_ARRAY_LENGTH = 1 << 30;
+    private static final int OCCUPANCY_SAMPLE = 1000;
+    private static final Bound[] BOUNDS = Bound.values();
+
+    private final long[] table;
+    private final int bucketMask;
+    private final ReplacementPolicy replacementPolicy;
+    private volatile int generation;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder overwrites = new LongAdder();
+
+    public TranspositionTable(final int sizeInMegabytes) {
+        this(sizeInMegabytes, ReplacementPolicy.AGED_DEPTH_PREFERRED);
+    }
+
+    public TranspositionTable(final int sizeInMegabytes, final ReplacementPolicy replacementPolicy) {
+        if(sizeInMegabytes < 1){
+            throw new IllegalArgumentException("Transposition table needs at least 1 MB, got " + sizeInMegabytes);
+        }
+        //round down to a power of two number of buckets so the index is a mask of the key
+        final long requestedBuckets = ((long) sizeInMegabytes << 20) / (BUCKET_SIZE * BYTES_PER_ENTRY);
+        final long buckets = Long.highestOneBit(requestedBuckets);
+        if(buckets * BUCKET_SIZE * LONGS_PER_ENTRY > MAX_ARRAY_LENGTH){
+            throw new IllegalArgumentException("Transposition table of " + sizeInMegabytes + " MB is too large");
+        }
+        this.table = new long[(int) (buckets * BUCKET_SIZE * LONGS_PER_ENTRY)];
+        this.bucketMask = (int) (buckets - 1);
+        this.replacementPolicy = replacementPolicy;
+        this.generation = 0;
+    }
+
+    public enum Bound {
+        EXACT,
+        LOWER_BOUND,
+        UPPER_BOUND
+    }
+
+    //decides which entry of a full bucket a new result evicts, the entry with the lowest value goes
+    public enum ReplacementPolicy {
+        ALWAYS_REPLACE {
+            @Override
+            int replacementValue(final long data, final int generation) {
+                return 0;
+            }
+        },
+        DEPTH_PREFERRED {
+            @Override
+            int replacementValue(final long data, final int generation) {
+                return getDepth(data);
+            }
+        },
+        //deep results survive, but results from earlier searches lose value with every search they sit out
+        AGED_DEPTH_PREFERRED {
+            @Override
+            int replacementValue(final long data, final int generation) {
+                return getDepth(data) - 8 * ((generation - getGeneration(data)) & GENERATION_MASK);
+            }
+        };
+
+        abstract int replacementValue(long data, int generation);
+    }
+
+    public static int getMove(final long data) {
+        return (int) data;
+    }
+
+    public static int getScore(final long data) {
+        return (short) (data >>> 32);
+    }
+
+    public static int getDepth(final long data) {
+        return (byte) (data >>> 48);
+    }
+
+    public static Bound getBound(final long data) {
+        return BOUNDS[(int) ((data >>> 56) & 0x3) - 1];
+    }
+
+    private static int getGeneration(final long data) {
+        return (int) (data >>> 58) & GENERATION_MASK;
+    }
+
+    //an empty slot has no bound, every stored entry has one
+    private static boolean isEmpty(final long data) {
+        return ((data >>> 56) & 0x3) == 0;
+    }
+
+    private static long pack(final int move, final int score, final int depth, final Bound bound, final int generation) {
+        return (move & 0xFFFFFFFFL) |
+               ((score & 0xFFFFL) << 32) |
+               ((depth & 0xFFL) << 48) |
+               ((long) (bound.ordinal() + 1) << 56) |
+               ((long) (generation & GENERATION_MASK) << 58);
+    }
+
+    //returns the packed data for the key, or NO_ENTRY
+    public long probe(final long key) {
+        this.probes.increment();
+        final int first = bucketIndex(key);
+        for(int i = first; i < first + BUCKET_SIZE * LONGS_PER_ENTRY; i += LONGS_PER_ENTRY){
+            final long data = this.table[i + 1];
+            if((this.table[i] ^ data) == key && !isEmpty(data)){
+                this.hits.increment();
+                return data;
+            }
+        }
+        return NO_ENTRY;
+    }
+
+    //scores have to fit in 16 bits and depths in 8 bits
+    public void store(final long key, final int move, final int score, final int depth, final Bound bound) {
+        this.stores.increment();
+        final int currentGeneration = this.generation;
+        final int first = bucketIndex(key);
+        int replace = first;
+        int replaceValue = Integer.MAX_VALUE;
+        for(int i = first; i < first + BUCKET_SIZE * LONGS_PER_ENTRY; i += LONGS_PER_ENTRY){
+            final long data = this.table[i + 1];
+            if(isEmpty(data)){
+                if(replaceValue != Integer.MIN_VALUE){
+                    replaceValue = Integer.MIN_VALUE;
+                    replace = i;
+                }
+                continue;
+            }
+            if((this.table[i] ^ data) == key){
+                //same position: keep the old best move if the new result has none
+                final int bestMove = move == 0 ? getMove(data) : move;
+                write(i, key, pack(bestMove, score, depth, bound, currentGeneration));
+                return;
+            }
+            final int value = this.replacementPolicy.replacementValue(data, currentGeneration);
+            if(value < replaceValue){
+                replaceValue = value;
+                replace = i;
+            }
+        }
+        if(!isEmpty(this.table[replace + 1])){
+            this.overwrites.increment();
+        }
+        write(replace, key, pack(move, score, depth, bound, currentGeneration));
+    }
+
+    private void write(final int index, final long key, final long data) {
+        this.table[index] = key ^ data;
+        this.table[index + 1] = data;
+    }
+
+    private int bucketIndex(final long key) {
+        //the high half of the key picks the bucket
+        return ((int) (key >>> 32) & this.bucketMask) * BUCKET_SIZE * LONGS_PER_ENTRY;
+    }
+
+    //call before every new search so old results age
+    public void newSearch() {
+        this.generation = (this.generation + 1) & GENERATION_MASK;
+    }
+
+    public void clear() {
+        Arrays.fill(this.table, 0L);
+        this.generation = 0;
+        resetCounters();
+    }
+
+    public void resetCounters() {
+        this.probes.reset();
+        this.hits.reset();
+        this.stores.reset();
+        this.overwrites.reset();
+    }
+
+    public long getProbes() {
+        return this.probes.sum();
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getStores() {
+        return this.stores.sum();
+    }
+
+    //stores that evicted a different position
+    public long getOverwrites() {
+        return this.overwrites.sum();
+    }
+
+    public double getHitRate() {
+        final long probeCount = getProbes();
+        return probeCount == 0 ? 0.0 : (double) getHits() / probeCount;
+    }
+
+    //permille of sampled entries written by the current search
+    public int getOccupancy() {
+        final int entries = Math.min(OCCUPANCY_SAMPLE, getCapacity());
+        int used = 0;
+        for(int i = 0; i < entries; i++){
+            final long data = this.table[i * LONGS_PER_ENTRY + 1];
+            if(!isEmpty(data) && getGeneration(data) == this.generation){
+                used++;
+            }
+        }
+        return used * 1000 / entries;
+    }
+
+    public int getCapacity() {
+        return this.table.length / LONGS_PER_ENTRY;
+    }
+
+    public int getSizeInMegabytes() {
+        return (int) (((long) this.table.length * Long.BYTES) >> 20);
+    }
+}
@@ -15,10 +15,8 @@ import java.util.Collection;
 import java.util.List;
 
 public class WhitePlayer extends Player{
-    public WhitePlayer(final Board board,
-                       final Collection<Move> whiteStandardLegalMoves,
-                       final Collection<Move> blackStandardLegalMoves) {
-        super(board, whiteStandardLegalMoves, blackStandardLegalMoves);
+    public WhitePlayer(final Board board) {
+        super(board);
 
     }
 
@@ -38,7 +36,7 @@ public class WhitePlayer extends Player{
     }
 
     @Override
-    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals, final Collection<Move> opponentLegals) {
+    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals) {
         final List<Move> kingCastles=new ArrayList<>();
         //If the player white king is not in check and the king is the first move, then proceed
         if(this.playerKing.isFirstMove() && !this.isInCheck()){
@@ -48,9 +46,9 @@ public class WhitePlayer extends Player{
                 final Tile rookTile= this.board.getTile(63);
                 //if it is rook's first move as well, then proceed
                 if(rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()){
-                    //if there are no opponent legal attacks on these tiles, then proceed
-                    if(Player.calculateAttacksOnTile(61, opponentLegals).isEmpty()&&
-                       Player.calculateAttacksOnTile(62, opponentLegals).isEmpty()&&
+                    //if the opponent does not attack these tiles, then proceed
+                    if(!this.board.getBitBoard().isSquareAttacked(61, Alliance.BLACK)&&
+                       !this.board.getBitBoard().isSquareAttacked(62, Alliance.BLACK)&&
                        rookTile.getPiece().getPieceType().isRook()){
                         //make the castling move by moving the king to tile 62 and rook to tile 61
                         kingCastles.add(new KingSideCastleMove(this.board, this.playerKing,
@@ -67,8 +65,8 @@ public class WhitePlayer extends Player{
                !this.board.getTile(57).isTileOccupied()){
                 final Tile rookTile=this.board.getTile(56);
                 if(rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()){
-                   if(Player.calculateAttacksOnTile(58, opponentLegals).isEmpty()&&
-                       Player.calculateAttacksOnTile(59, opponentLegals).isEmpty()&&
+                   if(!this.board.getBitBoard().isSquareAttacked(58, Alliance.BLACK)&&
+                       !this.board.getBitBoard().isSquareAttacked(59, Alliance.BLACK)&&
                       rookTile.getPiece().getPieceType().isRook()){
                        kingCastles.add(new QueenSideCastleMove(this.board, this.playerKing,
                                58,
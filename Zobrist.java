@@ -0,0 +1,97 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+//random keys for zobrist hashing, a position's hash is the xor of the keys of everything in it
+//so a move only has to xor out what it removes and xor in what it adds
+public final class Zobrist {
+
+    //indexed like BitBoard: piece type * 2 + alliance, then the tile
+    private static final long[][] PIECE_KEYS = new long[12][BoardUtils.NUM_TILES];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[BoardUtils.NUM_TILES_PER_ROW];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+        //fixed seed, hashes have to be the same on every run to be stored in files
+        long seed = 0x3C6EF372FE94F82BL;
+        for(final long[] keys : PIECE_KEYS){
+            for(int square = 0; square < keys.length; square++){
+                seed = nextSeed(seed);
+                keys[square] = scramble(seed);
+            }
+        }
+        //no castling rights hashes as 0 so the plain piece hash of a position without rights stays unchanged
+        for(int rights = 1; rights < CASTLING_KEYS.length; rights++){
+            seed = nextSeed(seed);
+            CASTLING_KEYS[rights] = scramble(seed);
+        }
+        for(int file = 0; file < EN_PASSANT_KEYS.length; file++){
+            seed = nextSeed(seed);
+            EN_PASSANT_KEYS[file] = scramble(seed);
+        }
+        seed = nextSeed(seed);
+        BLACK_TO_MOVE_KEY = scramble(seed);
+    }
+
+    private Zobrist() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static long pieceKey(final PieceType pieceType, final Alliance alliance, final int square) {
+        return PIECE_KEYS[pieceType.ordinal() * 2 + alliance.ordinal()][square];
+    }
+
+    public static long pieceKey(final Piece piece) {
+        return pieceKey(piece.getPieceType(), piece.getPieceAlliance(), piece.getPiecePosition());
+    }
+
+    //piece codes as used by the SearchBoard
+    static long pieceKey(final int pieceCode, final int square) {
+        return PIECE_KEYS[pieceCode][square];
+    }
+
+    public static long castlingKey(final int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    //keyed on the file of the tile a pawn can be captured en passant on, -1 hashes as 0
+    public static long enPassantKey(final int enPassantSquare) {
+        return enPassantSquare < 0 ? 0L : EN_PASSANT_KEYS[enPassantSquare % BoardUtils.NUM_TILES_PER_ROW];
+    }
+
+    public static long sideToMoveKey(final Alliance alliance) {
+        return alliance.isBlack() ? BLACK_TO_MOVE_KEY : 0L;
+    }
+
+    //the full hash, only needed once per board that is not created by a move
+    public static long calculateHash(final BitBoard bitBoard,
+                                     final Alliance nextMoveMaker,
+                                     final int castlingRights,
+                                     final int enPassantSquare) {
+        long hash = 0L;
+        for(final PieceType pieceType : PieceType.values()){
+            for(final Alliance alliance : Alliance.values()){
+                long pieces = bitBoard.getPieces(pieceType, alliance);
+                while(pieces != 0){
+                    hash ^= pieceKey(pieceType, alliance, Long.numberOfTrailingZeros(pieces));
+                    pieces &= pieces - 1;
+                }
+            }
+        }
+        return hash ^ castlingKey(castlingRights) ^ enPassantKey(enPassantSquare) ^ sideToMoveKey(nextMoveMaker);
+    }
+
+    private static long nextSeed(final long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    //splitmix64 finaliser
+    private static long scramble(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
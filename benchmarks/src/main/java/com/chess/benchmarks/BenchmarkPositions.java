@@ -0,0 +1,45 @@
+package com.chess.benchmarks;
+
+import com.chess.engine.board.Board;
+import com.chess.pgn.FenUtilities;
+
+//the positions every benchmark runs over, so numbers from different benchmarks are comparable
+//openings have few captures, middlegames many legal moves, endgames mostly sliding pieces and kings
+public enum BenchmarkPositions {
+
+    OPENING_INITIAL(Phase.OPENING, "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"),
+    OPENING_SICILIAN(Phase.OPENING, "r1bqkbnr/pp1ppppp/2n5/2p5/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3"),
+    OPENING_QUEENS_GAMBIT(Phase.OPENING, "rnbqkb1r/ppp2ppp/4pn2/3p4/2PP4/2N5/PP2PPPP/R1BQKBNR w KQkq - 2 4"),
+    MIDDLEGAME_KIWIPETE(Phase.MIDDLEGAME, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"),
+    MIDDLEGAME_OPEN(Phase.MIDDLEGAME, "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"),
+    MIDDLEGAME_TACTICAL(Phase.MIDDLEGAME, "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"),
+    ENDGAME_ROOKS(Phase.ENDGAME, "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"),
+    ENDGAME_QUEENS(Phase.ENDGAME, "6k1/5ppp/8/3q4/8/8/3Q1PPP/6K1 w - - 0 1"),
+    ENDGAME_MINOR_PIECES(Phase.ENDGAME, "8/5k2/3b4/8/2N5/4B3/5K2/8 w - - 0 1");
+
+    public enum Phase {
+        OPENING,
+        MIDDLEGAME,
+        ENDGAME
+    }
+
+    private final Phase phase;
+    private final String fen;
+
+    BenchmarkPositions(final Phase phase, final String fen) {
+        this.phase = phase;
+        this.fen = fen;
+    }
+
+    public Phase getPhase() {
+        return this.phase;
+    }
+
+    public String getFen() {
+        return this.fen;
+    }
+
+    public Board createBoard() {
+        return FenUtilities.createGameFromFEN(this.fen);
+    }
+}
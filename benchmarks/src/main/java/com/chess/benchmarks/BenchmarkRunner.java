@@ -0,0 +1,34 @@
+package com.chess.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+//runs the benchmarks with the gc profiler so every result has its allocation rate (gc.alloc.rate.norm) next to it
+//usage: BenchmarkRunner [include regex] [result file], results are written as json for comparing runs
+//built by the benchmarks module on its own, from the repository root:
+//  mvn -f benchmarks/pom.xml package
+//  java -cp benchmarks/target/benchmarks.jar com.chess.benchmarks.BenchmarkRunner
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        final String include = args.length > 0 ? args[0] : "com\\.chess\\.benchmarks\\..*";
+        final String resultFile = args.length > 1 ? args[1] : "jmh-result.json";
+        final Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile)
+                //fixed heap so allocation and gc numbers are comparable between runs
+                .jvmArgsAppend("-Xms2g", "-Xmx2g")
+                .build();
+        new Runner(options).run();
+    }
+}
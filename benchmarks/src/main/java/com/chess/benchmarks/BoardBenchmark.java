@@ -0,0 +1,106 @@
+package com.chess.benchmarks;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//board construction and move generation
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    @Param
+    public BenchmarkPositions position;
+
+    private Board board;
+    private Board.Builder builder;
+    private Collection<Piece> activePieces;
+
+    @Setup
+    public void setup() {
+        this.board = this.position.createBoard();
+        this.activePieces = this.board.currentPlayer().getActivePieces();
+        //a builder holding the same position, to measure what building a board costs on its own
+        this.builder = new Board.Builder();
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            final Piece piece = this.board.getPiece(i);
+            if(piece != null){
+                this.builder.setPiece(piece);
+            }
+        }
+        this.builder.setMoveMaker(this.board.currentPlayer().getAlliance());
+        if(this.board.getEnPassantPawn() != null){
+            this.builder.setEnPassantPawn(this.board.getEnPassantPawn());
+        }
+    }
+
+    @Benchmark
+    public Board createStandardBoard() {
+        return Board.createStandardBoard();
+    }
+
+    @Benchmark
+    public Board buildBoard() {
+        return this.builder.build();
+    }
+
+    //the same loop as Player's private calculateStandardMoves, which only runs once per player and board
+    @Benchmark
+    public Collection<Move> calculateLegalMoves() {
+        final List<Move> legalMoves = new ArrayList<>();
+        for(final Piece piece : this.activePieces){
+            legalMoves.addAll(piece.calculateLegalMoves(this.board));
+        }
+        return legalMoves;
+    }
+
+    //per piece type, on every piece of that type the side to move has
+    @State(Scope.Thread)
+    public static class PieceState {
+
+        @Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+        public PieceType pieceType;
+
+        private final List<Piece> pieces = new ArrayList<>();
+
+        @Setup
+        public void setup(final BoardBenchmark benchmark) {
+            this.pieces.clear();
+            for(final Piece piece : benchmark.activePieces){
+                if(piece.getPieceType() == this.pieceType){
+                    this.pieces.add(piece);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void pieceCalculateLegalMoves(final PieceState pieceState, final Blackhole blackhole) {
+        for(final Piece piece : pieceState.pieces){
+            blackhole.consume(piece.calculateLegalMoves(this.board));
+        }
+    }
+}
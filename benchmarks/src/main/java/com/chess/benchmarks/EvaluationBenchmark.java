@@ -0,0 +1,57 @@
+package com.chess.benchmarks;
+
+import com.chess.engine.ai.Evaluator;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.PieceSquareTables;
+import com.chess.engine.board.SearchBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+//evaluations per second, the throughput is the number of leaf evaluations a search can afford
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class EvaluationBenchmark {
+
+    @Param
+    public BenchmarkPositions position;
+
+    private Board board;
+    private SearchBoard searchBoard;
+
+    @Setup
+    public void setup() {
+        this.board = this.position.createBoard();
+        this.searchBoard = new SearchBoard(this.board);
+    }
+
+    @Benchmark
+    public int evaluateSearchBoard() {
+        return Evaluator.evaluate(this.searchBoard);
+    }
+
+    @Benchmark
+    public int evaluateBoard() {
+        return Evaluator.evaluate(this.board);
+    }
+
+    //what the running sum saves: summing the piece square tables over all pieces at every leaf
+    @Benchmark
+    public int recalculatePieceSquareScore() {
+        return PieceSquareTables.calculateScore(this.searchBoard);
+    }
+}
@@ -0,0 +1,93 @@
+package com.chess.benchmarks;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.player.MoveTransition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//move execution, legality and the move lookup the gui does on every click
+//each benchmark runs over every legal move of the position, so scores are per position, not per move
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MoveBenchmark {
+
+    @Param
+    public BenchmarkPositions position;
+
+    private Board board;
+    private List<Move> legalMoves;
+
+    @Setup
+    public void setup() {
+        this.board = this.position.createBoard();
+        this.legalMoves = new ArrayList<>(this.board.currentPlayer().getLegalMoves());
+    }
+
+    @Benchmark
+    public void execute(final Blackhole blackhole) {
+        for(final Move move : this.legalMoves){
+            blackhole.consume(move.execute());
+        }
+    }
+
+    @Benchmark
+    public void makeMove(final Blackhole blackhole) {
+        for(final Move move : this.legalMoves){
+            final MoveTransition transition = this.board.currentPlayer().makeMove(move);
+            blackhole.consume(transition.getTransitionBoard());
+        }
+    }
+
+    //checkmate detection on every position one move away
+    @State(Scope.Thread)
+    public static class ChildBoards {
+
+        private final List<Board> boards = new ArrayList<>();
+
+        @Setup
+        public void setup(final MoveBenchmark benchmark) {
+            this.boards.clear();
+            for(final Move move : benchmark.legalMoves){
+                final MoveTransition transition = benchmark.board.currentPlayer().makeMove(move);
+                if(transition.getMoveStatus().isDone()){
+                    this.boards.add(transition.getTransitionBoard());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void isInCheckMate(final ChildBoards childBoards, final Blackhole blackhole) {
+        for(final Board child : childBoards.boards){
+            blackhole.consume(child.currentPlayer().isInCheckMate());
+        }
+    }
+
+    @Benchmark
+    public void createMove(final Blackhole blackhole) {
+        for(final Move move : this.legalMoves){
+            blackhole.consume(Move.MoveFactory.createMove(this.board,
+                                                          move.getCurrentCoordinate(),
+                                                          move.getDestinationCoordinate()));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.chess.benchmarks;
+
+import com.chess.engine.ai.SearchEngine;
+import com.chess.engine.ai.SearchLimits;
+import com.chess.engine.ai.SearchResult;
+import com.chess.engine.board.Board;
+
+//time to depth of the parallel search for growing thread counts, every position starts from an empty table
+//not a jmh benchmark: one search is long enough to time on its own and jmh would run it on one thread
+//usage: SearchScalingBenchmark [--depth N] [--threads 1,2,4,...] [--hash MB]
+//run from the benchmarks module's jar: java -cp benchmarks/target/benchmarks.jar com.chess.benchmarks.SearchScalingBenchmark
+public final class SearchScalingBenchmark {
+
+    private static final int[] DEFAULT_THREADS = {1, 2, 4, 8, 16, 32};
+
+    private SearchScalingBenchmark() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static void main(final String[] args) {
+        int depth = 7;
+        int hashSize = 256;
+        int[] threadCounts = DEFAULT_THREADS;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--depth") && i + 1 < args.length){
+                depth = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("--hash") && i + 1 < args.length){
+                hashSize = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("--threads") && i + 1 < args.length){
+                final String[] counts = args[++i].split(",");
+                threadCounts = new int[counts.length];
+                for(int j = 0; j < counts.length; j++){
+                    threadCounts[j] = Integer.parseInt(counts[j].trim());
+                }
+            } else {
+                throw new RuntimeException("Unknown argument: " + args[i]);
+            }
+        }
+        System.out.println("time to depth " + depth + " on " + Runtime.getRuntime().availableProcessors() + " cores");
+        //one untimed round so the timed ones run compiled code
+        runAllPositions(1, Math.max(1, depth - 2), hashSize);
+        long baselineMillis = 0L;
+        for(final int threads : threadCounts){
+            final long[] totals = runAllPositions(threads, depth, hashSize);
+            final long millis = totals[0];
+            final long nodes = totals[1];
+            if(baselineMillis == 0L){
+                baselineMillis = millis;
+            }
+            System.out.println(String.format("%3d threads %8d ms %12d nodes %10d nps  speedup %.2f",
+                    threads, millis, nodes, nodes * 1000 / Math.max(1, millis),
+                    (double) baselineMillis / Math.max(1, millis)));
+        }
+    }
+
+    //total milliseconds and nodes over all benchmark positions
+    private static long[] runAllPositions(final int threads, final int depth, final int hashSize) {
+        final SearchEngine engine = new SearchEngine(hashSize, threads);
+        final SearchLimits limits = SearchLimits.depth(depth);
+        long millis = 0L;
+        long nodes = 0L;
+        for(final BenchmarkPositions position : BenchmarkPositions.values()){
+            final Board board = position.createBoard();
+            engine.newGame();
+            final long start = System.nanoTime();
+            final SearchResult result = engine.search(board, limits);
+            millis += (System.nanoTime() - start) / 1_000_000;
+            nodes += result.getNodes();
+        }
+        engine.shutdown();
+        return new long[]{millis, nodes};
+    }
+}